@@ -0,0 +1,185 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import java.io.CharArrayWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.reporting.MavenReportException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for writing the doxygen configuration file. The <code>printf</code> benchmarks keep the emission before
+ * the {@link DoxygenConfigurationWriter} was introduced as baseline.
+ *
+ * @author agent
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class ConfigurationBenchmark
+{
+
+    private DoxygenReport report;
+
+    private File directory;
+
+    private File config;
+
+    private DoxygenConfigurationWriter writer;
+
+    private CharArrayWriter buffer;
+
+    private PrintWriter printWriter;
+
+    @Setup
+    public void setup()
+        throws IOException
+    {
+        directory = File.createTempFile( "doxygen-benchmark", "" );
+        directory.delete();
+        directory.mkdirs();
+        config = new File( directory, "doxygen.config" );
+
+        report = new DoxygenReport();
+        report.setBasedir( directory );
+        report.setOutputDirectory( directory );
+        report.setProjectName( "Benchmark" );
+        report.setInput( directory.getAbsolutePath() );
+
+        writer = new DoxygenConfigurationWriter( config, null, "UTF-8" );
+        buffer = new CharArrayWriter( 16 * 1024 );
+        printWriter = new PrintWriter( buffer );
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        config.delete();
+        directory.delete();
+    }
+
+    @Benchmark
+    public File buildConfigurationFile()
+        throws MavenReportException
+    {
+        report.buildConfigurationFile( config );
+        return config;
+    }
+
+    @Benchmark
+    public DoxygenConfigurationWriter addBooleanConfiguration()
+    {
+        writer.reset();
+        report.addConfiguration( writer, DoxygenParameters.EXTRACT_ALL, true );
+        return writer;
+    }
+
+    @Benchmark
+    public DoxygenConfigurationWriter addIntegerConfiguration()
+    {
+        writer.reset();
+        report.addConfiguration( writer, DoxygenParameters.TAB_SIZE, Integer.valueOf( 4 ) );
+        return writer;
+    }
+
+    @Benchmark
+    public DoxygenConfigurationWriter addStringConfiguration()
+    {
+        writer.reset();
+        report.addConfiguration( writer, DoxygenParameters.OUTPUT_DIRECTORY, "/path/to/the/output directory" );
+        return writer;
+    }
+
+    @Benchmark
+    public CharArrayWriter printfBooleanConfiguration()
+    {
+        buffer.reset();
+        printfConfiguration( printWriter, DoxygenParameters.EXTRACT_ALL, "YES" );
+        printWriter.flush();
+        return buffer;
+    }
+
+    @Benchmark
+    public CharArrayWriter printfIntegerConfiguration()
+    {
+        buffer.reset();
+        printfConfiguration( printWriter, DoxygenParameters.TAB_SIZE, Integer.valueOf( 4 ).toString() );
+        printWriter.flush();
+        return buffer;
+    }
+
+    @Benchmark
+    public CharArrayWriter printfStringConfiguration()
+    {
+        buffer.reset();
+        printfConfiguration( printWriter, DoxygenParameters.OUTPUT_DIRECTORY, "/path/to/the/output directory" );
+        printWriter.flush();
+        return buffer;
+    }
+
+    /**
+     * The emission before the template writer was introduced: the description followed by the name padded by
+     * <code>printf</code>.
+     */
+    private static void printfConfiguration( PrintWriter config, DoxygenParameters key, String value )
+    {
+        if ( value == null || value.trim().length() == 0 )
+        {
+            value = key.getDefaultValue();
+        }
+        if ( key.getType().equals( DoxygenParameterType.STRING_QUOTED ) )
+        {
+            value = '"' + value + '"';
+        }
+
+        config.print( key.getDescription() );
+        config.println();
+        config.printf( "%-22s", key.name() );
+        config.print( " = " );
+        if ( value != null )
+        {
+            config.println( value );
+        }
+        else
+        {
+            config.println();
+        }
+        config.println();
+    }
+}
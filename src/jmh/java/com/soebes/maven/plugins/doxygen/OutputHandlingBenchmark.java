@@ -0,0 +1,263 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.plexus.util.cli.StreamConsumer;
+import org.codehaus.plexus.util.cli.StreamPumper;
+import org.codehaus.plexus.util.cli.WriterStreamConsumer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for handling the output of doxygen. The input is a synthetic doxygen log of the given size which is
+ * pumped through the same stream handling which is used while doxygen is running: the consumers are created by
+ * the mojo like for a doxygen run, including the tailer of the WARN_LOGFILE.
+ *
+ * @author agent
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class OutputHandlingBenchmark
+{
+
+    /**
+     * The size of the synthetic doxygen log in MB.
+     */
+    @Param( { "4", "16" } )
+    private int size;
+
+    private byte[] output;
+
+    private CountingLog log;
+
+    private DoxygenReport report;
+
+    private File directory;
+
+    @Setup
+    public void setup()
+        throws IOException
+    {
+        StringBuilder text = new StringBuilder();
+        int i = 0;
+        while ( text.length() < size * 1024 * 1024 )
+        {
+            switch ( i % 4 )
+            {
+                case 0:
+                    text.append( "Parsing file /home/user/project/src/main/java/org/example/Class" ).append( i );
+                    text.append( ".java...\n" );
+                    break;
+                case 1:
+                    text.append( "Preprocessing /home/user/project/src/main/cpp/module" ).append( i );
+                    text.append( ".cpp...\r\n" );
+                    break;
+                case 2:
+                    text.append( "Generating docs for compound org::example::Class" ).append( i ).append( "...\n" );
+                    break;
+                default:
+                    text.append( "Generating call graph for function example_function_" ).append( i );
+                    text.append( "\n" );
+                    break;
+            }
+            i++;
+        }
+        output = text.toString().getBytes( "UTF-8" );
+        log = new CountingLog();
+
+        directory = File.createTempFile( "doxygen-benchmark", "" );
+        directory.delete();
+        directory.mkdirs();
+        report = new DoxygenReport();
+        report.setLog( log );
+        report.setBasedir( directory );
+        report.setOutputDirectory( directory );
+        // The default of the parameter.
+        report.setProgressInterval( 10 );
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        new File( directory, "doxygen-warnings.log" ).delete();
+        directory.delete();
+    }
+
+    /**
+     * The current handling: every line is passed to the log as soon as it is read, the phases and the progress are
+     * recorded and the WARN_LOGFILE is read in the background.
+     */
+    @Benchmark
+    public long streaming()
+    {
+        DoxygenWarningLogTailer tailer =
+            report.startWarningTailer( new File( directory, "doxygen-warnings.log" ), new DoxygenWarningStatistics() );
+        DoxygenPhaseConsumer consumer = report.createOutputConsumer( -1 );
+        try
+        {
+            pump( consumer );
+        }
+        finally
+        {
+            consumer.finish();
+            report.stopTailer( tailer );
+        }
+        return log.count;
+    }
+
+    /**
+     * The handling before streaming was introduced: collect everything, split it and clean every line with a regular
+     * expression.
+     */
+    @Benchmark
+    public long buffered()
+    {
+        StringWriter stringWriter = new StringWriter();
+        pump( new WriterStreamConsumer( stringWriter ) );
+
+        String[] lines = stringWriter.toString().split( "\n" );
+        for ( int i = 0; i < lines.length; i++ )
+        {
+            lines[i] = lines[i].replaceAll( "\n|\r", "" );
+            log.info( "doxygen: " + lines[i] );
+        }
+        return log.count;
+    }
+
+    private void pump( StreamConsumer consumer )
+    {
+        StreamPumper pumper = new StreamPumper( new ByteArrayInputStream( output ), consumer );
+        pumper.run();
+        pumper.close();
+    }
+
+    /**
+     * A log which only counts the characters to make sure the messages are not optimized away.
+     */
+    private static class CountingLog
+        implements Log
+    {
+        private long count;
+
+        private void consume( CharSequence content )
+        {
+            count += content.length();
+        }
+
+        public boolean isDebugEnabled()
+        {
+            return false;
+        }
+
+        public void debug( CharSequence content )
+        {
+            consume( content );
+        }
+
+        public void debug( CharSequence content, Throwable error )
+        {
+            consume( content );
+        }
+
+        public void debug( Throwable error )
+        {
+        }
+
+        public boolean isInfoEnabled()
+        {
+            return true;
+        }
+
+        public void info( CharSequence content )
+        {
+            consume( content );
+        }
+
+        public void info( CharSequence content, Throwable error )
+        {
+            consume( content );
+        }
+
+        public void info( Throwable error )
+        {
+        }
+
+        public boolean isWarnEnabled()
+        {
+            return true;
+        }
+
+        public void warn( CharSequence content )
+        {
+            consume( content );
+        }
+
+        public void warn( CharSequence content, Throwable error )
+        {
+            consume( content );
+        }
+
+        public void warn( Throwable error )
+        {
+        }
+
+        public boolean isErrorEnabled()
+        {
+            return true;
+        }
+
+        public void error( CharSequence content )
+        {
+            consume( content );
+        }
+
+        public void error( CharSequence content, Throwable error )
+        {
+            consume( content );
+        }
+
+        public void error( Throwable error )
+        {
+        }
+    }
+}
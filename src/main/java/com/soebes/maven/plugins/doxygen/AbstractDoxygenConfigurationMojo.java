@@ -402,6 +402,18 @@ public abstract class AbstractDoxygenConfigurationMojo extends AbstractMojo {
     @Parameter(property="doxygen.symbolCacheSize", defaultValue="0")
     private Integer symbolCacheSize;
 
+    /**
+     * The size of the symbol lookup cache can be set using LOOKUP_CACHE_SIZE.
+     * This cache is used to resolve symbols given their name and scope. If
+     * the cache is too small doxygen will become slower. If the cache is too
+     * large, memory is wasted. The cache size is given by this formula:
+     * 2^(16+LOOKUP_CACHE_SIZE). The valid range is 0..9, the default is 0,
+     * corresponding to a cache size of 2^16 = 65536 symbols.
+     *
+     */
+    @Parameter(property="doxygen.lookupCacheSize", defaultValue="0")
+    private Integer lookupCacheSize;
+
     /**
      * If the EXTRACT_ALL tag is set to YES doxygen will assume all entities in
      * documentation are documented, even if no documentation was available.
@@ -1788,6 +1800,18 @@ public abstract class AbstractDoxygenConfigurationMojo extends AbstractMojo {
     @Parameter(property="doxygen.haveDot", defaultValue="true")
     private boolean haveDot;
 
+    /**
+     * The DOT_NUM_THREADS specifies the number of dot invocations doxygen is
+     * allowed to run in parallel. When set to 0 doxygen will base this on the
+     * number of processors available in the system. If not set the processors
+     * are shared between the doxygen processes which are allowed to run at
+     * the same time (see maxConcurrentProcesses), so the number of dot
+     * processes of all doxygen processes is bounded by the processors.
+     *
+     */
+    @Parameter(property="doxygen.dotNumThreads")
+    private Integer dotNumThreads;
+
     /**
      * By default doxygen will write a font called FreeSans.ttf to the output
      * directory and reference it in all dot files that doxygen generates. This
@@ -2306,6 +2330,14 @@ public abstract class AbstractDoxygenConfigurationMojo extends AbstractMojo {
         this.symbolCacheSize = symbolCacheSize;
     }
 
+    public Integer getLookupCacheSize() {
+        return lookupCacheSize;
+    }
+
+    public void setLookupCacheSize(Integer lookupCacheSize) {
+        this.lookupCacheSize = lookupCacheSize;
+    }
+
     public boolean isExtractAll() {
         return extractAll;
     }
@@ -3578,6 +3610,14 @@ public abstract class AbstractDoxygenConfigurationMojo extends AbstractMojo {
         this.dotfileDirs = dotfileDirs;
     }
 
+    public Integer getDotNumThreads() {
+        return dotNumThreads;
+    }
+
+    public void setDotNumThreads(Integer dotNumThreads) {
+        this.dotNumThreads = dotNumThreads;
+    }
+
     public Integer getDotGraphMaxNodes() {
         return dotGraphMaxNodes;
     }
@@ -21,14 +21,23 @@
  */
 package com.soebes.maven.plugins.doxygen;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.io.StringWriter;
-import java.io.Writer;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugins.annotations.Parameter;
@@ -36,11 +45,12 @@ import org.apache.maven.reporting.MavenReportException;
 import org.apache.maven.toolchain.Toolchain;
 import org.apache.maven.toolchain.ToolchainManager;
 import org.codehaus.plexus.component.repository.exception.ComponentLookupException;
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.Os;
 import org.codehaus.plexus.util.cli.CommandLineException;
 import org.codehaus.plexus.util.cli.CommandLineUtils;
 import org.codehaus.plexus.util.cli.Commandline;
 import org.codehaus.plexus.util.cli.StreamConsumer;
-import org.codehaus.plexus.util.cli.WriterStreamConsumer;
 
 /**
  * This abstract class contains all configurable parameters for the doxygen plugin.
@@ -51,6 +61,9 @@ public abstract class AbstractDoxygenMojo
     extends AbstractDoxygenConfigurationMojo
 {
 
+    private static final Pattern CACHE_SIZE_SUGGESTION =
+        Pattern.compile( ".*ideal setting for (?:LOOKUP|SYMBOL)_CACHE_SIZE is (\\d+).*" );
+
     /**
      * The OUTPUT_DIRECTORY tag is used to specify the (relative or absolute) base path where the generated
      * documentation will be put. If a relative path is entered, it will be relative to the location where doxygen was
@@ -87,19 +100,230 @@ public abstract class AbstractDoxygenMojo
     @Parameter( property = "skip", defaultValue = "false", required = true, readonly = true )
     private boolean skip;
 
+    /**
+     * If set to <code>true</code> doxygen will only be called if the configuration, the input files or the doxygen
+     * version have changed since the last run and the generated documentation still exists. The fingerprint of the
+     * last run is stored in the <code>doxygen.fingerprint</code> file within the output directory.
+     */
+    @Parameter( property = "doxygen.incremental", defaultValue = "false" )
+    private boolean incremental;
+
+    /**
+     * If set to <code>true</code> doxygen is run only once per build session for the same configuration and output
+     * directory. This happens if a module binds a standalone execution and lists the report in the
+     * reporting section, or if <code>site</code> and <code>site:stage</code> both generate the report. A second
+     * execution reuses the output of the first one or waits until the first one has finished.
+     */
+    @Parameter( property = "doxygen.deduplicate", defaultValue = "true" )
+    private boolean deduplicate;
+
+    /**
+     * The number of doxygen processes which will be run in parallel. If set to a value greater than one the input
+     * files will be split into this number of shards which are documented by separate doxygen runs. The references
+     * between the shards are resolved via tag files. The documentation of each shard is created within its own
+     * sub directory of the HTML output directory which contains an index page linking to all shards. Only HTML output
+     * is supported; the other output formats, searchIndex and xmlProcessors can not be used together with shards.
+     */
+    @Parameter( property = "doxygen.parallelShards", defaultValue = "1" )
+    private int parallelShards;
+
+    /**
+     * If set to <code>true</code> the generated documentation is stored in a local cache. If the same configuration
+     * and the same input files are documented again (for example on a different branch) the documentation is taken
+     * from the cache instead of calling doxygen.
+     */
+    @Parameter( property = "doxygen.useCache", defaultValue = "false" )
+    private boolean useCache;
+
+    /**
+     * The directory which contains the cached documentation.
+     */
+    @Parameter( property = "doxygen.cacheDirectory", defaultValue = "${user.home}/.m2/doxygen-cache" )
+    private File cacheDirectory;
+
+    /**
+     * The maximum size of the cache in MB. If the cache gets larger the least recently used entries are removed.
+     */
+    @Parameter( property = "doxygen.cacheMaxSize", defaultValue = "1024" )
+    private int cacheMaxSize;
+
+    /**
+     * If set to <code>true</code> the generated configuration file will not contain the descriptions of the
+     * configuration items and items with an empty value are left out. This makes the file considerably smaller and
+     * faster to write and to read by doxygen. Items which have a value are always written even if the value is the
+     * default of the plugin, cause the defaults of the plugin are not always the same as the defaults of doxygen.
+     */
+    @Parameter( property = "doxygen.compactConfiguration", defaultValue = "false" )
+    private boolean compactConfiguration;
+
+    /**
+     * The maximum number of doxygen processes which are run at the same time by all modules of a (parallel) build. The
+     * dot processes started by doxygen are limited as well by sharing the processors between the allowed doxygen
+     * processes via DOT_NUM_THREADS (if dotNumThreads is not set). If set to 0 the number of available processors is
+     * used. There is a single limit for all modules of the build; the module which asks last determines it.
+     */
+    @Parameter( property = "doxygen.maxConcurrentProcesses", defaultValue = "0" )
+    private int maxConcurrentProcesses;
+
+    /**
+     * The maximum number of warnings doxygen may produce. If there are more warnings the build fails. The warnings
+     * are only counted if WARN_LOGFILE (warnLogfile) is set. A negative value means no limit.
+     */
+    @Parameter( property = "doxygen.maxWarnings", defaultValue = "-1" )
+    private int maxWarnings;
+
+    /**
+     * If set to <code>true</code> SYMBOL_CACHE_SIZE and LOOKUP_CACHE_SIZE are chosen automatically based on the size
+     * of the input files and the available physical memory (read from <code>/proc/meminfo</code>). Every run is
+     * recorded in the cache directory together with its duration and the cache size doxygen suggests, so later runs
+     * of the same module refine the choice. The configured values of symbolCacheSize and lookupCacheSize are ignored.
+     */
+    @Parameter( property = "doxygen.autoCacheSize", defaultValue = "false" )
+    private boolean autoCacheSize;
+
+    /**
+     * If set to <code>true</code> the images created by dot are cached in the cache directory. If a graph has not
+     * changed since an earlier build (of any module) its images are taken from the cache instead of calling dot. This
+     * uses a small shell script which is given to doxygen as DOT_PATH and calls the dot given by dotPath, so it is not
+     * available on Windows. The number of parallel dot calls is given by DOT_NUM_THREADS (dotNumThreads).
+     */
+    @Parameter( property = "doxygen.cacheDotGraphs", defaultValue = "false" )
+    private boolean cacheDotGraphs;
+
+    /**
+     * If set to <code>true</code> doxygen generates into a staging directory and the output directories (html, latex
+     * etc.) are replaced only after doxygen finished successfully, so a failing run keeps the documentation of the
+     * previous run. Files which did not change are hard linked to the files of the previous run. This is not used if
+     * a configurationFile is given, for parallelShards or for output directories which are not located in the
+     * outputDirectory.
+     */
+    @Parameter( property = "doxygen.stagedOutput", defaultValue = "false" )
+    private boolean stagedOutput;
+
+    /**
+     * If set to <code>true</code> GENERATE_XML is enabled and a search index is built from the XML output which is
+     * written into the <code>search-index</code> directory of the HTML output together with a small JavaScript client
+     * (<code>search-index/search.html</code>). The client loads only the parts of the index it needs, so it can be
+     * used for code bases where the index of the searchengine is too large for the browser.
+     */
+    @Parameter( property = "doxygen.searchIndex", defaultValue = "false" )
+    private boolean searchIndex;
+
+    /**
+     * The class names of {@link DoxygenXmlProcessor} implementations which are called with the XML output after
+     * doxygen has finished. The implementations have to be given as dependencies of the plugin. GENERATE_XML is
+     * enabled if at least one processor is given.
+     */
+    @Parameter
+    private List<String> xmlProcessors;
+
+    /**
+     * If set to <code>true</code> a gzip compressed sibling (<code>index.html.gz</code>) is written for every file of
+     * the HTML output with one of the precompressExtensions, so a web server can deliver them directly (for example
+     * nginx with <code>gzip_static</code>). Files whose compressed sibling is newer are not compressed again.
+     */
+    @Parameter( property = "doxygen.precompress", defaultValue = "false" )
+    private boolean precompress;
+
+    /**
+     * The comma separated list of the extensions of the files which are compressed if precompress is enabled.
+     */
+    @Parameter( property = "doxygen.precompressExtensions", defaultValue = "html,js,css,svg,json" )
+    private String precompressExtensions;
+
+    /**
+     * If set to <code>true</code> the files doxygen has to read are resolved by the plugin (INPUT, RECURSIVE,
+     * FILE_PATTERNS, EXCLUDE, EXCLUDE_PATTERNS and EXCLUDE_SYMLINKS) by reading the directories in parallel, and the
+     * resulting list of files is given to doxygen as INPUT. This avoids the single threaded search for files of doxygen
+     * which is slow on network file systems. The same list is used for the incremental mode, the cache and
+     * parallelShards.
+     */
+    @Parameter( property = "doxygen.resolveInput", defaultValue = "false" )
+    private boolean resolveInput;
+
+    /**
+     * The class names of {@link DoxygenInputFilter} implementations which filter the input files inside the JVM
+     * instead of an INPUT_FILTER process per file. The implementations have to be given as dependencies of the
+     * plugin. The filtered files are written in parallel to the filterMirrorDirectory which is given to doxygen as
+     * INPUT; they are cached in the cacheDirectory by the content of the input file. The mirror directory is added to
+     * STRIP_FROM_PATH, so the names of the files stay the same. As with FILTER_SOURCE_FILES the source browser shows
+     * the filtered files.
+     */
+    @Parameter
+    private List<String> javaFilters;
+
+    /**
+     * The directory the files filtered by the javaFilters are written to.
+     */
+    @Parameter( property = "doxygen.filterMirrorDirectory",
+        defaultValue = "${project.build.directory}/doxygen-filtered" )
+    private File filterMirrorDirectory;
+
+    /**
+     * The interval in seconds in which the progress of doxygen (parsed files per second with the estimated remaining
+     * time, generated compounds per second, dot graphs) is logged while doxygen is running. The progress is logged
+     * in quiet mode as well. <code>0</code> disables the progress messages.
+     */
+    @Parameter( property = "doxygen.progressInterval", defaultValue = "10" )
+    private int progressInterval;
+
+    /**
+     * The file the time spent in the phases of the execution (configuration, doxygen phases, post processing etc.) is
+     * written to as JSON. The timings are published via JMX as well
+     * (<code>com.soebes.maven.plugins.doxygen:type=Timings</code>).
+     */
+    @Parameter( property = "doxygen.timingsFile", defaultValue = "${project.build.directory}/doxygen-timings.json" )
+    private File timingsFile;
+
+    /**
+     * The input files of the current execution.
+     */
+    private List<File> inputFiles;
+
+    /**
+     * The files given to doxygen in the current execution (filtered by the javaFilters).
+     */
+    private List<File> doxygenInputFiles;
+
+    /**
+     * The instances of the javaFilters.
+     */
+    private List<DoxygenInputFilter> inputFilters;
+
+    /**
+     * The timings of the current execution.
+     */
+    private DoxygenTimings timings;
+
+    /**
+     * The cache size chosen by {@link #autoCacheSize} for the current execution.
+     */
+    private Integer chosenCacheSize;
+
+    /**
+     * The size of the input files of the current execution (only determined for {@link #autoCacheSize}).
+     */
+    private long inputBytes;
+
+    /**
+     * The cache size suggested by doxygen at the end of the last run or -1.
+     */
+    private volatile int suggestedCacheSize = -1;
+
     protected File getOutputDirectory()
     {
-        if ( !outputDirectory.isAbsolute() )
+        File directory = outputDirectory;
+        if ( !directory.isAbsolute() )
         {
-            outputDirectory = new File( getBasedir(), outputDirectory.getPath() );
+            directory = new File( getBasedir(), directory.getPath() );
         }
         // Create the folder structure.
-        if ( !outputDirectory.exists() )
+        if ( !directory.exists() )
         {
-            outputDirectory.mkdirs();
+            directory.mkdirs();
         }
 
-        return outputDirectory.getAbsoluteFile();
+        return directory.getAbsoluteFile();
     }
 
     /**
@@ -139,7 +363,7 @@ public abstract class AbstractDoxygenMojo
      * 
      * @return Path to the doxygen executable.
      */
-    private String getExecutablePath()
+    protected String getExecutablePath()
     {
         File execFile = new File( executable );
         if ( execFile.exists() )
@@ -157,7 +381,11 @@ public abstract class AbstractDoxygenMojo
             if ( tc != null )
             {
                 getLog().info( "Toolchain in doxygen plugin: " + tc );
-                executable = tc.findTool( executable );
+                String tool = tc.findTool( executable );
+                if ( tool != null )
+                {
+                    return tool;
+                }
             }
         }
 
@@ -198,13 +426,76 @@ public abstract class AbstractDoxygenMojo
      */
     public void buildConfigurationFile( File config )
         throws MavenReportException
+    {
+        buildConfigurationFile( config, null );
+    }
+
+    /**
+     * This method will create the configuration for calling doxygen where the values of the given items replace the
+     * configured ones.
+     *
+     * @param config The configuration.
+     * @param overrides The items which will be written with the given value instead of the configured value.
+     * @throws MavenReportException
+     */
+    public void buildConfigurationFile( File config, Map<DoxygenParameters, String> overrides )
+        throws MavenReportException
     {
         config.getParentFile().mkdirs();
 
-        PrintWriter out = null;
+        Map<DoxygenParameters, String> items = new EnumMap<DoxygenParameters, String>( DoxygenParameters.class );
+        items.putAll( getAdditionalConfiguration() );
+        if ( hasJavaFilters() )
+        {
+            String strip = getStripFromPath();
+            if ( strip == null || strip.trim().length() == 0 )
+            {
+                strip = "\"" + getBasedir().getAbsolutePath() + "\"";
+            }
+            items.put( DoxygenParameters.STRIP_FROM_PATH, "\"" + getFilterMirrorDirectory().getAbsolutePath() + "\" "
+                + strip.trim() );
+        }
+        if ( isResolveInput() || hasJavaFilters() )
+        {
+            List<File> files = getDoxygenInputFiles();
+            // An empty INPUT would make doxygen read the working directory.
+            if ( !files.isEmpty() )
+            {
+                items.put( DoxygenParameters.INPUT, toInputList( files ) );
+            }
+        }
+        if ( isCacheDotGraphs() && isHaveDot() )
+        {
+            File dotCache = getDotCacheDirectory();
+            if ( dotCache != null )
+            {
+                items.put( DoxygenParameters.DOT_PATH, dotCache.getAbsolutePath() );
+            }
+        }
+        if ( isSearchIndex() && isGenerateHtml() || getXmlProcessors() != null && !getXmlProcessors().isEmpty() )
+        {
+            items.put( DoxygenParameters.GENERATE_XML, "YES" );
+        }
+        if ( overrides != null )
+        {
+            String tagfiles = items.get( DoxygenParameters.TAGFILES );
+            items.putAll( overrides );
+            if ( tagfiles != null && overrides.containsKey( DoxygenParameters.TAGFILES ) )
+            {
+                items.put( DoxygenParameters.TAGFILES, ( overrides.get( DoxygenParameters.TAGFILES ) + " "
+                    + tagfiles ).trim() );
+            }
+        }
+
+        DoxygenVersion version = null;
+        if ( executable != null )
+        {
+            version = DoxygenVersion.parse( getDoxygenVersion( getExecutablePath() ) );
+        }
+        DoxygenConfigurationWriter out =
+            new DoxygenConfigurationWriter( config, items, getDoxyfileEncoding(), isCompactConfiguration(), version );
         try
         {
-            out = new PrintWriter( new BufferedWriter( new FileWriter( config ) ) );
             addConfiguration( out, DoxygenParameters.DOXYFILE_ENCODING, getDoxyfileEncoding() );
             addConfiguration( out, DoxygenParameters.PROJECT_NAME, getProjectName() );
             addConfiguration( out, DoxygenParameters.PROJECT_NUMBER, getProjectNumber() );
@@ -238,7 +529,8 @@ public abstract class AbstractDoxygenMojo
             addConfiguration( out, DoxygenParameters.DISTRIBUTE_GROUP_DOC, isDistributeGroupDoc() );
             addConfiguration( out, DoxygenParameters.SUBGROUPING, isSubgrouping() );
             addConfiguration( out, DoxygenParameters.TYPEDEF_HIDES_STRUCT, isTypedefHidesStruct() );
-            addConfiguration( out, DoxygenParameters.SYMBOL_CACHE_SIZE, getSymbolCacheSize() );
+            addConfiguration( out, DoxygenParameters.SYMBOL_CACHE_SIZE, getEffectiveCacheSize( getSymbolCacheSize() ) );
+            addConfiguration( out, DoxygenParameters.LOOKUP_CACHE_SIZE, getEffectiveCacheSize( getLookupCacheSize() ) );
             addConfiguration( out, DoxygenParameters.EXTRACT_ALL, isExtractAll() );
             addConfiguration( out, DoxygenParameters.EXTRACT_PRIVATE, isExtractPrivate() );
             addConfiguration( out, DoxygenParameters.EXTRACT_STATIC, isExtractStatic() );
@@ -381,6 +673,7 @@ public abstract class AbstractDoxygenMojo
             addConfiguration( out, DoxygenParameters.MSCGEN_PATH, getMscgenPath() );
             addConfiguration( out, DoxygenParameters.HIDE_UNDOC_RELATIONS, isHideUndocRelations() );
             addConfiguration( out, DoxygenParameters.HAVE_DOT, isHaveDot() );
+            addConfiguration( out, DoxygenParameters.DOT_NUM_THREADS, getEffectiveDotNumThreads() );
             addConfiguration( out, DoxygenParameters.DOT_FONTNAME, getDotFontname() );
             addConfiguration( out, DoxygenParameters.DOT_FONTSIZE, getDotFontsize() );
             addConfiguration( out, DoxygenParameters.DOT_FONTPATH, getDotFontpath() );
@@ -406,19 +699,103 @@ public abstract class AbstractDoxygenMojo
             addConfiguration( out, DoxygenParameters.DOT_CLEANUP, isDotCleanup() );
             addConfiguration( out, DoxygenParameters.SEARCHENGINE, isSearchengine() );
 
+            out.close();
         }
         catch ( IOException ex )
         {
             throw new MavenReportException( "Error creating Doxygen configuration file '" + config.getAbsolutePath()
                 + "'.", ex );
         }
-        finally
+    }
+
+    /**
+     * The items which are written with the given values instead of the configured ones, for example to link the
+     * documentation of other modules. Overrides given to {@link #buildConfigurationFile(File, Map)} take precedence,
+     * except for TAGFILES which are combined.
+     *
+     * @return The items (never <code>null</code>).
+     * @throws MavenReportException in case of failures.
+     */
+    protected Map<DoxygenParameters, String> getAdditionalConfiguration()
+        throws MavenReportException
+    {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * @return The configured DOT_NUM_THREADS or the share of the available processors of a single doxygen process,
+     *         so all dot processes of the allowed doxygen processes together do not use more than the processors.
+     */
+    protected Integer getEffectiveDotNumThreads()
+    {
+        if ( getDotNumThreads() != null )
+        {
+            return getDotNumThreads();
+        }
+        int processors = Runtime.getRuntime().availableProcessors();
+        int processes = DoxygenProcessLimiter.getLimit( getMaxConcurrentProcesses() );
+        return Integer.valueOf( Math.max( 1, processors / processes ) );
+    }
+
+    /**
+     * @param configured The configured cache size.
+     * @return The configured cache size or the chosen one if {@link #isAutoCacheSize()} is set.
+     */
+    protected Integer getEffectiveCacheSize( Integer configured )
+    {
+        if ( !isAutoCacheSize() )
+        {
+            return configured;
+        }
+        if ( chosenCacheSize == null )
         {
-            if ( out != null )
+            inputBytes = 0;
+            for ( File file : getInputFiles() )
             {
-                out.close();
+                inputBytes += file.length();
             }
+            chosenCacheSize = Integer.valueOf( getCacheSizeAdvisor().advise( inputBytes ) );
+            getLog().info( "Using cache size " + chosenCacheSize + " for " + inputBytes + " bytes of input." );
+        }
+        return chosenCacheSize;
+    }
+
+    /**
+     * Install the script which caches the results of dot.
+     *
+     * @return The directory which has to be used as DOT_PATH or <code>null</code> if the cache can not be used.
+     */
+    private File getDotCacheDirectory()
+    {
+        if ( getCacheDirectory() == null || Os.isFamily( Os.FAMILY_WINDOWS ) )
+        {
+            getLog().warn( "The dot graphs can not be cached on this platform." );
+            return null;
+        }
+        String dotExecutable = DotGraphCache.resolveDotExecutable( getDotPath() );
+        String name = new DoxygenFingerprint().add( dotExecutable ).getValue();
+        File directory = new File( getCacheDirectory(), "dot/bin/" + name );
+        try
+        {
+            new DotGraphCache( new File( getCacheDirectory(), "dot/graphs" ), dotExecutable ).install( directory );
+        }
+        catch ( IOException e )
+        {
+            getLog().warn( "The dot graphs are not cached: " + e.getMessage() );
+            return null;
         }
+        return directory;
+    }
+
+    private DoxygenCacheSizeAdvisor getCacheSizeAdvisor()
+    {
+        File history = null;
+        if ( getCacheDirectory() != null )
+        {
+            String module = new DoxygenFingerprint().add( getBasedir().getAbsolutePath() ).getValue();
+            history = new File( getCacheDirectory(), "cache-size/" + module + ".history" );
+        }
+        return new DoxygenCacheSizeAdvisor( history, DoxygenCacheSizeAdvisor.readAvailableMemory() );
     }
 
     /**
@@ -428,7 +805,7 @@ public abstract class AbstractDoxygenMojo
      * @param key The configuration parameter name with it's default values etc.
      * @param value The reals value, base on the Plugin configuration.
      */
-    private void addConfiguration( PrintWriter config, DoxygenParameters key, boolean value )
+    void addConfiguration( DoxygenConfigurationWriter config, DoxygenParameters key, boolean value )
     {
         if ( value )
         {
@@ -447,7 +824,7 @@ public abstract class AbstractDoxygenMojo
      * @param key The configuration parameter name with it's default values etc.
      * @param value The reals value, base on the Plugin configuration.
      */
-    private void addConfiguration( PrintWriter config, DoxygenParameters key, Integer value )
+    void addConfiguration( DoxygenConfigurationWriter config, DoxygenParameters key, Integer value )
     {
         if ( value == null )
         {
@@ -463,7 +840,7 @@ public abstract class AbstractDoxygenMojo
      * @param key The configuration parameter name with it's default values etc.
      * @param value The reals value, base on the Plugin configuration.
      */
-    private void addConfiguration( PrintWriter config, DoxygenParameters key, String value )
+    void addConfiguration( DoxygenConfigurationWriter config, DoxygenParameters key, String value )
     {
         if ( value == null )
         {
@@ -474,111 +851,1518 @@ public abstract class AbstractDoxygenMojo
             value = key.getDefaultValue();
         }
 
+        if ( config.isOverridden( key ) )
+        {
+            value = config.getOverride( key );
+        }
+        else if ( config.isCompact() && ( value == null || value.trim().length() == 0 ) )
+        {
+            // Left out items get the doxygen default which is empty as well.
+            return;
+        }
+
         // If we have quoted parameters.
         if ( key.getType().equals( DoxygenParameterType.STRING_QUOTED ) )
         {
             value = '"' + value + '"';
         }
 
-        addConfiguration( config, key.getDescription(), key.name(), value );
+        config.write( key, value );
     }
 
     /**
-     * This will write all kind of configuration items into the configuration file and will format the file.
-     * 
-     * @param config The output file.
-     * @param desc The description of the item.
-     * @param key The name of the item
-     * @param value The value of the item.
+     * @return The scanner which resolves the files doxygen will read based on the current configuration.
+     */
+    protected DoxygenInputScanner getInputScanner()
+    {
+        return new DoxygenInputScanner( getBasedir(), getInput(), getFilePatterns(), isRecursive(), getExclude(),
+                                        getExcludePatterns(), isExcludeSymlinks() );
+    }
+
+    /**
+     * The files doxygen will read. They are resolved only once per execution.
+     *
+     * @return The files sorted by their path.
      */
-    private void addConfiguration( PrintWriter config, String desc, String key, String value )
+    protected synchronized List<File> getInputFiles()
     {
-        // Description first.
-        config.print( desc );
-        config.println();
-        config.printf( "%-22s", key );
-        config.print( " = " );
-        if ( value != null )
+        if ( inputFiles == null )
         {
-            config.println( value );
+            long start = System.nanoTime();
+            inputFiles = Collections.unmodifiableList( getInputScanner().scan() );
+            getTimings().record( "inputResolution", start );
+            getLog().debug( "Resolved " + inputFiles.size() + " input files." );
         }
-        else
+        return inputFiles;
+    }
+
+    /**
+     * The files given to doxygen: the input files where the files accepted by one of the javaFilters are replaced by
+     * the filtered files. They are filtered only once per execution.
+     *
+     * @return The files.
+     * @throws MavenReportException in case the files could not be filtered.
+     */
+    protected synchronized List<File> getDoxygenInputFiles()
+        throws MavenReportException
+    {
+        if ( !hasJavaFilters() )
+        {
+            return getInputFiles();
+        }
+        if ( doxygenInputFiles == null )
         {
-            config.println();
+            doxygenInputFiles = Collections.unmodifiableList( filterInputFiles( getInputFiles() ) );
         }
-        config.println();
+        return doxygenInputFiles;
     }
 
     /**
-     * @param unusedLocale the wanted locale (actually unused).
-     * @throws MavenReportException if any
+     * Replace the given files which are accepted by one of the javaFilters by the filtered files in the
+     * {@link #getFilterMirrorDirectory()}.
+     *
+     * @param files The input files.
+     * @return The files given to doxygen (the given files if there are no javaFilters).
+     * @throws MavenReportException in case the files could not be filtered.
      */
-    protected void executeReport( Locale unusedLocale )
+    protected List<File> filterInputFiles( List<File> files )
         throws MavenReportException
     {
-
-        File config = buildConfigurationFile();
-
-        Commandline cli = new Commandline();
-        cli.setWorkingDirectory( getBasedir().getAbsolutePath() );
-        cli.setExecutable( getExecutablePath() );
-        cli.createArgument().setValue( config.getAbsolutePath() );
-
-        Writer stringWriter = new StringWriter();
-        StreamConsumer out = new WriterStreamConsumer( stringWriter );
-        StreamConsumer err = new WriterStreamConsumer( stringWriter );
-
+        if ( !hasJavaFilters() )
+        {
+            return files;
+        }
+        List<DoxygenInputFilter> filters = getInputFilters();
+        File filterCache = getCacheDirectory() == null ? null : new File( getCacheDirectory(), "filtered" );
+        DoxygenFilterStage stage =
+            new DoxygenFilterStage( filters, getBasedir(), getFilterMirrorDirectory(), filterCache,
+                                    Runtime.getRuntime().availableProcessors() );
+        long start = System.nanoTime();
+        List<File> result;
         try
         {
-            int returnCode = CommandLineUtils.executeCommandLine( cli, out, err );
-
-            if ( !isQuiet() )
-            {
-                // Get all output from doxygen and put it to the log out of Maven.
-                String[] lines = stringWriter.toString().split( "\n" );
-                for ( int i = 0; i < lines.length; i++ )
-                {
-                    lines[i] = lines[i].replaceAll( "\n|\r", "" );
-                    getLog().info( "doxygen: " + lines[i] );
-                }
-            }
+            result = stage.filter( files );
+        }
+        catch ( IOException e )
+        {
+            throw new MavenReportException( "Could not filter the input files: " + e.getMessage(), e );
+        }
+        getTimings().record( "filtering", start );
+        getLog().info( "Filtered " + stage.getFiltered() + " input files, " + stage.getCached()
+            + " filtered files taken from the cache." );
+        return result;
+    }
 
-            if ( returnCode != 0 )
-            {
-                throw new MavenReportException( "Failed to generate Doxygen documentation." );
-            }
+    private boolean hasJavaFilters()
+    {
+        return getJavaFilters() != null && !getJavaFilters().isEmpty();
+    }
 
+    /**
+     * Create an instance of a class given by a parameter. The class is loaded by the class loader of the plugin, so it
+     * has to be given as dependency of the plugin.
+     *
+     * @param className The name of the class.
+     * @param type The type the class has to implement.
+     * @param parameter The name of the parameter for error messages.
+     * @return The new instance.
+     * @throws MavenReportException in case the instance could not be created.
+     */
+    <T> T newInstance( String className, Class<T> type, String parameter )
+        throws MavenReportException
+    {
+        try
+        {
+            Class<?> loaded = Class.forName( className.trim(), true, getClass().getClassLoader() );
+            return loaded.asSubclass( type ).getDeclaredConstructor().newInstance();
         }
-        catch ( CommandLineException ex )
+        catch ( ClassNotFoundException e )
         {
-            throw new MavenReportException( "Error while executing Doxygen.", ex );
+            throw new MavenReportException( "The " + parameter + " '" + className
+                + "' could not be found. Is it given as dependency of the plugin?", e );
+        }
+        catch ( ClassCastException e )
+        {
+            throw new MavenReportException( "The " + parameter + " '" + className + "' does not implement "
+                + type.getName() + ".", e );
+        }
+        catch ( InstantiationException e )
+        {
+            throw new MavenReportException( "The " + parameter + " '" + className + "' could not be created.", e );
+        }
+        catch ( IllegalAccessException e )
+        {
+            throw new MavenReportException( "The " + parameter + " '" + className + "' could not be created.", e );
+        }
+        catch ( NoSuchMethodException e )
+        {
+            throw new MavenReportException( "The " + parameter + " '" + className
+                + "' has no default constructor.", e );
+        }
+        catch ( InvocationTargetException e )
+        {
+            throw new MavenReportException( "The " + parameter + " '" + className + "' could not be created.", e );
         }
+    }
 
+    /**
+     * @param files The files.
+     * @return The value of INPUT which lists the given files.
+     */
+    static String toInputList( List<File> files )
+    {
+        StringBuilder input = new StringBuilder();
+        for ( File file : files )
+        {
+            input.append( '"' ).append( file.getAbsolutePath() ).append( "\" " );
+        }
+        return input.toString().trim();
     }
 
-    public void setBasedir( File basedir )
+    /**
+     * @return The directories of all enabled output formats.
+     */
+    protected List<File> getGeneratedOutputDirectories()
     {
-        this.basedir = basedir;
+        List<File> result = new ArrayList<File>();
+        addOutputDirectory( result, isGenerateHtml(), getHtmlOutput(), DoxygenParameters.HTML_OUTPUT );
+        addOutputDirectory( result, isGenerateLatex(), getLatexOutput(), DoxygenParameters.LATEX_OUTPUT );
+        addOutputDirectory( result, isGenerateRtf(), getRtfOutput(), DoxygenParameters.RTF_OUTPUT );
+        addOutputDirectory( result, isGenerateMan(), getManOutput(), DoxygenParameters.MAN_OUTPUT );
+        addOutputDirectory( result, isGenerateXml(), getXmlOutput(), DoxygenParameters.XML_OUTPUT );
+        return result;
     }
 
-    public File getBasedir()
+    private void addOutputDirectory( List<File> result, boolean enabled, String name, DoxygenParameters key )
     {
-        return basedir;
+        if ( enabled )
+        {
+            result.add( resolveOutputDirectory( name, key ) );
+        }
     }
 
-    public void setOutputDirectory( File outputDirectory )
+    /**
+     * @return The directory which will contain the generated HTML documentation.
+     */
+    protected File getHtmlOutputDirectory()
     {
-        this.outputDirectory = outputDirectory;
+        return resolveOutputDirectory( getHtmlOutput(), DoxygenParameters.HTML_OUTPUT );
     }
 
-    public boolean isSkip()
+    private File resolveOutputDirectory( String name, DoxygenParameters key )
     {
-        return skip;
+        return resolveOutputDirectory( getOutputDirectory(), name, key );
     }
 
-    public void setSkip( boolean skip )
+    private File resolveOutputDirectory( File outputDirectory, String name, DoxygenParameters key )
     {
-        this.skip = skip;
+        if ( name == null || name.trim().length() == 0 )
+        {
+            name = key.getDefaultValue();
+        }
+        File directory = new File( name.trim() );
+        if ( !directory.isAbsolute() )
+        {
+            directory = new File( outputDirectory, name.trim() );
+        }
+        return directory;
     }
 
+    /**
+     * Check if the output of a previous run is still there.
+     *
+     * @return true if all output directories exist and are not empty.
+     */
+    protected boolean isOutputComplete()
+    {
+        for ( File directory : getGeneratedOutputDirectories() )
+        {
+            String[] content = directory.list();
+            if ( content == null || content.length == 0 )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Ask the given doxygen executable for its version.
+     *
+     * @param executablePath The doxygen executable.
+     * @return The version as reported by <code>doxygen --version</code> or <code>null</code> if it could not be
+     *         determined.
+     */
+    protected String getDoxygenVersion( String executablePath )
+    {
+        File versionsFile = null;
+        if ( getCacheDirectory() != null )
+        {
+            versionsFile = new File( getCacheDirectory(), "doxygen-versions.properties" );
+        }
+        return new DoxygenVersionProbe( versionsFile, getLog() ).getVersion( executablePath, getBasedir() );
+    }
+
+    /**
+     * Create the fingerprint of the coming doxygen run.
+     *
+     * @param config The doxygen configuration file.
+     * @param executablePath The doxygen executable.
+     * @return The fingerprint.
+     * @throws MavenReportException in case of failures reading the configuration file.
+     */
+    private String createFingerprint( File config, String executablePath )
+        throws MavenReportException
+    {
+        DoxygenFingerprint fingerprint = new DoxygenFingerprint();
+        addConfiguration( fingerprint, config );
+        fingerprint.add( getDoxygenVersion( executablePath ) );
+        for ( File file : getInputFiles() )
+        {
+            fingerprint.addStamp( file );
+        }
+        return fingerprint.getValue();
+    }
+
+    private static void addConfiguration( DoxygenFingerprint fingerprint, File config )
+        throws MavenReportException
+    {
+        try
+        {
+            fingerprint.addContents( config );
+        }
+        catch ( IOException e )
+        {
+            throw new MavenReportException( "Error reading Doxygen configuration file '" + config.getAbsolutePath()
+                + "'.", e );
+        }
+    }
+
+    /**
+     * @param unusedLocale the wanted locale (actually unused).
+     * @throws MavenReportException if any
+     */
+    protected void executeReport( Locale unusedLocale )
+        throws MavenReportException
+    {
+        long phaseStart = System.nanoTime();
+        File config = buildConfigurationFile();
+        getTimings().record( "configuration", phaseStart );
+        executeReport( config );
+    }
+
+    /**
+     * @param config The configuration file created by {@link #buildConfigurationFile()}.
+     * @throws MavenReportException if any
+     */
+    protected void executeReport( File config )
+        throws MavenReportException
+    {
+        long phaseStart = System.nanoTime();
+        String executablePath = getExecutablePath();
+        getTimings().record( "executable", phaseStart );
+
+        File fingerprintFile = new File( getOutputDirectory(), "doxygen.fingerprint" );
+        String fingerprint = null;
+        if ( isIncremental() )
+        {
+            phaseStart = System.nanoTime();
+            fingerprint = createFingerprint( config, executablePath );
+            getTimings().record( "fingerprint", phaseStart );
+            if ( fingerprint.equals( DoxygenFingerprint.read( fingerprintFile ) ) && isOutputComplete() )
+            {
+                getLog().info( "Doxygen documentation is up to date." );
+                return;
+            }
+            // A failing run must not leave the fingerprint of an earlier successful run behind.
+            fingerprintFile.delete();
+        }
+
+        if ( isDeduplicate() && session != null )
+        {
+            runOnce( createExecutionKey( config, executablePath ), config, executablePath, fingerprintFile,
+                     fingerprint );
+        }
+        else
+        {
+            runReport( config, executablePath, fingerprintFile, fingerprint );
+        }
+    }
+
+    /**
+     * The input files do not change within a build session (the watch goal which regenerates after changes does not
+     * deduplicate), so they are not part of the key and the input tree does not have to be scanned.
+     *
+     * @param config The doxygen configuration file.
+     * @param executablePath The doxygen executable.
+     * @return The key of the execution in the {@link DoxygenExecutionRegistry}. It contains the configuration, the
+     *         executable and everything which changes the output but is not part of the configuration.
+     * @throws MavenReportException in case the configuration could not be read or the javaFilters could not be
+     *             created.
+     */
+    private String createExecutionKey( File config, String executablePath )
+        throws MavenReportException
+    {
+        DoxygenFingerprint key = new DoxygenFingerprint();
+        addConfiguration( key, config );
+        key.add( executablePath );
+        key.add( getOutputDirectory().getAbsolutePath() );
+        key.add( getOutputOptions() );
+        return key.getValue();
+    }
+
+    /**
+     * @return Everything which changes the generated output but is not part of the configuration file: the shards,
+     *         the post processing of the output and the versions of the javaFilters.
+     * @throws MavenReportException in case the javaFilters could not be created.
+     */
+    protected String getOutputOptions()
+        throws MavenReportException
+    {
+        StringBuilder options = new StringBuilder();
+        options.append( "shards=" ).append( getConfigurationFile() == null ? getParallelShards() : 1 );
+        options.append( ";searchIndex=" ).append( isSearchIndex() );
+        options.append( ";precompress=" ).append( isPrecompress() ? getPrecompressExtensions() : "" );
+        options.append( ";xmlProcessors=" ).append( getXmlProcessors() == null ? "" : getXmlProcessors() );
+        options.append( ";javaFilters=" );
+        for ( DoxygenInputFilter filter : getInputFilters() )
+        {
+            options.append( filter.getClass().getName() ).append( '@' ).append( filter.getVersion() ).append( ' ' );
+        }
+        return options.toString();
+    }
+
+    /**
+     * @return The instances of the javaFilters (created once per mojo).
+     * @throws MavenReportException in case a filter could not be created.
+     */
+    private synchronized List<DoxygenInputFilter> getInputFilters()
+        throws MavenReportException
+    {
+        if ( inputFilters == null )
+        {
+            List<DoxygenInputFilter> filters = new ArrayList<DoxygenInputFilter>();
+            if ( hasJavaFilters() )
+            {
+                for ( String className : getJavaFilters() )
+                {
+                    filters.add( newInstance( className, DoxygenInputFilter.class, "javaFilter" ) );
+                }
+            }
+            inputFilters = Collections.unmodifiableList( filters );
+        }
+        return inputFilters;
+    }
+
+    /**
+     * Run doxygen unless the same execution has already been run or is running in this build session.
+     */
+    private void runOnce( final String key, final File config, final String executablePath,
+                          final File fingerprintFile, final String fingerprint )
+        throws MavenReportException
+    {
+        DoxygenExecutionRegistry registry = DoxygenExecutionRegistry.getInstance( session );
+        long start = System.nanoTime();
+        try
+        {
+            boolean ran = registry.execute( key, new Callable<Void>()
+            {
+                public Void call()
+                    throws MavenReportException
+                {
+                    runReport( config, executablePath, fingerprintFile, fingerprint );
+                    return null;
+                }
+            } );
+            if ( ran )
+            {
+                return;
+            }
+            getTimings().record( "deduplication", start );
+            if ( isOutputComplete() )
+            {
+                getLog().info( "Doxygen has already generated this documentation in this build, reusing it." );
+                return;
+            }
+            // The output has been deleted in the meantime (for example by a clean).
+            registry.forget( key );
+            runOnce( key, config, executablePath, fingerprintFile, fingerprint );
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new MavenReportException( "Interrupted while waiting for an identical Doxygen execution." );
+        }
+        catch ( ExecutionException e )
+        {
+            Throwable cause = e.getCause();
+            if ( cause instanceof MavenReportException )
+            {
+                throw (MavenReportException) cause;
+            }
+            if ( cause instanceof Error )
+            {
+                throw (Error) cause;
+            }
+            if ( cause instanceof RuntimeException )
+            {
+                throw (RuntimeException) cause;
+            }
+            throw new MavenReportException( "Error while executing Doxygen.", (Exception) cause );
+        }
+    }
+
+    /**
+     * Run doxygen and the post processing of its output.
+     */
+    private void runReport( File config, String executablePath, File fingerprintFile, String fingerprint )
+        throws MavenReportException
+    {
+        long phaseStart;
+        File warnLogfile = getWarnLogfileLocation();
+        DoxygenWarningStatistics warnings = null;
+        if ( warnLogfile != null )
+        {
+            warnings = new DoxygenWarningStatistics();
+        }
+
+        long start = System.currentTimeMillis();
+        phaseStart = System.nanoTime();
+        suggestedCacheSize = -1;
+        if ( getParallelShards() > 1 && getConfigurationFile() == null )
+        {
+            runShards( executablePath, warnings );
+            postProcessOutput( getOutputDirectory() );
+        }
+        else if ( isStagedOutput() && getConfigurationFile() == null && getStagedOutputNames() != null )
+        {
+            runStaged( executablePath, warnLogfile, warnings );
+        }
+        else
+        {
+            runDoxygen( config, executablePath, warnLogfile, warnings );
+            postProcessOutput( getOutputDirectory() );
+        }
+        getTimings().record( "total", phaseStart );
+
+        if ( chosenCacheSize != null )
+        {
+            try
+            {
+                getCacheSizeAdvisor().record( chosenCacheSize.intValue(), inputBytes,
+                                              System.currentTimeMillis() - start, suggestedCacheSize );
+            }
+            catch ( IOException e )
+            {
+                getLog().warn( "Could not record the cache size: " + e.getMessage() );
+            }
+        }
+
+        if ( warnings != null )
+        {
+            checkWarnings( warnings );
+        }
+
+        if ( fingerprint != null )
+        {
+            try
+            {
+                DoxygenFingerprint.write( fingerprintFile, fingerprint );
+            }
+            catch ( IOException e )
+            {
+                getLog().warn( "Could not write the fingerprint file '" + fingerprintFile.getAbsolutePath() + "'." );
+            }
+        }
+    }
+
+    /**
+     * Called after doxygen finished successfully and before the output is published.
+     *
+     * @param outputDirectory The OUTPUT_DIRECTORY doxygen has been called with (the staging directory for
+     *            stagedOutput).
+     * @throws MavenReportException in case of failures.
+     */
+    protected void postProcessOutput( File outputDirectory )
+        throws MavenReportException
+    {
+        long phaseStart = System.nanoTime();
+        try
+        {
+            File xml = resolveOutputDirectory( outputDirectory, getXmlOutput(), DoxygenParameters.XML_OUTPUT );
+            if ( getXmlProcessors() != null && !getXmlProcessors().isEmpty() )
+            {
+                processXmlOutput( new DoxygenXmlReader( xml ) );
+            }
+            if ( !isGenerateHtml() )
+            {
+                return;
+            }
+            File html = resolveOutputDirectory( outputDirectory, getHtmlOutput(), DoxygenParameters.HTML_OUTPUT );
+            if ( isSearchIndex() )
+            {
+                buildSearchIndex( xml, html );
+            }
+            if ( !isPrecompress() )
+            {
+                return;
+            }
+            long start = System.currentTimeMillis();
+            try
+            {
+                int count =
+                    new DoxygenPrecompressor( getPrecompressExtensions(),
+                                              Runtime.getRuntime().availableProcessors() ).compress( html );
+                getLog().info( "Compressed " + count + " files in " + ( System.currentTimeMillis() - start )
+                    + " ms." );
+            }
+            catch ( IOException e )
+            {
+                throw new MavenReportException( "Could not compress the HTML output: " + e.getMessage(), e );
+            }
+        }
+        finally
+        {
+            getTimings().record( "postProcessing", phaseStart );
+        }
+    }
+
+    /**
+     * Call the configured xmlProcessors. Sub classes can override this to process the XML output in the same JVM.
+     *
+     * @param reader The reader of the XML output.
+     * @throws MavenReportException in case a processor could not be created or failed.
+     */
+    protected void processXmlOutput( DoxygenXmlReader reader )
+        throws MavenReportException
+    {
+        for ( String className : getXmlProcessors() )
+        {
+            DoxygenXmlProcessor processor = newInstance( className, DoxygenXmlProcessor.class, "xmlProcessor" );
+
+            getLog().debug( "Calling xmlProcessor " + className );
+            try
+            {
+                processor.process( reader, getLog() );
+            }
+            catch ( IOException e )
+            {
+                throw new MavenReportException( "The xmlProcessor '" + className + "' failed: " + e.getMessage(), e );
+            }
+            catch ( IllegalStateException e )
+            {
+                throw new MavenReportException( "The xmlProcessor '" + className + "' failed: " + e.getMessage(), e );
+            }
+        }
+    }
+
+    private void buildSearchIndex( File xml, File html )
+        throws MavenReportException
+    {
+        if ( !new File( xml, "index.xml" ).isFile() )
+        {
+            getLog().warn( "No search index is built because the XML output '" + xml.getAbsolutePath()
+                + "' does not exist." );
+            return;
+        }
+        String extension = getHtmlFileExtension();
+        if ( extension == null || extension.trim().length() == 0 )
+        {
+            extension = ".html";
+        }
+        try
+        {
+            int count = new DoxygenSearchIndexBuilder( xml, html, extension.trim() ).build();
+            getLog().info( "Built the search index for " + count + " documents." );
+        }
+        catch ( IOException e )
+        {
+            throw new MavenReportException( "Could not build the search index: " + e.getMessage(), e );
+        }
+    }
+
+    /**
+     * @return The names of the output directories relative to the outputDirectory or <code>null</code> if one of them
+     *         is located somewhere else.
+     */
+    List<String> getStagedOutputNames()
+    {
+        List<String> result = new ArrayList<String>();
+        for ( File directory : getGeneratedOutputDirectories() )
+        {
+            if ( !getOutputDirectory().getAbsoluteFile().equals( directory.getAbsoluteFile().getParentFile() ) )
+            {
+                return null;
+            }
+            result.add( directory.getName() );
+        }
+        return result;
+    }
+
+    /**
+     * Call doxygen with OUTPUT_DIRECTORY pointing to a staging directory and replace the output directories if
+     * doxygen succeeded.
+     */
+    private void runStaged( String executablePath, File warnLogfile, DoxygenWarningStatistics warnings )
+        throws MavenReportException
+    {
+        DoxygenOutputStager stager = new DoxygenOutputStager( getOutputDirectory(), getStagedOutputNames() );
+        boolean committed = false;
+        try
+        {
+            File stagingDirectory = stager.createStagingDirectory();
+            Map<DoxygenParameters, String> overrides =
+                new EnumMap<DoxygenParameters, String>( DoxygenParameters.class );
+            overrides.put( DoxygenParameters.OUTPUT_DIRECTORY, stagingDirectory.getAbsolutePath() );
+            File config = new File( stagingDirectory, "doxygen.config" );
+            buildConfigurationFile( config, overrides );
+
+            runDoxygen( config, executablePath, warnLogfile, warnings );
+            // Unchanged files keep their precompressed siblings.
+            stager.linkUnchangedFiles();
+            postProcessOutput( stagingDirectory );
+
+            stager.commit();
+            committed = true;
+            getLog().debug( "Reused " + stager.getLinked() + " unchanged files of the previous run." );
+        }
+        catch ( IOException e )
+        {
+            throw new MavenReportException( "Could not replace the output of the previous run: " + e.getMessage(), e );
+        }
+        finally
+        {
+            if ( !committed )
+            {
+                stager.discard();
+            }
+        }
+    }
+
+    /**
+     * Call doxygen with the given configuration file and collect the warnings which are written to the WARN_LOGFILE
+     * while doxygen is running. The progress uses the number of input files only if they have already been resolved.
+     *
+     * @param config The doxygen configuration file.
+     * @param executablePath The doxygen executable.
+     * @param warnLogfile The WARN_LOGFILE of the configuration or <code>null</code>.
+     * @param warnings The statistics the warnings are added to or <code>null</code> if they are not collected.
+     * @throws MavenReportException in case doxygen could not be started or failed.
+     */
+    protected void runDoxygen( File config, String executablePath, File warnLogfile,
+                               DoxygenWarningStatistics warnings )
+        throws MavenReportException
+    {
+        // The shards parse only a part of the input files, so the number of files is not known.
+        int expectedFiles = getParallelShards() > 1 ? -1 : getResolvedInputCount();
+        runDoxygen( config, executablePath, warnLogfile, warnings, expectedFiles );
+    }
+
+    /**
+     * Call doxygen with the given configuration file and collect the warnings which are written to the WARN_LOGFILE
+     * while doxygen is running.
+     *
+     * @param config The doxygen configuration file.
+     * @param executablePath The doxygen executable.
+     * @param warnLogfile The WARN_LOGFILE of the configuration or <code>null</code>.
+     * @param warnings The statistics the warnings are added to or <code>null</code> if they are not collected.
+     * @param expectedFiles The number of files doxygen parses (used for the progress) or a negative value if it is
+     *            not known.
+     * @throws MavenReportException in case doxygen could not be started or failed.
+     */
+    protected void runDoxygen( File config, String executablePath, File warnLogfile,
+                               DoxygenWarningStatistics warnings, int expectedFiles )
+        throws MavenReportException
+    {
+        Commandline cli = new Commandline();
+        cli.setWorkingDirectory( getBasedir().getAbsolutePath() );
+        cli.setExecutable( executablePath );
+        cli.createArgument().setValue( config.getAbsolutePath() );
+        StreamConsumer err = new LogStreamConsumer( getLog(), true );
+
+        Semaphore limiter = DoxygenProcessLimiter.getSemaphore( getMaxConcurrentProcesses() );
+        try
+        {
+            if ( !limiter.tryAcquire() )
+            {
+                getLog().info( "Waiting for other doxygen processes to finish." );
+                long waitStart = System.nanoTime();
+                limiter.acquire();
+                getTimings().record( "waiting", waitStart );
+            }
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new MavenReportException( "Interrupted while waiting to execute Doxygen." );
+        }
+
+        DoxygenWarningLogTailer tailer = startWarningTailer( warnLogfile, warnings );
+        DoxygenPhaseConsumer phases = createOutputConsumer( expectedFiles );
+        try
+        {
+            int returnCode = CommandLineUtils.executeCommandLine( cli, phases, err );
+
+            if ( returnCode != 0 )
+            {
+                throw new MavenReportException( "Failed to generate Doxygen documentation." );
+            }
+        }
+        catch ( CommandLineException ex )
+        {
+            throw new MavenReportException( "Error while executing Doxygen.", ex );
+        }
+        finally
+        {
+            phases.finish();
+            limiter.release();
+            stopTailer( tailer );
+        }
+    }
+
+    /**
+     * Create the consumer of the standard output of doxygen: the log (unless quiet), the cache size suggestion of
+     * doxygen and the phases or the progress.
+     *
+     * @param expectedFiles The number of files doxygen parses or a negative value if it is not known.
+     * @return The consumer. {@link DoxygenPhaseConsumer#finish()} has to be called after doxygen finished.
+     */
+    DoxygenPhaseConsumer createOutputConsumer( int expectedFiles )
+    {
+        StreamConsumer out;
+        if ( isQuiet() )
+        {
+            out = LogStreamConsumer.DISCARD;
+        }
+        else
+        {
+            out = new LogStreamConsumer( getLog(), false );
+        }
+        if ( isAutoCacheSize() )
+        {
+            out = new CacheSizeSuggestionConsumer( out );
+        }
+
+        if ( getProgressInterval() > 0 )
+        {
+            return new DoxygenProgressConsumer( out, getTimings(), getLog(), expectedFiles,
+                                                getProgressInterval() * 1000L );
+        }
+        return new DoxygenPhaseConsumer( out, getTimings() );
+    }
+
+    /**
+     * @param warnLogfile The WARN_LOGFILE of the configuration or <code>null</code>.
+     * @param warnings The statistics the warnings are added to or <code>null</code> if they are not collected.
+     * @return The started tailer of the WARN_LOGFILE which has to be stopped by {@link #stopTailer} or
+     *         <code>null</code> if the warnings are not collected.
+     */
+    DoxygenWarningLogTailer startWarningTailer( File warnLogfile, DoxygenWarningStatistics warnings )
+    {
+        if ( warnLogfile == null || warnings == null )
+        {
+            return null;
+        }
+        DoxygenWarningLogTailer tailer =
+            new DoxygenWarningLogTailer( warnLogfile, new DoxygenWarningParser( getWarnFormat() ), warnings );
+        tailer.start();
+        return tailer;
+    }
+
+    /**
+     * @return The number of input files if they have already been resolved, otherwise -1. They are not resolved only
+     *         for the progress, because that scans the complete input tree.
+     */
+    private synchronized int getResolvedInputCount()
+    {
+        return inputFiles == null ? -1 : inputFiles.size();
+    }
+
+    /**
+     * @return The timings of the current execution.
+     */
+    protected synchronized DoxygenTimings getTimings()
+    {
+        if ( timings == null )
+        {
+            timings = new DoxygenTimings( getModuleName() );
+        }
+        return timings;
+    }
+
+    /**
+     * @return The name of the module the timings are recorded for.
+     */
+    protected String getModuleName()
+    {
+        return getBasedir() == null ? "" : getBasedir().getName();
+    }
+
+    /**
+     * Has to be called at the end of an execution: publishes the timings and forgets the resolved input files.
+     */
+    protected void finishExecution()
+    {
+        synchronized ( this )
+        {
+            inputFiles = null;
+            doxygenInputFiles = null;
+            // The next execution chooses the cache size for its own input and history.
+            chosenCacheSize = null;
+            inputBytes = 0;
+        }
+        publishTimings();
+    }
+
+    /**
+     * Write the timings of the current execution to the timingsFile, publish them via JMX and start new timings.
+     */
+    protected void publishTimings()
+    {
+        DoxygenTimings finished;
+        synchronized ( this )
+        {
+            finished = timings;
+            timings = null;
+        }
+        if ( finished == null )
+        {
+            return;
+        }
+        DoxygenTimingsRegistry.getInstance().update( finished );
+        if ( getTimingsFile() != null )
+        {
+            try
+            {
+                finished.write( getTimingsFile() );
+            }
+            catch ( IOException e )
+            {
+                getLog().warn( "Could not write the timings file '" + getTimingsFile().getAbsolutePath() + "'." );
+            }
+        }
+        getLog().debug( "Doxygen timings (ms): " + finished.getMillis() );
+    }
+
+    void stopTailer( DoxygenWarningLogTailer tailer )
+    {
+        if ( tailer == null )
+        {
+            return;
+        }
+        try
+        {
+            tailer.stop();
+        }
+        catch ( IOException e )
+        {
+            getLog().warn( "Could not read the doxygen warnings: " + e.getMessage() );
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return The WARN_LOGFILE resolved against the base directory or <code>null</code> if it is not set.
+     */
+    protected File getWarnLogfileLocation()
+    {
+        String name = getWarnLogfile();
+        if ( name == null || name.trim().length() == 0 )
+        {
+            return null;
+        }
+        name = name.trim();
+        if ( name.length() >= 2 && name.startsWith( "\"" ) && name.endsWith( "\"" ) )
+        {
+            name = name.substring( 1, name.length() - 1 );
+        }
+        File file = new File( name );
+        if ( !file.isAbsolute() )
+        {
+            file = new File( getBasedir(), name );
+        }
+        return file;
+    }
+
+    /**
+     * @return The file which contains the warnings of the last doxygen run.
+     */
+    protected File getWarningStatisticsFile()
+    {
+        return new File( getOutputDirectory(), DoxygenWarningStatistics.FILE_NAME );
+    }
+
+    /**
+     * Store the warnings for the warnings report and check them against {@link #getMaxWarnings()}.
+     *
+     * @param warnings The warnings of the run.
+     * @throws MavenReportException if there are too many warnings.
+     */
+    private void checkWarnings( DoxygenWarningStatistics warnings )
+        throws MavenReportException
+    {
+        File file = getWarningStatisticsFile();
+        try
+        {
+            warnings.store( file );
+        }
+        catch ( IOException e )
+        {
+            getLog().warn( "Could not write the doxygen warnings '" + file.getAbsolutePath() + "'." );
+        }
+
+        getLog().info( "Doxygen reported " + warnings.getTotal() + " warnings." );
+        for ( Map.Entry<String, Long> entry : warnings.getCountsByCategory().entrySet() )
+        {
+            getLog().info( "  " + entry.getKey() + ": " + entry.getValue() );
+        }
+        if ( getMaxWarnings() >= 0 && warnings.getTotal() > getMaxWarnings() )
+        {
+            throw new DoxygenWarningLimitException( "Doxygen reported " + warnings.getTotal()
+                + " warnings which is more than the allowed " + getMaxWarnings() + "." );
+        }
+    }
+
+    /**
+     * Document the input files by several doxygen processes running in parallel. In the first step every shard
+     * creates a tag file only. In the second step every shard creates its documentation and uses the tag files of the
+     * other shards to link to them.
+     *
+     * @param executablePath The doxygen executable.
+     * @throws MavenReportException in case of a failing doxygen run.
+     */
+    private void runShards( final String executablePath, DoxygenWarningStatistics warnings )
+        throws MavenReportException
+    {
+        checkShardedOutput();
+        List<List<File>> shards = splitIntoShards( getDoxygenInputFiles(), getParallelShards() );
+        if ( shards.size() < 2 )
+        {
+            runDoxygen( buildConfigurationFile(), executablePath, getWarnLogfileLocation(), warnings );
+            return;
+        }
+        getLog().info( "Running doxygen in " + shards.size() + " parallel shards." );
+
+        File shardsDirectory = getHtmlOutputDirectory();
+
+        List<File> shardDirectories = new ArrayList<File>();
+        List<File> tagFiles = new ArrayList<File>();
+        List<File> tagConfigs = new ArrayList<File>();
+        for ( int i = 0; i < shards.size(); i++ )
+        {
+            File shardDirectory = new File( shardsDirectory, "shard-" + i );
+            File tagFile = new File( shardDirectory, "shard-" + i + ".tag" );
+
+            Map<DoxygenParameters, String> overrides = createShardOverrides( shards.get( i ), shardDirectory );
+            overrides.put( DoxygenParameters.GENERATE_TAGFILE, tagFile.getAbsolutePath() );
+            overrides.put( DoxygenParameters.GENERATE_HTML, "NO" );
+            overrides.put( DoxygenParameters.HAVE_DOT, "NO" );
+            File tagConfig = new File( shardDirectory, "doxygen-tag.config" );
+            buildConfigurationFile( tagConfig, overrides );
+
+            shardDirectories.add( shardDirectory );
+            tagFiles.add( tagFile );
+            tagConfigs.add( tagConfig );
+        }
+
+        List<File> configs = new ArrayList<File>();
+        List<File> warnLogfiles = new ArrayList<File>();
+        for ( int i = 0; i < shards.size(); i++ )
+        {
+            StringBuilder tagfiles = new StringBuilder();
+            for ( int k = 0; k < shards.size(); k++ )
+            {
+                if ( k != i )
+                {
+                    tagfiles.append( '"' ).append( tagFiles.get( k ).getAbsolutePath() ).append( "=../../shard-" );
+                    tagfiles.append( k ).append( "/html\" " );
+                }
+            }
+
+            Map<DoxygenParameters, String> overrides =
+                createShardOverrides( shards.get( i ), shardDirectories.get( i ) );
+            overrides.put( DoxygenParameters.TAGFILES, tagfiles.toString().trim() );
+            overrides.put( DoxygenParameters.GENERATE_TAGFILE, "" );
+            File warnLogfile = null;
+            if ( warnings != null )
+            {
+                // Every shard needs its own log file.
+                warnLogfile = new File( shardDirectories.get( i ), "doxygen-warnings.log" );
+                overrides.put( DoxygenParameters.WARN_LOGFILE, warnLogfile.getAbsolutePath() );
+            }
+            File config = new File( shardDirectories.get( i ), "doxygen.config" );
+            buildConfigurationFile( config, overrides );
+            configs.add( config );
+            warnLogfiles.add( warnLogfile );
+        }
+
+        runInParallel( tagConfigs, executablePath, null, null );
+        runInParallel( configs, executablePath, warnLogfiles, warnings );
+
+        writeShardIndex( shardsDirectory, shards );
+    }
+
+    /**
+     * The shards only create HTML output which is linked by the index page of the shards. Other output formats would
+     * be split into partial trees within the shard directories, so they are rejected.
+     *
+     * @throws MavenReportException if an output format or a post processing step needs the output of all files.
+     */
+    void checkShardedOutput()
+        throws MavenReportException
+    {
+        List<String> unsupported = new ArrayList<String>();
+        if ( isGenerateLatex() )
+        {
+            unsupported.add( "generateLatex" );
+        }
+        if ( isGenerateRtf() )
+        {
+            unsupported.add( "generateRtf" );
+        }
+        if ( isGenerateMan() )
+        {
+            unsupported.add( "generateMan" );
+        }
+        if ( isGenerateXml() )
+        {
+            unsupported.add( "generateXml" );
+        }
+        if ( isSearchIndex() )
+        {
+            unsupported.add( "searchIndex" );
+        }
+        if ( getXmlProcessors() != null && !getXmlProcessors().isEmpty() )
+        {
+            unsupported.add( "xmlProcessors" );
+        }
+        if ( !unsupported.isEmpty() )
+        {
+            throw new MavenReportException( "parallelShards only supports HTML output and can not be combined with "
+                + unsupported + "." );
+        }
+    }
+
+    /**
+     * @param files The input files of the shard.
+     * @param shardDirectory The output directory of the shard.
+     * @return The configuration items every run of a shard overrides.
+     */
+    static Map<DoxygenParameters, String> createShardOverrides( List<File> files, File shardDirectory )
+    {
+        Map<DoxygenParameters, String> overrides = new EnumMap<DoxygenParameters, String>( DoxygenParameters.class );
+        overrides.put( DoxygenParameters.INPUT, toInputList( files ) );
+        overrides.put( DoxygenParameters.RECURSIVE, "NO" );
+        overrides.put( DoxygenParameters.OUTPUT_DIRECTORY, shardDirectory.getAbsolutePath() );
+        overrides.put( DoxygenParameters.HTML_OUTPUT, "html" );
+        // Also if they are enabled by the additionalConfiguration.
+        overrides.put( DoxygenParameters.GENERATE_LATEX, "NO" );
+        overrides.put( DoxygenParameters.GENERATE_RTF, "NO" );
+        overrides.put( DoxygenParameters.GENERATE_MAN, "NO" );
+        overrides.put( DoxygenParameters.GENERATE_XML, "NO" );
+        return overrides;
+    }
+
+    /**
+     * Split the files into the given number of shards. The files are kept in their (sorted) order so files of the
+     * same directory usually end up in the same shard. The shards are balanced by the size of the files.
+     *
+     * @param files The files sorted by their path.
+     * @param count The number of shards.
+     * @return The shards which contain at least one file.
+     */
+    static List<List<File>> splitIntoShards( List<File> files, int count )
+    {
+        long total = 0;
+        for ( File file : files )
+        {
+            total += file.length();
+        }
+
+        List<List<File>> result = new ArrayList<List<File>>();
+        List<File> current = new ArrayList<File>();
+        long size = 0;
+        for ( File file : files )
+        {
+            current.add( file );
+            size += file.length();
+            if ( result.size() < count - 1 && size * count >= total * ( result.size() + 1 ) )
+            {
+                result.add( current );
+                current = new ArrayList<File>();
+            }
+        }
+        if ( !current.isEmpty() )
+        {
+            result.add( current );
+        }
+        return result;
+    }
+
+    private void runInParallel( List<File> configs, final String executablePath, final List<File> warnLogfiles,
+                                final DoxygenWarningStatistics warnings )
+        throws MavenReportException
+    {
+        ExecutorService executor = Executors.newFixedThreadPool( configs.size() );
+        try
+        {
+            List<Future<Void>> results = new ArrayList<Future<Void>>();
+            for ( int i = 0; i < configs.size(); i++ )
+            {
+                final File config = configs.get( i );
+                final File warnLogfile = warnLogfiles == null ? null : warnLogfiles.get( i );
+                results.add( executor.submit( new Callable<Void>()
+                {
+                    public Void call()
+                        throws MavenReportException
+                    {
+                        runDoxygen( config, executablePath, warnLogfile, warnings );
+                        return null;
+                    }
+                } ) );
+            }
+            for ( Future<Void> result : results )
+            {
+                result.get();
+            }
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new MavenReportException( "Interrupted while executing Doxygen." );
+        }
+        catch ( ExecutionException e )
+        {
+            Throwable cause = e.getCause();
+            if ( cause instanceof MavenReportException )
+            {
+                throw (MavenReportException) cause;
+            }
+            if ( cause instanceof Error )
+            {
+                throw (Error) cause;
+            }
+            throw new MavenReportException( "Error while executing Doxygen.", (Exception) cause );
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    private void writeShardIndex( File directory, List<List<File>> shards )
+        throws MavenReportException
+    {
+        String extension = getHtmlFileExtension();
+        if ( extension == null || extension.trim().length() == 0 )
+        {
+            extension = ".html";
+        }
+
+        StringBuilder html = new StringBuilder();
+        html.append( "<html>\n<head><title>" ).append( escapeHtml( getProjectName() ) ).append( "</title></head>\n" );
+        html.append( "<body>\n<h1>" ).append( escapeHtml( getProjectName() ) ).append( "</h1>\n<ul>\n" );
+        for ( int i = 0; i < shards.size(); i++ )
+        {
+            List<File> files = shards.get( i );
+            html.append( "<li><a href=\"shard-" ).append( i ).append( "/html/index" ).append( extension );
+            html.append( "\">" );
+            html.append( escapeHtml( files.get( 0 ).getName() ) ).append( " ... " );
+            html.append( escapeHtml( files.get( files.size() - 1 ).getName() ) ).append( "</a></li>\n" );
+        }
+        html.append( "</ul>\n</body>\n</html>\n" );
+
+        File index = new File( directory, "index" + extension );
+        try
+        {
+            FileUtils.fileWrite( index, "UTF-8", html.toString() );
+        }
+        catch ( IOException e )
+        {
+            throw new MavenReportException( "Error writing the index page '" + index.getAbsolutePath() + "'.", e );
+        }
+    }
+
+    private static String escapeHtml( String text )
+    {
+        if ( text == null )
+        {
+            return "";
+        }
+        return text.replace( "&", "&amp;" ).replace( "<", "&lt;" ).replace( ">", "&gt;" );
+    }
+
+    public void setBasedir( File basedir )
+    {
+        this.basedir = basedir;
+    }
+
+    public void setExecutable( String executable )
+    {
+        this.executable = executable;
+    }
+
+    void setSession( MavenSession session )
+    {
+        this.session = session;
+    }
+
+    public File getBasedir()
+    {
+        return basedir;
+    }
+
+    public void setOutputDirectory( File outputDirectory )
+    {
+        this.outputDirectory = outputDirectory;
+    }
+
+    public boolean isSkip()
+    {
+        return skip;
+    }
+
+    public void setSkip( boolean skip )
+    {
+        this.skip = skip;
+    }
+
+    public int getParallelShards()
+    {
+        return parallelShards;
+    }
+
+    public void setParallelShards( int parallelShards )
+    {
+        this.parallelShards = parallelShards;
+    }
+
+    public boolean isUseCache()
+    {
+        return useCache;
+    }
+
+    public void setUseCache( boolean useCache )
+    {
+        this.useCache = useCache;
+    }
+
+    public File getCacheDirectory()
+    {
+        return cacheDirectory;
+    }
+
+    public void setCacheDirectory( File cacheDirectory )
+    {
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    public int getCacheMaxSize()
+    {
+        return cacheMaxSize;
+    }
+
+    public void setCacheMaxSize( int cacheMaxSize )
+    {
+        this.cacheMaxSize = cacheMaxSize;
+    }
+
+    public int getMaxConcurrentProcesses()
+    {
+        return maxConcurrentProcesses;
+    }
+
+    public void setMaxConcurrentProcesses( int maxConcurrentProcesses )
+    {
+        this.maxConcurrentProcesses = maxConcurrentProcesses;
+    }
+
+    public int getMaxWarnings()
+    {
+        return maxWarnings;
+    }
+
+    public void setMaxWarnings( int maxWarnings )
+    {
+        this.maxWarnings = maxWarnings;
+    }
+
+    public boolean isAutoCacheSize()
+    {
+        return autoCacheSize;
+    }
+
+    public void setAutoCacheSize( boolean autoCacheSize )
+    {
+        this.autoCacheSize = autoCacheSize;
+    }
+
+    public boolean isCacheDotGraphs()
+    {
+        return cacheDotGraphs;
+    }
+
+    public void setCacheDotGraphs( boolean cacheDotGraphs )
+    {
+        this.cacheDotGraphs = cacheDotGraphs;
+    }
+
+    public boolean isStagedOutput()
+    {
+        return stagedOutput;
+    }
+
+    public void setStagedOutput( boolean stagedOutput )
+    {
+        this.stagedOutput = stagedOutput;
+    }
+
+    public List<String> getJavaFilters()
+    {
+        return javaFilters;
+    }
+
+    public void setJavaFilters( List<String> javaFilters )
+    {
+        this.javaFilters = javaFilters;
+    }
+
+    public File getFilterMirrorDirectory()
+    {
+        return filterMirrorDirectory;
+    }
+
+    public void setFilterMirrorDirectory( File filterMirrorDirectory )
+    {
+        this.filterMirrorDirectory = filterMirrorDirectory;
+    }
+
+    public boolean isResolveInput()
+    {
+        return resolveInput;
+    }
+
+    public void setResolveInput( boolean resolveInput )
+    {
+        this.resolveInput = resolveInput;
+    }
+
+    public int getProgressInterval()
+    {
+        return progressInterval;
+    }
+
+    public void setProgressInterval( int progressInterval )
+    {
+        this.progressInterval = progressInterval;
+    }
+
+    public File getTimingsFile()
+    {
+        return timingsFile;
+    }
+
+    public void setTimingsFile( File timingsFile )
+    {
+        this.timingsFile = timingsFile;
+    }
+
+    public List<String> getXmlProcessors()
+    {
+        return xmlProcessors;
+    }
+
+    public void setXmlProcessors( List<String> xmlProcessors )
+    {
+        this.xmlProcessors = xmlProcessors;
+    }
+
+    public boolean isSearchIndex()
+    {
+        return searchIndex;
+    }
+
+    public void setSearchIndex( boolean searchIndex )
+    {
+        this.searchIndex = searchIndex;
+    }
+
+    public boolean isPrecompress()
+    {
+        return precompress;
+    }
+
+    public void setPrecompress( boolean precompress )
+    {
+        this.precompress = precompress;
+    }
+
+    public String getPrecompressExtensions()
+    {
+        return precompressExtensions;
+    }
+
+    public void setPrecompressExtensions( String precompressExtensions )
+    {
+        this.precompressExtensions = precompressExtensions;
+    }
+
+    public boolean isCompactConfiguration()
+    {
+        return compactConfiguration;
+    }
+
+    public void setCompactConfiguration( boolean compactConfiguration )
+    {
+        this.compactConfiguration = compactConfiguration;
+    }
+
+    public boolean isIncremental()
+    {
+        return incremental;
+    }
+
+    public void setIncremental( boolean incremental )
+    {
+        this.incremental = incremental;
+    }
+
+    public boolean isDeduplicate()
+    {
+        return deduplicate;
+    }
+
+    public void setDeduplicate( boolean deduplicate )
+    {
+        this.deduplicate = deduplicate;
+    }
+
+
+    /**
+     * Picks up the cache size doxygen suggests at the end of a run.
+     */
+    private class CacheSizeSuggestionConsumer
+        implements StreamConsumer
+    {
+        private final StreamConsumer delegate;
+
+        CacheSizeSuggestionConsumer( StreamConsumer delegate )
+        {
+            this.delegate = delegate;
+        }
+
+        public void consumeLine( String line )
+        {
+            Matcher matcher = CACHE_SIZE_SUGGESTION.matcher( line );
+            if ( matcher.matches() )
+            {
+                int value = Integer.parseInt( matcher.group( 1 ) );
+                suggestedCacheSize = Math.min( value, DoxygenCacheSizeAdvisor.MAX_VALUE );
+            }
+            delegate.consumeLine( line );
+        }
+    }
 }
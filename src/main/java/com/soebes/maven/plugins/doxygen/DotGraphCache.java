@@ -0,0 +1,192 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Caches the images dot creates for the graphs of doxygen. Doxygen calls dot for every graph and needs the results
+ * (images and image maps) immediately, so the cache is put between doxygen and dot: A small <code>dot</code> script is
+ * installed into a directory which is given to doxygen as DOT_PATH. The script hashes the graph description together
+ * with the options of the call. If the hash is already in the cache the stored results are copied, otherwise the real
+ * dot is called and its results are stored. If neither <code>sha1sum</code> nor <code>shasum</code> is available the
+ * real dot is always called. The number of parallel dot calls is controlled by doxygen via
+ * DOT_NUM_THREADS.
+ * <p>
+ * The script needs a POSIX shell and therefore is not used on Windows.
+ *
+ * @author agent
+ */
+public class DotGraphCache
+{
+    private final File cacheDirectory;
+
+    private final String dotExecutable;
+
+    /**
+     * @param cacheDirectory The directory where the results are stored.
+     * @param dotExecutable The real dot executable (path or name which is searched on the PATH).
+     */
+    public DotGraphCache( File cacheDirectory, String dotExecutable )
+    {
+        this.cacheDirectory = cacheDirectory;
+        this.dotExecutable = dotExecutable;
+    }
+
+    /**
+     * @param dotPath The value of DOT_PATH (the directory of dot or the dot executable itself). If empty dot is
+     *            searched on the PATH.
+     * @return The dot executable.
+     */
+    public static String resolveDotExecutable( String dotPath )
+    {
+        if ( dotPath == null || dotPath.trim().length() == 0 )
+        {
+            return "dot";
+        }
+        File file = new File( dotPath.trim() );
+        if ( file.isDirectory() )
+        {
+            return new File( file, "dot" ).getAbsolutePath();
+        }
+        return file.getAbsolutePath();
+    }
+
+    /**
+     * Write the dot script into the given directory. The directory is shared by concurrent builds, so an existing
+     * script is kept and a new one is written atomically.
+     *
+     * @param directory The directory which will be used as DOT_PATH.
+     * @throws IOException in case of failures during writing the script.
+     */
+    public void install( File directory )
+        throws IOException
+    {
+        directory.mkdirs();
+        cacheDirectory.mkdirs();
+        File script = new File( directory, "dot" );
+        String content = createScript();
+        if ( script.isFile() && script.canExecute() && content.equals( FileUtils.fileRead( script, "UTF-8" ) ) )
+        {
+            return;
+        }
+
+        File temp = File.createTempFile( "dot", ".tmp", directory );
+        FileUtils.fileWrite( temp, "UTF-8", content );
+        if ( !temp.setExecutable( true ) )
+        {
+            temp.delete();
+            throw new IOException( "Could not make '" + temp.getAbsolutePath() + "' executable." );
+        }
+        if ( !temp.renameTo( script ) )
+        {
+            script.delete();
+            if ( !temp.renameTo( script ) )
+            {
+                temp.delete();
+                throw new IOException( "Could not create '" + script.getAbsolutePath() + "'." );
+            }
+        }
+    }
+
+    String createScript()
+    {
+        StringBuilder script = new StringBuilder();
+        script.append( "#!/bin/sh\n" );
+        script.append( "# Generated by the doxygen-maven-plugin. Caches the results of dot.\n" );
+        script.append( "REAL_DOT=" ).append( quote( dotExecutable ) ).append( '\n' );
+        script.append( "CACHE=" ).append( quote( cacheDirectory.getAbsolutePath() ) ).append( '\n' );
+        script.append( "\n" );
+        script.append( "n=0\n" );
+        script.append( "options=\"\"\n" );
+        script.append( "input=\"\"\n" );
+        script.append( "expect_output=0\n" );
+        script.append( "for arg in \"$@\"; do\n" );
+        script.append( "  if [ $expect_output = 1 ]; then\n" );
+        script.append( "    n=$((n+1)); eval \"out_$n=\\$arg\"; expect_output=0; continue\n" );
+        script.append( "  fi\n" );
+        script.append( "  case \"$arg\" in\n" );
+        script.append( "    -o) expect_output=1 ;;\n" );
+        script.append( "    -o*) n=$((n+1)); eval \"out_$n=\\${arg#-o}\" ;;\n" );
+        script.append( "    -*) options=\"$options $arg\" ;;\n" );
+        script.append( "    *) input=\"$arg\" ;;\n" );
+        script.append( "  esac\n" );
+        script.append( "done\n" );
+        script.append( "\n" );
+        script.append( "if [ -z \"$input\" ] || [ $n = 0 ] || [ ! -f \"$input\" ]; then\n" );
+        script.append( "  exec \"$REAL_DOT\" \"$@\"\n" );
+        script.append( "fi\n" );
+        script.append( "\n" );
+        // Without a strong hash a collision would copy the images of another graph, so the cache is skipped.
+        script.append( "if command -v sha1sum >/dev/null 2>&1; then hash=sha1sum\n" );
+        script.append( "elif command -v shasum >/dev/null 2>&1; then hash=shasum\n" );
+        script.append( "else exec \"$REAL_DOT\" \"$@\"\n" );
+        script.append( "fi\n" );
+        script.append( "\n" );
+        script.append( "key=$( { printf '%s\\n' \"$REAL_DOT$options\"; cat \"$input\"; } | $hash" );
+        script.append( " | cut -d ' ' -f 1 )\n" );
+        script.append( "entry=\"$CACHE/$key\"\n" );
+        script.append( "\n" );
+        script.append( "if [ -f \"$entry/complete\" ]; then\n" );
+        script.append( "  i=1\n" );
+        script.append( "  while [ $i -le $n ]; do\n" );
+        script.append( "    eval \"o=\\$out_$i\"\n" );
+        script.append( "    cp \"$entry/$i\" \"$o\" || break\n" );
+        script.append( "    i=$((i+1))\n" );
+        script.append( "  done\n" );
+        script.append( "  if [ $i -gt $n ]; then\n" );
+        script.append( "    touch \"$entry/complete\"\n" );
+        script.append( "    exit 0\n" );
+        script.append( "  fi\n" );
+        script.append( "fi\n" );
+        script.append( "\n" );
+        script.append( "\"$REAL_DOT\" \"$@\" || exit $?\n" );
+        script.append( "\n" );
+        script.append( "tmp=\"$CACHE/tmp.$$\"\n" );
+        script.append( "if mkdir -p \"$tmp\"; then\n" );
+        script.append( "  i=1\n" );
+        script.append( "  while [ $i -le $n ]; do\n" );
+        script.append( "    eval \"o=\\$out_$i\"\n" );
+        script.append( "    cp \"$o\" \"$tmp/$i\" || break\n" );
+        script.append( "    i=$((i+1))\n" );
+        script.append( "  done\n" );
+        script.append( "  if [ $i -gt $n ] && [ ! -d \"$entry\" ]; then\n" );
+        script.append( "    touch \"$tmp/complete\" && mv \"$tmp\" \"$entry\" 2>/dev/null\n" );
+        script.append( "  fi\n" );
+        script.append( "  rm -rf \"$tmp\"\n" );
+        script.append( "fi\n" );
+        script.append( "exit 0\n" );
+        return script.toString();
+    }
+
+    /**
+     * @param value The value.
+     * @return The value quoted for the shell.
+     */
+    static String quote( String value )
+    {
+        return "'" + value.replace( "'", "'\\''" ) + "'";
+    }
+}
@@ -0,0 +1,320 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.reporting.MavenReportException;
+import org.codehaus.doxia.sink.Sink;
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.IOUtil;
+
+/**
+ * This will create the report for all projects of the reactor by a single doxygen run. The compile source roots of all
+ * projects are used as INPUT. The report is only generated for the execution root; every other project of the reactor
+ * gets a <code>doxygen/index.html</code> in its reporting output directory which forwards to its part of the
+ * aggregated documentation (the directory page of its source root), so the link of the Doxygen report of a module
+ * leads to the documentation of the module. The links are built from the site URLs like the links of the site
+ * between the modules, so they still work after <code>site:stage</code> or <code>site:deploy</code>.
+ *
+ * @author agent
+ */
+@Mojo( name = "aggregate", defaultPhase = LifecyclePhase.SITE, aggregator = true, inheritByDefault = false,
+    requiresProject = true, threadSafe = true )
+public class DoxygenAggregateReport
+    extends DoxygenReport
+{
+
+    /** {@inheritDoc} */
+    public void generate( Sink sink, Locale locale )
+        throws MavenReportException
+    {
+        super.generate( sink, locale );
+
+        if ( isGenerateHtml() )
+        {
+            writeModuleIndexPages();
+        }
+    }
+
+    /**
+     * The INPUT of the aggregated report consists of all existing compile source roots of the reactor projects.
+     *
+     * @return The quoted list of the source roots.
+     */
+    @Override
+    public String getInput()
+    {
+        if ( getReactorProjects() == null || getReactorProjects().isEmpty() )
+        {
+            return super.getInput();
+        }
+
+        Set<String> roots = new TreeSet<String>();
+        for ( MavenProject reactorProject : getReactorProjects() )
+        {
+            for ( Iterator<?> it = reactorProject.getCompileSourceRoots().iterator(); it.hasNext(); )
+            {
+                File root = new File( (String) it.next() );
+                if ( root.isDirectory() )
+                {
+                    roots.add( root.getAbsolutePath() );
+                }
+            }
+        }
+
+        StringBuilder result = new StringBuilder();
+        for ( String root : roots )
+        {
+            result.append( '"' ).append( root ).append( "\" " );
+        }
+        return result.toString().trim();
+    }
+
+    /** {@inheritDoc} */
+    public boolean canGenerateReport()
+    {
+        return getProject() == null || getProject().isExecutionRoot();
+    }
+
+    /**
+     * Write an index page into the reporting output directory of every other project of the reactor which forwards to
+     * the part of the aggregated documentation which belongs to the project.
+     *
+     * @throws MavenReportException in case of failures during writing a page.
+     */
+    private void writeModuleIndexPages()
+        throws MavenReportException
+    {
+        if ( getReactorProjects() == null )
+        {
+            return;
+        }
+
+        String extension = getHtmlFileExtension();
+        if ( extension == null || extension.trim().length() == 0 )
+        {
+            extension = ".html";
+        }
+        Map<String, String> directoryPages;
+        File tagfile = getAggregateTagfile();
+        try
+        {
+            directoryPages = readDirectoryPages( tagfile, extension.trim() );
+        }
+        catch ( IOException e )
+        {
+            getLog().warn( "Could not read the tag file '" + tagfile.getAbsolutePath() + "', the modules are linked "
+                + "to the start page: " + e.getMessage() );
+            directoryPages = Collections.emptyMap();
+        }
+
+        for ( MavenProject reactorProject : getReactorProjects() )
+        {
+            if ( reactorProject == getProject() || reactorProject.isExecutionRoot() )
+            {
+                continue;
+            }
+
+            File page = new File( getReportingOutputDirectory( reactorProject ), getOutputName() + ".html" );
+            File directory = page.getParentFile();
+            String link = getLink( directory, reactorProject, getHtmlOutputDirectory(), getProject() ) + '/'
+                + getEntryPage( reactorProject, directoryPages, "index" + extension.trim() );
+            try
+            {
+                FileUtils.mkdir( directory.getAbsolutePath() );
+                FileUtils.fileWrite( page, "UTF-8", createForwardPage( link ) );
+            }
+            catch ( IOException e )
+            {
+                throw new MavenReportException( "Error writing the index page '" + page.getAbsolutePath() + "'.", e );
+            }
+        }
+    }
+
+    /**
+     * @param module The project.
+     * @param directoryPages The directory pages of the aggregated documentation by the path of the directory.
+     * @param index The start page of the aggregated documentation.
+     * @return The page of the first source root of the module or the start page if the module has no documented
+     *         source root.
+     */
+    static String getEntryPage( MavenProject module, Map<String, String> directoryPages, String index )
+    {
+        List<String> roots = new ArrayList<String>();
+        for ( Iterator<?> it = module.getCompileSourceRoots().iterator(); it.hasNext(); )
+        {
+            roots.add( new File( (String) it.next() ).getAbsolutePath() );
+        }
+        Collections.sort( roots );
+        for ( String root : roots )
+        {
+            String page = directoryPages.get( root );
+            if ( page != null )
+            {
+                return page;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Read the pages of the directories from the tag file of doxygen.
+     *
+     * @param tagfile The tag file.
+     * @param extension The HTML_FILE_EXTENSION which is added to pages given without extension.
+     * @return The pages by the absolute path of the directory (empty if the tag file does not exist).
+     * @throws IOException in case the tag file could not be read.
+     */
+    static Map<String, String> readDirectoryPages( File tagfile, String extension )
+        throws IOException
+    {
+        Map<String, String> result = new HashMap<String, String>();
+        if ( !tagfile.isFile() )
+        {
+            return result;
+        }
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty( XMLInputFactory.SUPPORT_DTD, Boolean.FALSE );
+        factory.setProperty( XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE );
+        InputStream in = new FileInputStream( tagfile );
+        try
+        {
+            XMLStreamReader reader = factory.createXMLStreamReader( in );
+            int depth = 0;
+            boolean directory = false;
+            String path = null;
+            String filename = null;
+            while ( reader.hasNext() )
+            {
+                int event = reader.next();
+                if ( event == XMLStreamConstants.START_ELEMENT )
+                {
+                    depth++;
+                    if ( depth == 2 && "compound".equals( reader.getLocalName() ) )
+                    {
+                        directory = "dir".equals( reader.getAttributeValue( null, "kind" ) );
+                        path = null;
+                        filename = null;
+                    }
+                    else if ( directory && depth == 3 && "path".equals( reader.getLocalName() ) )
+                    {
+                        path = reader.getElementText().trim();
+                        depth--;
+                    }
+                    else if ( directory && depth == 3 && "filename".equals( reader.getLocalName() ) )
+                    {
+                        filename = reader.getElementText().trim();
+                        depth--;
+                    }
+                }
+                else if ( event == XMLStreamConstants.END_ELEMENT )
+                {
+                    if ( depth == 2 && directory && path != null && filename != null )
+                    {
+                        // Older versions of doxygen write the name without the extension.
+                        String page = filename.indexOf( '.' ) < 0 ? filename + extension : filename;
+                        result.put( new File( path ).getAbsolutePath(), page );
+                    }
+                    depth--;
+                }
+            }
+            reader.close();
+        }
+        catch ( XMLStreamException e )
+        {
+            throw new IOException( "Could not read '" + tagfile.getAbsolutePath() + "': " + e.getMessage(), e );
+        }
+        finally
+        {
+            IOUtil.close( in );
+        }
+        return result;
+    }
+
+    /**
+     * @return The tag file of the aggregated documentation which is used to find the pages of the modules.
+     */
+    private File getAggregateTagfile()
+    {
+        if ( getGenerateTagfile() != null && getGenerateTagfile().trim().length() > 0 )
+        {
+            File tagfile = new File( getGenerateTagfile().trim() );
+            return tagfile.isAbsolute() ? tagfile : new File( getBasedir(), tagfile.getPath() );
+        }
+        return new File( getOutputDirectory(), "aggregate.tag" );
+    }
+
+    /**
+     * @param link The link to the aggregated documentation.
+     * @return The page which forwards to the given link.
+     */
+    static String createForwardPage( String link )
+    {
+        StringBuilder html = new StringBuilder();
+        html.append( "<html>\n<head>\n" );
+        html.append( "<meta http-equiv=\"refresh\" content=\"0; url=" ).append( link ).append( "\"/>\n" );
+        html.append( "<title>Doxygen</title>\n</head>\n<body>\n" );
+        html.append( "<p>The documentation is part of the <a href=\"" ).append( link );
+        html.append( "\">aggregated Doxygen documentation</a>.</p>\n" );
+        html.append( "</body>\n</html>\n" );
+        return html.toString();
+    }
+
+    /**
+     * The aggregated documentation contains all modules, so there is nothing to link. A tag file is written to find
+     * the pages of the modules.
+     *
+     * @return The GENERATE_TAGFILE if none is configured.
+     */
+    protected Map<DoxygenParameters, String> getAdditionalConfiguration()
+    {
+        if ( getGenerateTagfile() != null && getGenerateTagfile().trim().length() > 0 )
+        {
+            return Collections.emptyMap();
+        }
+        Map<DoxygenParameters, String> result = new EnumMap<DoxygenParameters, String>( DoxygenParameters.class );
+        result.put( DoxygenParameters.GENERATE_TAGFILE, getAggregateTagfile().getAbsolutePath() );
+        return result;
+    }
+}
@@ -0,0 +1,712 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import org.codehaus.plexus.util.IOUtil;
+
+/**
+ * Packages the generated documentation into a zip file. The entries are compressed in parallel by a thread pool and
+ * written in a fixed order by a single writer, so the result does not depend on the number of threads. Files with one
+ * of the given extensions (images, precompressed files) and files which do not get smaller are stored without
+ * compression. Zip64 records are written if the archive has more than 65535 entries or exceeds 4 GB.
+ * <p>
+ * The zip format is written here because {@link java.util.zip.ZipOutputStream} can not take entries which have been
+ * compressed by another thread.
+ *
+ * @author agent
+ */
+public class DoxygenArchiver
+{
+    private static final Charset UTF_8 = Charset.forName( "UTF-8" );
+
+    /**
+     * Files larger than this are compressed into a temporary file next to the archive instead of memory.
+     */
+    private static final int MEMORY_LIMIT = 1024 * 1024;
+
+    private static final long ZIP64_LIMIT = 0xFFFFFFFFL;
+
+    private static final int ZIP64_ENTRIES = 0xFFFF;
+
+    private static final int METHOD_STORED = 0;
+
+    private static final int METHOD_DEFLATED = 8;
+
+    /**
+     * General purpose flag: the names are encoded in UTF-8.
+     */
+    private static final int FLAG_UTF8 = 0x0800;
+
+    private final Set<String> storedExtensions;
+
+    private final int parallelism;
+
+    private int level = Deflater.DEFAULT_COMPRESSION;
+
+    /**
+     * @param storedExtensions The comma separated list of extensions of files which are already compressed (for
+     *            example <code>png,gz</code>).
+     * @param parallelism The number of threads to use.
+     */
+    public DoxygenArchiver( String storedExtensions, int parallelism )
+    {
+        this.storedExtensions = new HashSet<String>();
+        for ( String extension : storedExtensions.split( "[,\\s]+" ) )
+        {
+            if ( extension.startsWith( "." ) )
+            {
+                extension = extension.substring( 1 );
+            }
+            if ( extension.length() > 0 )
+            {
+                this.storedExtensions.add( extension.toLowerCase( Locale.ENGLISH ) );
+            }
+        }
+        this.parallelism = Math.max( 1, parallelism );
+    }
+
+    /**
+     * @param level The compression level (0-9, -1 for the default of {@link Deflater}).
+     */
+    public void setLevel( int level )
+    {
+        this.level = level;
+    }
+
+    /**
+     * Write all files below the given directories into a zip file. The file is written to a temporary file first
+     * which replaces the given file at the end.
+     *
+     * @param zip The zip file to create.
+     * @param baseDirectory The directory the names of the entries are relative to. Directories which are not located
+     *            below it are added with their own name.
+     * @param directories The directories to package. Directories which do not exist are ignored.
+     * @return The number of entries.
+     * @throws IOException in case of failures.
+     */
+    public int archive( File zip, File baseDirectory, List<File> directories )
+        throws IOException
+    {
+        List<Source> sources = new ArrayList<Source>();
+        for ( File directory : directories )
+        {
+            if ( directory.isDirectory() )
+            {
+                collect( baseDirectory, directory, sources );
+            }
+        }
+
+        File directory = zip.getAbsoluteFile().getParentFile();
+        directory.mkdirs();
+        File temp = new File( directory, zip.getName() + ".tmp" );
+        ZipWriter writer = new ZipWriter( new FileOutputStream( temp ) );
+        ExecutorService executor = Executors.newFixedThreadPool( parallelism );
+        Deque<Future<Entry>> pending = new ArrayDeque<Future<Entry>>();
+        boolean complete = false;
+        try
+        {
+            int window = 4 * parallelism;
+            int next = 0;
+            while ( next < sources.size() || !pending.isEmpty() )
+            {
+                while ( next < sources.size() && pending.size() < window )
+                {
+                    pending.add( executor.submit( new CompressTask( sources.get( next++ ), directory ) ) );
+                }
+                Entry entry = get( pending.removeFirst() );
+                try
+                {
+                    writer.write( entry );
+                }
+                finally
+                {
+                    entry.dispose();
+                }
+            }
+            writer.finish();
+            complete = true;
+        }
+        finally
+        {
+            executor.shutdownNow();
+            discard( pending );
+            writer.close();
+            if ( !complete )
+            {
+                temp.delete();
+            }
+        }
+
+        try
+        {
+            Files.move( temp.toPath(), zip.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE );
+        }
+        catch ( AtomicMoveNotSupportedException e )
+        {
+            Files.move( temp.toPath(), zip.toPath(), StandardCopyOption.REPLACE_EXISTING );
+        }
+        return sources.size();
+    }
+
+    private static Entry get( Future<Entry> future )
+        throws IOException
+    {
+        try
+        {
+            return future.get();
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException( "Interrupted while packaging the documentation." );
+        }
+        catch ( ExecutionException e )
+        {
+            Throwable cause = e.getCause();
+            if ( cause instanceof IOException )
+            {
+                throw (IOException) cause;
+            }
+            if ( cause instanceof Error )
+            {
+                throw (Error) cause;
+            }
+            throw (RuntimeException) cause;
+        }
+    }
+
+    /**
+     * Remove the temporary files of entries which have been compressed but not written because of a failure.
+     */
+    private static void discard( Deque<Future<Entry>> pending )
+    {
+        for ( Future<Entry> future : pending )
+        {
+            future.cancel( true );
+            try
+            {
+                if ( !future.isCancelled() )
+                {
+                    future.get().dispose();
+                }
+            }
+            catch ( Exception e )
+            {
+                // The entry has failed itself.
+            }
+        }
+    }
+
+    private void collect( File baseDirectory, File directory, final List<Source> sources )
+        throws IOException
+    {
+        final Path base = baseDirectory.getAbsoluteFile().toPath().normalize();
+        Path root = directory.getAbsoluteFile().toPath().normalize();
+        final Path relativeTo = root.startsWith( base ) ? base : root.getParent();
+        final List<Source> found = new ArrayList<Source>();
+        Files.walkFileTree( root, new SimpleFileVisitor<Path>()
+        {
+            @Override
+            public FileVisitResult visitFile( Path file, BasicFileAttributes attributes )
+            {
+                if ( attributes.isRegularFile() )
+                {
+                    String name = relativeTo.relativize( file ).toString().replace( File.separatorChar, '/' );
+                    found.add( new Source( file.toFile(), name, attributes.lastModifiedTime().toMillis() ) );
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        } );
+        Collections.sort( found );
+        sources.addAll( found );
+    }
+
+    boolean isStored( File file )
+    {
+        String name = file.getName();
+        int dot = name.lastIndexOf( '.' );
+        return dot > 0 && storedExtensions.contains( name.substring( dot + 1 ).toLowerCase( Locale.ENGLISH ) );
+    }
+
+    /**
+     * A file which will be packaged.
+     */
+    private static final class Source
+        implements Comparable<Source>
+    {
+        private final File file;
+
+        private final String name;
+
+        private final long lastModified;
+
+        Source( File file, String name, long lastModified )
+        {
+            this.file = file;
+            this.name = name;
+            this.lastModified = lastModified;
+        }
+
+        public int compareTo( Source other )
+        {
+            return name.compareTo( other.name );
+        }
+    }
+
+    /**
+     * A compressed entry which is ready to be written. The data is either kept in memory or in a temporary file; for
+     * large stored entries the data is copied from the file itself.
+     */
+    private static final class Entry
+    {
+        private final Source source;
+
+        private int method;
+
+        private long crc;
+
+        private long size;
+
+        private long compressedSize;
+
+        private byte[] data;
+
+        private File dataFile;
+
+        private boolean temporary;
+
+        Entry( Source source )
+        {
+            this.source = source;
+        }
+
+        void writeData( OutputStream out )
+            throws IOException
+        {
+            if ( data != null )
+            {
+                out.write( data, 0, (int) compressedSize );
+                return;
+            }
+            InputStream in = new FileInputStream( dataFile );
+            try
+            {
+                IOUtil.copy( in, out );
+            }
+            finally
+            {
+                IOUtil.close( in );
+            }
+        }
+
+        void dispose()
+        {
+            data = null;
+            if ( temporary )
+            {
+                dataFile.delete();
+            }
+        }
+    }
+
+    /**
+     * Compresses a single file.
+     */
+    private class CompressTask
+        implements Callable<Entry>
+    {
+        private final Source source;
+
+        private final File tempDirectory;
+
+        /**
+         * @param source The file to compress.
+         * @param tempDirectory The directory for the compressed data of large files. It is the directory of the
+         *            archive (below target), so the data is not written to a possibly small system temp directory.
+         */
+        CompressTask( Source source, File tempDirectory )
+        {
+            this.source = source;
+            this.tempDirectory = tempDirectory;
+        }
+
+        public Entry call()
+            throws IOException
+        {
+            Entry entry = new Entry( source );
+            long length = source.file.length();
+            if ( length <= MEMORY_LIMIT )
+            {
+                compressInMemory( entry, Files.readAllBytes( source.file.toPath() ) );
+            }
+            else
+            {
+                compressToFile( entry );
+            }
+            return entry;
+        }
+
+        private void compressInMemory( Entry entry, byte[] content )
+        {
+            CRC32 crc = new CRC32();
+            crc.update( content );
+            entry.crc = crc.getValue();
+            entry.size = content.length;
+            entry.method = METHOD_STORED;
+            entry.data = content;
+            entry.compressedSize = content.length;
+            if ( isStored( source.file ) || content.length == 0 )
+            {
+                return;
+            }
+
+            Deflater deflater = new Deflater( level, true );
+            try
+            {
+                deflater.setInput( content );
+                deflater.finish();
+                ByteArrayOutputStream out = new ByteArrayOutputStream( content.length / 2 + 64 );
+                byte[] buffer = new byte[8192];
+                while ( !deflater.finished() )
+                {
+                    out.write( buffer, 0, deflater.deflate( buffer ) );
+                    if ( out.size() >= content.length )
+                    {
+                        // Does not get smaller, keep it stored.
+                        return;
+                    }
+                }
+                entry.method = METHOD_DEFLATED;
+                entry.data = out.toByteArray();
+                entry.compressedSize = entry.data.length;
+            }
+            finally
+            {
+                deflater.end();
+            }
+        }
+
+        private void compressToFile( Entry entry )
+            throws IOException
+        {
+            CRC32 crc = new CRC32();
+            boolean stored = isStored( source.file );
+            File temp = null;
+            Deflater deflater = stored ? null : new Deflater( level, true );
+            InputStream in = new FileInputStream( source.file );
+            try
+            {
+                OutputStream out = null;
+                if ( !stored )
+                {
+                    temp = File.createTempFile( "doxygen", ".deflate", tempDirectory );
+                    out = new DeflaterOutputStream( new FileOutputStream( temp ), deflater, 8192 );
+                }
+                try
+                {
+                    byte[] buffer = new byte[8192];
+                    int count;
+                    while ( ( count = in.read( buffer ) ) != -1 )
+                    {
+                        crc.update( buffer, 0, count );
+                        entry.size += count;
+                        if ( out != null )
+                        {
+                            out.write( buffer, 0, count );
+                        }
+                    }
+                }
+                finally
+                {
+                    IOUtil.close( out );
+                }
+            }
+            catch ( IOException e )
+            {
+                if ( temp != null )
+                {
+                    temp.delete();
+                }
+                throw e;
+            }
+            finally
+            {
+                IOUtil.close( in );
+                if ( deflater != null )
+                {
+                    deflater.end();
+                }
+            }
+
+            entry.crc = crc.getValue();
+            if ( temp != null && temp.length() < entry.size )
+            {
+                entry.method = METHOD_DEFLATED;
+                entry.dataFile = temp;
+                entry.temporary = true;
+                entry.compressedSize = temp.length();
+            }
+            else
+            {
+                if ( temp != null )
+                {
+                    temp.delete();
+                }
+                entry.method = METHOD_STORED;
+                entry.dataFile = source.file;
+                entry.compressedSize = entry.size;
+            }
+        }
+    }
+
+    /**
+     * Writes the records of the zip format. The central directory is kept in memory until {@link #finish()}.
+     */
+    private static final class ZipWriter
+    {
+        private final CountingOutputStream out;
+
+        private final ByteArrayOutputStream centralDirectory = new ByteArrayOutputStream();
+
+        private long entries;
+
+        ZipWriter( OutputStream out )
+        {
+            this.out = new CountingOutputStream( new BufferedOutputStream( out, 64 * 1024 ) );
+        }
+
+        void write( Entry entry )
+            throws IOException
+        {
+            long offset = out.count;
+            byte[] name = entry.source.name.getBytes( UTF_8 );
+            long dosTime = toDosTime( entry.source.lastModified );
+            boolean zip64Sizes = entry.size >= ZIP64_LIMIT || entry.compressedSize >= ZIP64_LIMIT;
+            boolean zip64Offset = offset >= ZIP64_LIMIT;
+            int version = zip64Sizes || zip64Offset ? 45 : 20;
+
+            writeInt( out, 0x04034b50 );
+            writeShort( out, version );
+            writeShort( out, FLAG_UTF8 );
+            writeShort( out, entry.method );
+            writeInt( out, dosTime );
+            writeInt( out, entry.crc );
+            writeInt( out, zip64Sizes ? ZIP64_LIMIT : entry.compressedSize );
+            writeInt( out, zip64Sizes ? ZIP64_LIMIT : entry.size );
+            writeShort( out, name.length );
+            writeShort( out, zip64Sizes ? 20 : 0 );
+            out.write( name );
+            if ( zip64Sizes )
+            {
+                writeShort( out, 0x0001 );
+                writeShort( out, 16 );
+                writeLong( out, entry.size );
+                writeLong( out, entry.compressedSize );
+            }
+            entry.writeData( out );
+
+            OutputStream cd = centralDirectory;
+            int extra = ( zip64Sizes ? 16 : 0 ) + ( zip64Offset ? 8 : 0 );
+            writeInt( cd, 0x02014b50 );
+            writeShort( cd, version );
+            writeShort( cd, version );
+            writeShort( cd, FLAG_UTF8 );
+            writeShort( cd, entry.method );
+            writeInt( cd, dosTime );
+            writeInt( cd, entry.crc );
+            writeInt( cd, zip64Sizes ? ZIP64_LIMIT : entry.compressedSize );
+            writeInt( cd, zip64Sizes ? ZIP64_LIMIT : entry.size );
+            writeShort( cd, name.length );
+            writeShort( cd, extra > 0 ? extra + 4 : 0 );
+            writeShort( cd, 0 ); // comment
+            writeShort( cd, 0 ); // disk
+            writeShort( cd, 0 ); // internal attributes
+            writeInt( cd, 0 ); // external attributes
+            writeInt( cd, zip64Offset ? ZIP64_LIMIT : offset );
+            cd.write( name );
+            if ( extra > 0 )
+            {
+                writeShort( cd, 0x0001 );
+                writeShort( cd, extra );
+                if ( zip64Sizes )
+                {
+                    writeLong( cd, entry.size );
+                    writeLong( cd, entry.compressedSize );
+                }
+                if ( zip64Offset )
+                {
+                    writeLong( cd, offset );
+                }
+            }
+            entries++;
+        }
+
+        void finish()
+            throws IOException
+        {
+            long offset = out.count;
+            long size = centralDirectory.size();
+            centralDirectory.writeTo( out );
+
+            if ( entries >= ZIP64_ENTRIES || offset >= ZIP64_LIMIT || size >= ZIP64_LIMIT )
+            {
+                long zip64End = out.count;
+                writeInt( out, 0x06064b50 );
+                writeLong( out, 44 );
+                writeShort( out, 45 );
+                writeShort( out, 45 );
+                writeInt( out, 0 );
+                writeInt( out, 0 );
+                writeLong( out, entries );
+                writeLong( out, entries );
+                writeLong( out, size );
+                writeLong( out, offset );
+
+                writeInt( out, 0x07064b50 );
+                writeInt( out, 0 );
+                writeLong( out, zip64End );
+                writeInt( out, 1 );
+            }
+
+            writeInt( out, 0x06054b50 );
+            writeShort( out, 0 );
+            writeShort( out, 0 );
+            writeShort( out, (int) Math.min( entries, ZIP64_ENTRIES ) );
+            writeShort( out, (int) Math.min( entries, ZIP64_ENTRIES ) );
+            writeInt( out, Math.min( size, ZIP64_LIMIT ) );
+            writeInt( out, Math.min( offset, ZIP64_LIMIT ) );
+            writeShort( out, 0 );
+            out.flush();
+        }
+
+        void close()
+            throws IOException
+        {
+            out.close();
+        }
+    }
+
+    /**
+     * @param time The time in milli seconds.
+     * @return The time in the MS-DOS format (date in the upper 16 bits) of the zip entries.
+     */
+    static long toDosTime( long time )
+    {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis( time );
+        int year = calendar.get( Calendar.YEAR );
+        if ( year < 1980 )
+        {
+            return ( 1 << 21 ) | ( 1 << 16 );
+        }
+        return ( (long) ( year - 1980 ) << 25 ) | ( ( calendar.get( Calendar.MONTH ) + 1 ) << 21 )
+            | ( calendar.get( Calendar.DAY_OF_MONTH ) << 16 ) | ( calendar.get( Calendar.HOUR_OF_DAY ) << 11 )
+            | ( calendar.get( Calendar.MINUTE ) << 5 ) | ( calendar.get( Calendar.SECOND ) >> 1 );
+    }
+
+    private static void writeShort( OutputStream out, int value )
+        throws IOException
+    {
+        out.write( value & 0xff );
+        out.write( ( value >>> 8 ) & 0xff );
+    }
+
+    private static void writeInt( OutputStream out, long value )
+        throws IOException
+    {
+        writeShort( out, (int) ( value & 0xffff ) );
+        writeShort( out, (int) ( ( value >>> 16 ) & 0xffff ) );
+    }
+
+    private static void writeLong( OutputStream out, long value )
+        throws IOException
+    {
+        writeInt( out, value & 0xffffffffL );
+        writeInt( out, value >>> 32 );
+    }
+
+    /**
+     * Counts the written bytes to know the offsets of the entries.
+     */
+    private static final class CountingOutputStream
+        extends FilterOutputStream
+    {
+        private long count;
+
+        CountingOutputStream( OutputStream out )
+        {
+            super( out );
+        }
+
+        @Override
+        public void write( int b )
+            throws IOException
+        {
+            out.write( b );
+            count++;
+        }
+
+        @Override
+        public void write( byte[] b, int off, int len )
+            throws IOException
+        {
+            out.write( b, off, len );
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,283 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.IOUtil;
+
+/**
+ * Chooses the cache sizes (SYMBOL_CACHE_SIZE and LOOKUP_CACHE_SIZE) for doxygen. The first choice is estimated from
+ * the size of the input and the available physical memory. Every run is recorded together with its duration, so later
+ * runs can refine the choice: A size suggested by doxygen itself is taken first, otherwise the size with the best
+ * duration per input size is used and the next larger size is tried once while memory allows it.
+ *
+ * @author agent
+ */
+public class DoxygenCacheSizeAdvisor
+{
+    /**
+     * The largest value doxygen accepts.
+     */
+    public static final int MAX_VALUE = 9;
+
+    /**
+     * The number of records which are kept in the history.
+     */
+    private static final int HISTORY_SIZE = 20;
+
+    /**
+     * A rough estimation of the number of input bytes per symbol.
+     */
+    private static final long BYTES_PER_SYMBOL = 100;
+
+    /**
+     * A rough estimation of the memory needed per cached symbol.
+     */
+    private static final long MEMORY_PER_SYMBOL = 1024;
+
+    private final File historyFile;
+
+    private final long availableMemory;
+
+    /**
+     * @param historyFile The file which contains the records of the earlier runs. <code>null</code> means no history.
+     * @param availableMemory The available physical memory in bytes or 0 if unknown.
+     */
+    public DoxygenCacheSizeAdvisor( File historyFile, long availableMemory )
+    {
+        this.historyFile = historyFile;
+        this.availableMemory = availableMemory;
+    }
+
+    /**
+     * @param inputBytes The size of all input files.
+     * @return The value for the cache size (0..9).
+     */
+    public int advise( long inputBytes )
+    {
+        List<long[]> history = readHistory();
+        int limit = getMemoryLimit();
+        if ( history.isEmpty() )
+        {
+            return Math.min( estimate( inputBytes ), limit );
+        }
+
+        long[] last = history.get( history.size() - 1 );
+        if ( last[3] >= 0 )
+        {
+            // Doxygen told us what it needs.
+            return (int) Math.min( last[3], limit );
+        }
+
+        long[] best = null;
+        for ( long[] record : history )
+        {
+            if ( best == null || millisPerByte( record ) < millisPerByte( best ) )
+            {
+                best = record;
+            }
+        }
+        int value = (int) best[0];
+        if ( value < limit && !contains( history, value + 1 ) )
+        {
+            value++;
+        }
+        return Math.min( value, limit );
+    }
+
+    private static double millisPerByte( long[] record )
+    {
+        return (double) record[2] / Math.max( 1, record[1] );
+    }
+
+    private static boolean contains( List<long[]> history, int value )
+    {
+        for ( long[] record : history )
+        {
+            if ( record[0] == value )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The largest value where the cache fits into half of the available memory.
+     */
+    private int getMemoryLimit()
+    {
+        if ( availableMemory <= 0 )
+        {
+            return MAX_VALUE;
+        }
+        int value = 0;
+        while ( value < MAX_VALUE && ( 1L << ( 17 + value ) ) * MEMORY_PER_SYMBOL <= availableMemory / 2 )
+        {
+            value++;
+        }
+        return value;
+    }
+
+    /**
+     * @param inputBytes The size of all input files.
+     * @return The value where the cache can hold all estimated symbols of the input.
+     */
+    static int estimate( long inputBytes )
+    {
+        long symbols = inputBytes / BYTES_PER_SYMBOL;
+        int value = 0;
+        while ( value < MAX_VALUE && ( 1L << ( 16 + value ) ) < symbols )
+        {
+            value++;
+        }
+        return value;
+    }
+
+    /**
+     * Record a run.
+     *
+     * @param value The used cache size.
+     * @param inputBytes The size of all input files.
+     * @param millis The duration of the run.
+     * @param suggestion The cache size suggested by doxygen or -1.
+     * @throws IOException in case of failures during writing the history.
+     */
+    public void record( int value, long inputBytes, long millis, int suggestion )
+        throws IOException
+    {
+        if ( historyFile == null )
+        {
+            return;
+        }
+        List<long[]> history = readHistory();
+        history.add( new long[] { value, inputBytes, millis, suggestion } );
+        while ( history.size() > HISTORY_SIZE )
+        {
+            history.remove( 0 );
+        }
+
+        StringBuilder content = new StringBuilder();
+        for ( long[] record : history )
+        {
+            content.append( record[0] ).append( ' ' ).append( record[1] ).append( ' ' ).append( record[2] );
+            content.append( ' ' ).append( record[3] ).append( '\n' );
+        }
+        historyFile.getParentFile().mkdirs();
+        FileUtils.fileWrite( historyFile, "UTF-8", content.toString() );
+    }
+
+    /**
+     * @return The records (value, input bytes, duration, suggestion) of the earlier runs, oldest first.
+     */
+    private List<long[]> readHistory()
+    {
+        List<long[]> result = new ArrayList<long[]>();
+        if ( historyFile == null || !historyFile.isFile() )
+        {
+            return result;
+        }
+        try
+        {
+            for ( String line : FileUtils.fileRead( historyFile, "UTF-8" ).split( "\n" ) )
+            {
+                String[] fields = line.trim().split( " " );
+                if ( fields.length == 4 )
+                {
+                    result.add( new long[] { Long.parseLong( fields[0] ), Long.parseLong( fields[1] ),
+                        Long.parseLong( fields[2] ), Long.parseLong( fields[3] ) } );
+                }
+            }
+        }
+        catch ( IOException e )
+        {
+            result.clear();
+        }
+        catch ( NumberFormatException e )
+        {
+            result.clear();
+        }
+        return result;
+    }
+
+    /**
+     * Read the available physical memory from <code>/proc/meminfo</code> (Linux only).
+     *
+     * @return The available memory in bytes or 0 if it could not be determined.
+     */
+    public static long readAvailableMemory()
+    {
+        return readAvailableMemory( new File( "/proc/meminfo" ) );
+    }
+
+    static long readAvailableMemory( File meminfo )
+    {
+        if ( !meminfo.isFile() )
+        {
+            return 0;
+        }
+        long free = 0;
+        BufferedReader reader = null;
+        try
+        {
+            reader = new BufferedReader( new FileReader( meminfo ) );
+            String line;
+            while ( ( line = reader.readLine() ) != null )
+            {
+                String[] fields = line.trim().split( "\\s+" );
+                if ( fields.length < 2 )
+                {
+                    continue;
+                }
+                if ( "MemAvailable:".equals( fields[0] ) )
+                {
+                    return Long.parseLong( fields[1] ) * 1024;
+                }
+                if ( "MemFree:".equals( fields[0] ) || "Cached:".equals( fields[0] ) )
+                {
+                    // Older kernels do not know MemAvailable.
+                    free += Long.parseLong( fields[1] ) * 1024;
+                }
+            }
+        }
+        catch ( IOException e )
+        {
+            return 0;
+        }
+        catch ( NumberFormatException e )
+        {
+            return 0;
+        }
+        finally
+        {
+            IOUtil.close( reader );
+        }
+        return free;
+    }
+}
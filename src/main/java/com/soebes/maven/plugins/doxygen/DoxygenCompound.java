@@ -0,0 +1,99 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * A compound (class, struct, file, namespace, group, page etc.) of the XML output of doxygen.
+ *
+ * @author agent
+ */
+public class DoxygenCompound
+{
+    private final DoxygenXmlReader reader;
+
+    private final String id;
+
+    private final String kind;
+
+    private final String name;
+
+    DoxygenCompound( DoxygenXmlReader reader, String id, String kind, String name )
+    {
+        this.reader = reader;
+        this.id = id;
+        this.kind = kind;
+        this.name = name;
+    }
+
+    /**
+     * @return The id of the compound (for example <code>classFoo</code>).
+     */
+    public String getId()
+    {
+        return id;
+    }
+
+    /**
+     * @return The kind of the compound (for example <code>class</code> or <code>file</code>).
+     */
+    public String getKind()
+    {
+        return kind;
+    }
+
+    /**
+     * @return The qualified name of the compound.
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * @return The XML file which describes the compound.
+     */
+    public File getFile()
+    {
+        return new File( reader.getXmlDirectory(), id + ".xml" );
+    }
+
+    /**
+     * Read the members of the compound. The iterator has to be closed if it is not iterated until the end.
+     *
+     * @return The members defined by the compound.
+     * @throws IOException if the file of the compound could not be opened.
+     */
+    public DoxygenXmlIterator<DoxygenMember> members()
+        throws IOException
+    {
+        return reader.members( this );
+    }
+
+    @Override
+    public String toString()
+    {
+        return kind + " " + name;
+    }
+}
@@ -0,0 +1,256 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * This will write the items of a doxygen configuration file. Values for particular items can be overridden which is
+ * used to create several configurations (for example for parallel runs) out of the same plugin configuration.
+ * <p>
+ * The constant part of every item is taken from the pre-rendered template of {@link DoxygenParameters} and appended
+ * to a byte buffer of the writer. The file is written in one go on {@link #close()}.
+ *
+ * @author agent
+ */
+public class DoxygenConfigurationWriter
+{
+    private static final byte[] LINE_SEPARATOR =
+        System.getProperty( "line.separator" ).getBytes( Charset.forName( "UTF-8" ) );
+
+    private static final Charset DEFAULT_ENCODING = Charset.forName( "UTF-8" );
+
+    private final File config;
+
+    private final Map<DoxygenParameters, String> overrides;
+
+    private final Charset encoding;
+
+    private final boolean compact;
+
+    private final DoxygenVersion version;
+
+    /**
+     * Large enough for a compact configuration, a configuration with descriptions needs about 64 KB.
+     */
+    private byte[] buffer = new byte[16 * 1024];
+
+    private int count;
+
+    /**
+     * @param config The configuration file to write.
+     * @param overrides The values which will replace the configured ones.
+     * @param encoding The encoding of the values (DOXYFILE_ENCODING). If it is not supported UTF-8 is used.
+     */
+    public DoxygenConfigurationWriter( File config, Map<DoxygenParameters, String> overrides, String encoding )
+    {
+        this( config, overrides, encoding, false );
+    }
+
+    /**
+     * @param config The configuration file to write.
+     * @param overrides The values which will replace the configured ones.
+     * @param encoding The encoding of the values (DOXYFILE_ENCODING). If it is not supported UTF-8 is used.
+     * @param compact If true the items are written without their descriptions.
+     */
+    public DoxygenConfigurationWriter( File config, Map<DoxygenParameters, String> overrides, String encoding,
+                                       boolean compact )
+    {
+        this( config, overrides, encoding, compact, null );
+    }
+
+    /**
+     * @param config The configuration file to write.
+     * @param overrides The values which will replace the configured ones.
+     * @param encoding The encoding of the values (DOXYFILE_ENCODING). If it is not supported UTF-8 is used.
+     * @param compact If true the items are written without their descriptions.
+     * @param version The version of doxygen which will read the file. Items which are not supported by this version
+     *            are not written. If <code>null</code> all items are written.
+     */
+    public DoxygenConfigurationWriter( File config, Map<DoxygenParameters, String> overrides, String encoding,
+                                       boolean compact, DoxygenVersion version )
+    {
+        this.config = config;
+        if ( overrides == null || overrides.isEmpty() )
+        {
+            this.overrides = Collections.emptyMap();
+        }
+        else
+        {
+            this.overrides = new EnumMap<DoxygenParameters, String>( overrides );
+        }
+        this.encoding = toCharset( encoding );
+        this.compact = compact;
+        this.version = version;
+    }
+
+    private static Charset toCharset( String encoding )
+    {
+        if ( encoding == null )
+        {
+            return DEFAULT_ENCODING;
+        }
+        try
+        {
+            return Charset.forName( encoding.trim() );
+        }
+        catch ( IllegalCharsetNameException e )
+        {
+            return DEFAULT_ENCODING;
+        }
+        catch ( UnsupportedCharsetException e )
+        {
+            return DEFAULT_ENCODING;
+        }
+    }
+
+    /**
+     * @return true if the items are written without their descriptions.
+     */
+    public boolean isCompact()
+    {
+        return compact;
+    }
+
+    /**
+     * @param key The configuration item.
+     * @return true if the value of the item is overridden.
+     */
+    public boolean isOverridden( DoxygenParameters key )
+    {
+        return overrides.containsKey( key );
+    }
+
+    /**
+     * @param key The configuration item.
+     * @return The value which replaces the configured one.
+     */
+    public String getOverride( DoxygenParameters key )
+    {
+        return overrides.get( key );
+    }
+
+    /**
+     * This will write all kind of configuration items into the configuration file and will format the file.
+     *
+     * @param key The configuration item.
+     * @param value The value of the item.
+     */
+    public void write( DoxygenParameters key, String value )
+    {
+        if ( !key.isSupportedBy( version ) )
+        {
+            return;
+        }
+        append( compact ? key.getAssignment() : key.getTemplate() );
+        if ( value != null )
+        {
+            append( value );
+        }
+        append( LINE_SEPARATOR );
+        if ( !compact )
+        {
+            append( LINE_SEPARATOR );
+        }
+    }
+
+    private void append( ByteBuffer bytes )
+    {
+        int length = bytes.remaining();
+        ensureCapacity( length );
+        bytes.get( buffer, count, length );
+        count += length;
+    }
+
+    private void append( byte[] bytes )
+    {
+        ensureCapacity( bytes.length );
+        System.arraycopy( bytes, 0, buffer, count, bytes.length );
+        count += bytes.length;
+    }
+
+    private void append( String value )
+    {
+        int length = value.length();
+        ensureCapacity( length );
+        for ( int i = 0; i < length; i++ )
+        {
+            char c = value.charAt( i );
+            if ( c >= 0x80 )
+            {
+                // Not plain ASCII so let the charset do the work.
+                append( value.getBytes( encoding ) );
+                return;
+            }
+            buffer[count + i] = (byte) c;
+        }
+        count += length;
+    }
+
+    private void ensureCapacity( int additional )
+    {
+        if ( count + additional > buffer.length )
+        {
+            byte[] larger = new byte[Math.max( buffer.length * 2, count + additional )];
+            System.arraycopy( buffer, 0, larger, 0, count );
+            buffer = larger;
+        }
+    }
+
+    /**
+     * Discard everything which has been written so far.
+     */
+    void reset()
+    {
+        count = 0;
+    }
+
+    /**
+     * Write the configuration file.
+     *
+     * @throws IOException in case of failures during writing.
+     */
+    public void close()
+        throws IOException
+    {
+        OutputStream out = new FileOutputStream( config );
+        try
+        {
+            out.write( buffer, 0, count );
+        }
+        finally
+        {
+            out.close();
+        }
+        count = 0;
+    }
+}
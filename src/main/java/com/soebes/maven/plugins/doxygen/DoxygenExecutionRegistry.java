@@ -0,0 +1,120 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Keeps track of the doxygen executions of a build session. If a module is documented by a standalone execution and
+ * by the report of the site, or the report is triggered by <code>site</code> and <code>site:stage</code>, doxygen
+ * would run several times with the same configuration. An execution with a key which has already been run in the
+ * session reuses the output of that run instead, an execution whose key is currently running waits for it.
+ *
+ * @author agent
+ */
+public class DoxygenExecutionRegistry
+{
+    private static final Map<Object, DoxygenExecutionRegistry> SESSIONS =
+        new WeakHashMap<Object, DoxygenExecutionRegistry>();
+
+    private final ConcurrentMap<String, FutureTask<Void>> executions =
+        new ConcurrentHashMap<String, FutureTask<Void>>();
+
+    /**
+     * @param session The build session. The registry is dropped together with the session.
+     * @return The registry of the given session.
+     */
+    public static DoxygenExecutionRegistry getInstance( Object session )
+    {
+        synchronized ( SESSIONS )
+        {
+            DoxygenExecutionRegistry registry = SESSIONS.get( session );
+            if ( registry == null )
+            {
+                registry = new DoxygenExecutionRegistry();
+                SESSIONS.put( session, registry );
+            }
+            return registry;
+        }
+    }
+
+    /**
+     * Run the given execution unless an execution with the same key has already been run successfully or is
+     * running. A failed execution is not remembered, so the next one with the same key runs again.
+     *
+     * @param key The key of the execution (everything which influences the output including the output directory).
+     * @param execution The execution.
+     * @return true if the execution has been run by this call, false if an earlier execution has been reused.
+     * @throws ExecutionException with the failure of the execution as cause.
+     * @throws InterruptedException if the thread has been interrupted while waiting for a running execution.
+     */
+    public boolean execute( String key, Callable<Void> execution )
+        throws ExecutionException, InterruptedException
+    {
+        while ( true )
+        {
+            FutureTask<Void> task = new FutureTask<Void>( execution );
+            FutureTask<Void> existing = executions.putIfAbsent( key, task );
+            if ( existing == null )
+            {
+                task.run();
+                try
+                {
+                    task.get();
+                }
+                catch ( ExecutionException e )
+                {
+                    executions.remove( key, task );
+                    throw e;
+                }
+                return true;
+            }
+
+            try
+            {
+                existing.get();
+                return false;
+            }
+            catch ( ExecutionException e )
+            {
+                // The failure has been reported by the execution which ran, so try it again.
+                executions.remove( key, existing );
+            }
+        }
+    }
+
+    /**
+     * Forget the execution with the given key, for example because its output has been deleted in the meantime.
+     *
+     * @param key The key of the execution.
+     */
+    public void forget( String key )
+    {
+        executions.remove( key );
+    }
+}
@@ -0,0 +1,257 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Filters the input files by {@link DoxygenInputFilter}s on a thread pool into a mirror of the source tree, so
+ * doxygen does not have to start a filter process per file. The filtered files are cached by the path and the content
+ * of the input file and the filter, so unchanged files are not filtered again.
+ *
+ * @author agent
+ */
+public class DoxygenFilterStage
+{
+    private final List<DoxygenInputFilter> filters;
+
+    private final File basedir;
+
+    private final File mirrorDirectory;
+
+    private final File cacheDirectory;
+
+    private final int threads;
+
+    private final AtomicInteger filtered = new AtomicInteger();
+
+    private final AtomicInteger cached = new AtomicInteger();
+
+    /**
+     * @param filters The filters. The first filter which accepts a file is used.
+     * @param basedir The directory the layout of the mirror is relative to.
+     * @param mirrorDirectory The directory the filtered files are written to.
+     * @param cacheDirectory The directory which contains the cached results or <code>null</code> to not cache them.
+     * @param threads The number of threads.
+     */
+    public DoxygenFilterStage( List<DoxygenInputFilter> filters, File basedir, File mirrorDirectory,
+                               File cacheDirectory, int threads )
+    {
+        this.filters = filters;
+        this.basedir = basedir.getAbsoluteFile();
+        this.mirrorDirectory = mirrorDirectory.getAbsoluteFile();
+        this.cacheDirectory = cacheDirectory;
+        this.threads = Math.max( 1, threads );
+    }
+
+    /**
+     * Filter the given files.
+     *
+     * @param files The input files.
+     * @return The files doxygen has to read in the same order: the filtered file in the mirror or the input file if no
+     *         filter accepts it.
+     * @throws IOException in case of failures.
+     */
+    public List<File> filter( List<File> files )
+        throws IOException
+    {
+        ExecutorService executor = Executors.newFixedThreadPool( threads );
+        try
+        {
+            List<Future<File>> results = new ArrayList<Future<File>>( files.size() );
+            for ( final File file : files )
+            {
+                results.add( executor.submit( new Callable<File>()
+                {
+                    public File call()
+                        throws IOException
+                    {
+                        return filter( file );
+                    }
+                } ) );
+            }
+
+            List<File> result = new ArrayList<File>( files.size() );
+            for ( Future<File> future : results )
+            {
+                result.add( future.get() );
+            }
+            return result;
+        }
+        catch ( ExecutionException e )
+        {
+            if ( e.getCause() instanceof IOException )
+            {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException( e.getCause().getMessage(), e.getCause() );
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException( "Interrupted while filtering the input files.", e );
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    private File filter( File file )
+        throws IOException
+    {
+        DoxygenInputFilter filter = null;
+        for ( DoxygenInputFilter candidate : filters )
+        {
+            if ( candidate.accepts( file ) )
+            {
+                filter = candidate;
+                break;
+            }
+        }
+        if ( filter == null )
+        {
+            return file;
+        }
+
+        File target = getMirrorFile( file );
+        target.getParentFile().mkdirs();
+        byte[] content = Files.readAllBytes( file.toPath() );
+
+        File cacheFile = null;
+        if ( cacheDirectory != null )
+        {
+            // The filter gets the file as well, so its result may depend on the path.
+            String key = new DoxygenFingerprint().add( filter.getClass().getName() ).add( filter.getVersion() )
+                .add( getKeyPath( file ) ).add( content ).getValue();
+            cacheFile = new File( new File( cacheDirectory, key.substring( 0, 2 ) ), key );
+            if ( cacheFile.isFile() )
+            {
+                Files.copy( cacheFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING );
+                cached.incrementAndGet();
+                return target;
+            }
+        }
+
+        byte[] result = filter.filter( file, content );
+        write( target, result );
+        filtered.incrementAndGet();
+        if ( cacheFile != null )
+        {
+            cacheFile.getParentFile().mkdirs();
+            write( cacheFile, result );
+        }
+        return target;
+    }
+
+    /**
+     * Write to a temporary file which is renamed, so readers never see a partially written file.
+     */
+    private static void write( File file, byte[] content )
+        throws IOException
+    {
+        File temp = File.createTempFile( file.getName(), ".tmp", file.getParentFile() );
+        try
+        {
+            Files.write( temp.toPath(), content );
+            try
+            {
+                Files.move( temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                            StandardCopyOption.ATOMIC_MOVE );
+            }
+            catch ( AtomicMoveNotSupportedException e )
+            {
+                Files.move( temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING );
+            }
+        }
+        finally
+        {
+            temp.delete();
+        }
+    }
+
+    /**
+     * @param file The input file.
+     * @return The location of the filtered file. Files below the base directory keep their relative path, so doxygen
+     *         shows the same names if the mirror directory is stripped from the path.
+     */
+    File getMirrorFile( File file )
+    {
+        String relative = getRelativePath( file );
+        if ( relative != null )
+        {
+            return new File( mirrorDirectory, relative );
+        }
+        // Files outside of the base directory.
+        return new File( new File( mirrorDirectory, "_external" ), file.getAbsolutePath().replace( ':', '_' ) );
+    }
+
+    /**
+     * @param file The input file.
+     * @return The path of the file relative to the base directory or <code>null</code> if it is located outside.
+     */
+    private String getRelativePath( File file )
+    {
+        String base = basedir.getPath() + File.separator;
+        String path = file.getAbsolutePath();
+        return path.startsWith( base ) ? path.substring( base.length() ) : null;
+    }
+
+    /**
+     * @param file The input file.
+     * @return The path which identifies the file in the cache key. It is relative to the base directory, so the cache
+     *         can be shared by checkouts in different locations.
+     */
+    private String getKeyPath( File file )
+    {
+        String relative = getRelativePath( file );
+        return relative != null ? relative.replace( File.separatorChar, '/' ) : file.getAbsolutePath();
+    }
+
+    /**
+     * @return The number of files which have been filtered.
+     */
+    public int getFiltered()
+    {
+        return filtered.get();
+    }
+
+    /**
+     * @return The number of files which have been taken from the cache.
+     */
+    public int getCached()
+    {
+        return cached.get();
+    }
+}
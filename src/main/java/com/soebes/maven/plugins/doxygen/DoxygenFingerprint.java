@@ -0,0 +1,178 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.IOUtil;
+
+/**
+ * A fingerprint (SHA-1) over everything which influences the result of a doxygen run. If the fingerprint of a run
+ * is the same as the one stored by the previous run the documentation does not need to be generated again.
+ *
+ * @author agent
+ */
+public class DoxygenFingerprint
+{
+    private static final Charset UTF_8 = Charset.forName( "UTF-8" );
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final MessageDigest digest;
+
+    public DoxygenFingerprint()
+    {
+        try
+        {
+            digest = MessageDigest.getInstance( "SHA-1" );
+        }
+        catch ( NoSuchAlgorithmException e )
+        {
+            // SHA-1 is required to be supported by every Java platform.
+            throw new IllegalStateException( e );
+        }
+    }
+
+    /**
+     * @param value The value which will be part of the fingerprint. <code>null</code> is allowed.
+     * @return this instance.
+     */
+    public DoxygenFingerprint add( String value )
+    {
+        if ( value != null )
+        {
+            digest.update( value.getBytes( UTF_8 ) );
+        }
+        digest.update( (byte) 0 );
+        return this;
+    }
+
+    /**
+     * @param bytes The bytes which will be part of the fingerprint.
+     * @return this instance.
+     */
+    public DoxygenFingerprint add( byte[] bytes )
+    {
+        digest.update( bytes );
+        digest.update( (byte) 0 );
+        return this;
+    }
+
+    /**
+     * Add the path, the size and the modification time of the given file. This is much cheaper than reading the
+     * contents and is sufficient to detect changes of the source files.
+     *
+     * @param file The file.
+     * @return this instance.
+     */
+    public DoxygenFingerprint addStamp( File file )
+    {
+        add( file.getAbsolutePath() );
+        add( Long.toString( file.length() ) );
+        add( Long.toString( file.lastModified() ) );
+        return this;
+    }
+
+    /**
+     * Add the complete contents of the given file.
+     *
+     * @param file The file.
+     * @return this instance.
+     * @throws IOException in case of failures during reading the file.
+     */
+    public DoxygenFingerprint addContents( File file )
+        throws IOException
+    {
+        InputStream in = new FileInputStream( file );
+        try
+        {
+            byte[] buffer = new byte[8192];
+            int count;
+            while ( ( count = in.read( buffer ) ) != -1 )
+            {
+                digest.update( buffer, 0, count );
+            }
+        }
+        finally
+        {
+            IOUtil.close( in );
+        }
+        digest.update( (byte) 0 );
+        return this;
+    }
+
+    /**
+     * Calculate the fingerprint. This can only be called once.
+     *
+     * @return The fingerprint as hex string.
+     */
+    public String getValue()
+    {
+        byte[] hash = digest.digest();
+        char[] result = new char[hash.length * 2];
+        for ( int i = 0; i < hash.length; i++ )
+        {
+            result[i * 2] = HEX[( hash[i] >> 4 ) & 0x0f];
+            result[i * 2 + 1] = HEX[hash[i] & 0x0f];
+        }
+        return new String( result );
+    }
+
+    /**
+     * @param file The file which contains a fingerprint stored by {@link #write(File, String)}.
+     * @return The fingerprint or <code>null</code> if the file does not exist or could not be read.
+     */
+    public static String read( File file )
+    {
+        if ( !file.isFile() )
+        {
+            return null;
+        }
+        try
+        {
+            return FileUtils.fileRead( file, "UTF-8" ).trim();
+        }
+        catch ( IOException e )
+        {
+            return null;
+        }
+    }
+
+    /**
+     * @param file The file to write the fingerprint to.
+     * @param fingerprint The fingerprint.
+     * @throws IOException in case of failures during writing the file.
+     */
+    public static void write( File file, String fingerprint )
+        throws IOException
+    {
+        file.getParentFile().mkdirs();
+        FileUtils.fileWrite( file, "UTF-8", fingerprint );
+    }
+}
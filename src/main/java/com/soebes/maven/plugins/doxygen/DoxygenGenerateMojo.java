@@ -0,0 +1,219 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Component;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.MavenProjectHelper;
+import org.apache.maven.reporting.MavenReportException;
+
+/**
+ * Generates the documentation during the build and packages it into a zip file which is attached to the project
+ * with the classifier <code>doxygen</code>, so it is installed and deployed together with the other artifacts. The
+ * files are compressed in parallel; images and precompressed files are stored without compression.
+ *
+ * @author agent
+ */
+@Mojo( name = "generate", defaultPhase = LifecyclePhase.PACKAGE, requiresProject = true, threadSafe = true )
+public class DoxygenGenerateMojo
+    extends AbstractDoxygenMojo
+{
+    /**
+     * The current project.
+     */
+    @Parameter( defaultValue = "${project}", required = true, readonly = true )
+    private MavenProject project;
+
+    @Component
+    private MavenProjectHelper projectHelper;
+
+    /**
+     * The directory the zip file is written to.
+     */
+    @Parameter( defaultValue = "${project.build.directory}", required = true )
+    private File archiveDirectory;
+
+    /**
+     * The name of the zip file without the classifier and the extension.
+     */
+    @Parameter( defaultValue = "${project.build.finalName}", required = true )
+    private String finalName;
+
+    /**
+     * The classifier of the attached zip file.
+     */
+    @Parameter( property = "doxygen.classifier", defaultValue = "doxygen" )
+    private String classifier;
+
+    /**
+     * If set to <code>false</code> the zip file is created but not attached to the project.
+     */
+    @Parameter( property = "doxygen.attach", defaultValue = "true" )
+    private boolean attach;
+
+    /**
+     * The comma separated list of extensions of files which are already compressed. They are stored in the zip file
+     * without compressing them again. Files which do not get smaller by compression are always stored.
+     */
+    @Parameter( property = "doxygen.storedExtensions", defaultValue = "png,jpg,jpeg,gif,gz,svgz,zip,woff,woff2" )
+    private String storedExtensions;
+
+    /**
+     * The number of threads which compress the files. <code>0</code> uses one thread per processor.
+     */
+    @Parameter( property = "doxygen.archiveThreads", defaultValue = "0" )
+    private int archiveThreads;
+
+    /** {@inheritDoc} */
+    public void execute()
+        throws MojoExecutionException, MojoFailureException
+    {
+        if ( isSkip() )
+        {
+            getLog().info( "Skipping doxygen generation" );
+            return;
+        }
+
+        try
+        {
+            executeReport( Locale.getDefault() );
+            File zip = archive();
+            if ( isAttach() )
+            {
+                projectHelper.attachArtifact( project, "zip", getClassifier(), zip );
+            }
+        }
+        catch ( DoxygenWarningLimitException e )
+        {
+            throw new MojoFailureException( e.getMessage() );
+        }
+        catch ( MavenReportException e )
+        {
+            throw new MojoExecutionException( e.getMessage(), e );
+        }
+        finally
+        {
+            finishExecution();
+        }
+    }
+
+    /**
+     * Package the generated output directories.
+     *
+     * @return The zip file.
+     * @throws MavenReportException in case of failures.
+     */
+    File archive()
+        throws MavenReportException
+    {
+        File zip = new File( getArchiveDirectory(), getFinalName() + "-" + getClassifier() + ".zip" );
+        int threads = getArchiveThreads() > 0 ? getArchiveThreads() : Runtime.getRuntime().availableProcessors();
+        long start = System.nanoTime();
+        try
+        {
+            int count =
+                new DoxygenArchiver( getStoredExtensions(), threads ).archive( zip, getOutputDirectory(),
+                                                                               getGeneratedOutputDirectories() );
+            getLog().info( "Packaged " + count + " files into '" + zip.getAbsolutePath() + "' in "
+                + ( System.nanoTime() - start ) / 1000000L + " ms." );
+        }
+        catch ( IOException e )
+        {
+            throw new MavenReportException( "Could not package the documentation into '" + zip.getAbsolutePath()
+                + "': " + e.getMessage(), e );
+        }
+        finally
+        {
+            getTimings().record( "packaging", start );
+        }
+        return zip;
+    }
+
+    public File getArchiveDirectory()
+    {
+        return archiveDirectory;
+    }
+
+    public void setArchiveDirectory( File archiveDirectory )
+    {
+        this.archiveDirectory = archiveDirectory;
+    }
+
+    public String getFinalName()
+    {
+        return finalName;
+    }
+
+    public void setFinalName( String finalName )
+    {
+        this.finalName = finalName;
+    }
+
+    public String getClassifier()
+    {
+        return classifier;
+    }
+
+    public void setClassifier( String classifier )
+    {
+        this.classifier = classifier;
+    }
+
+    public boolean isAttach()
+    {
+        return attach;
+    }
+
+    public void setAttach( boolean attach )
+    {
+        this.attach = attach;
+    }
+
+    public String getStoredExtensions()
+    {
+        return storedExtensions;
+    }
+
+    public void setStoredExtensions( String storedExtensions )
+    {
+        this.storedExtensions = storedExtensions;
+    }
+
+    public int getArchiveThreads()
+    {
+        return archiveThreads;
+    }
+
+    public void setArchiveThreads( int archiveThreads )
+    {
+        this.archiveThreads = archiveThreads;
+    }
+}
@@ -0,0 +1,60 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * A filter which converts input files into something doxygen understands, like the INPUT_FILTER of doxygen, but
+ * running inside the JVM of the build. Implementations are given by the javaFilters parameter, need a public default
+ * constructor and are loaded from the dependencies of the plugin. They are called by several threads at the same
+ * time.
+ *
+ * @author agent
+ */
+public interface DoxygenInputFilter
+{
+    /**
+     * @param file The input file.
+     * @return true if the file has to be filtered by this filter.
+     */
+    boolean accepts( File file );
+
+    /**
+     * @param file The input file.
+     * @param content The content of the input file.
+     * @return The filtered content which is given to doxygen.
+     * @throws IOException in case of failures.
+     */
+    byte[] filter( File file, byte[] content )
+        throws IOException;
+
+    /**
+     * The filtered files are cached by the path and the content of the input file and this version. The version has
+     * to change whenever the filter produces a different result for the same file (for example because of its
+     * configuration).
+     *
+     * @return The version of the filter.
+     */
+    String getVersion();
+}
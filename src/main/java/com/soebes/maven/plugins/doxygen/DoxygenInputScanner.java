@@ -0,0 +1,432 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.regex.Pattern;
+
+/**
+ * This will resolve the files doxygen would read based on the INPUT, FILE_PATTERNS, RECURSIVE, EXCLUDE and
+ * EXCLUDE_PATTERNS configuration items. The result is used to find out if the documentation has to be regenerated.
+ * The directories are read in parallel and excluded directories are not visited at all, which pays off on network file
+ * systems where every directory listing is expensive. Every directory is visited only once, even if it is reached via
+ * several symbolic links, so links which point to a parent directory do not cause an endless recursion.
+ *
+ * @author agent
+ */
+public class DoxygenInputScanner
+{
+    private final List<File> inputs;
+
+    private final List<Pattern> filePatterns;
+
+    private final boolean recursive;
+
+    private final List<File> excludes;
+
+    private final List<Pattern> excludePatterns;
+
+    private final boolean excludeSymlinks;
+
+    private int parallelism = Math.max( 4, 2 * Runtime.getRuntime().availableProcessors() );
+
+    /**
+     * @param basedir The directory relative paths are resolved against (the working directory of doxygen).
+     * @param input The value of the INPUT tag.
+     * @param filePatterns The value of the FILE_PATTERNS tag.
+     * @param recursive The value of the RECURSIVE tag.
+     * @param exclude The value of the EXCLUDE tag.
+     * @param excludePatterns The value of the EXCLUDE_PATTERNS tag.
+     * @param excludeSymlinks The value of the EXCLUDE_SYMLINKS tag.
+     */
+    public DoxygenInputScanner( File basedir, String input, String filePatterns, boolean recursive, String exclude,
+                                String excludePatterns, boolean excludeSymlinks )
+    {
+        this.inputs = toFiles( basedir, splitList( input ) );
+        this.filePatterns = toPatterns( splitList( filePatterns ) );
+        this.recursive = recursive;
+        this.excludes = toFiles( basedir, splitList( exclude ) );
+        this.excludePatterns = toPatterns( splitList( excludePatterns ) );
+        this.excludeSymlinks = excludeSymlinks;
+    }
+
+    /**
+     * @return The directories and files given by the INPUT tag resolved against the base directory.
+     */
+    public List<File> getInputs()
+    {
+        return Collections.unmodifiableList( inputs );
+    }
+
+    /**
+     * @param parallelism The number of threads used to read the directories. Reading directories is mostly waiting
+     *            for the file system, so this can be larger than the number of processors.
+     */
+    public void setParallelism( int parallelism )
+    {
+        this.parallelism = Math.max( 1, parallelism );
+    }
+
+    /**
+     * Scan all given inputs.
+     *
+     * @return The list of files which would be read by doxygen sorted by their path.
+     */
+    public List<File> scan()
+    {
+        List<File> result = new ArrayList<File>();
+        List<DirectoryTask> tasks = new ArrayList<DirectoryTask>();
+        Set<Object> visited = Collections.newSetFromMap( new ConcurrentHashMap<Object, Boolean>() );
+        for ( File item : inputs )
+        {
+            if ( item.isFile() )
+            {
+                // Files which are given explicitly are not checked against the FILE_PATTERNS.
+                if ( !isExcluded( item ) )
+                {
+                    result.add( item );
+                }
+            }
+            else if ( item.isDirectory() && !isExcluded( item ) )
+            {
+                Path directory = item.toPath();
+                try
+                {
+                    BasicFileAttributes attributes = Files.readAttributes( directory, BasicFileAttributes.class );
+                    if ( visited.add( getKey( directory, attributes ) ) )
+                    {
+                        tasks.add( new DirectoryTask( directory, visited ) );
+                    }
+                }
+                catch ( IOException e )
+                {
+                    // The directory vanished.
+                }
+            }
+        }
+
+        if ( !tasks.isEmpty() )
+        {
+            ForkJoinPool pool = new ForkJoinPool( parallelism );
+            try
+            {
+                for ( DirectoryTask task : tasks )
+                {
+                    pool.execute( task );
+                }
+                for ( DirectoryTask task : tasks )
+                {
+                    result.addAll( task.join() );
+                }
+            }
+            finally
+            {
+                pool.shutdown();
+            }
+        }
+        Collections.sort( result );
+        return result;
+    }
+
+    /**
+     * Reads a directory and forks a task for each sub directory.
+     */
+    private class DirectoryTask
+        extends RecursiveTask<List<File>>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final Path directory;
+
+        private final Set<Object> visited;
+
+        DirectoryTask( Path directory, Set<Object> visited )
+        {
+            this.directory = directory;
+            this.visited = visited;
+        }
+
+        @Override
+        protected List<File> compute()
+        {
+            List<File> result = new ArrayList<File>();
+            List<DirectoryTask> subTasks = new ArrayList<DirectoryTask>();
+            try
+            {
+                DirectoryStream<Path> entries = Files.newDirectoryStream( directory );
+                try
+                {
+                    for ( Path entry : entries )
+                    {
+                        File file = entry.toFile();
+                        if ( isExcluded( file ) )
+                        {
+                            continue;
+                        }
+                        BasicFileAttributes attributes;
+                        Object key;
+                        try
+                        {
+                            // A single call which follows links like File.isDirectory() does.
+                            attributes = Files.readAttributes( entry, BasicFileAttributes.class );
+                            key = recursive && attributes.isDirectory() ? getKey( entry, attributes ) : null;
+                        }
+                        catch ( IOException e )
+                        {
+                            // Dangling link or the file vanished.
+                            continue;
+                        }
+                        if ( attributes.isDirectory() )
+                        {
+                            if ( recursive && visited.add( key ) )
+                            {
+                                DirectoryTask task = new DirectoryTask( entry, visited );
+                                task.fork();
+                                subTasks.add( task );
+                            }
+                        }
+                        else if ( matchesFilePattern( file ) )
+                        {
+                            result.add( file );
+                        }
+                    }
+                }
+                finally
+                {
+                    entries.close();
+                }
+            }
+            catch ( IOException e )
+            {
+                // Unreadable directories are skipped like doxygen does.
+            }
+            for ( DirectoryTask task : subTasks )
+            {
+                result.addAll( task.join() );
+            }
+            return result;
+        }
+    }
+
+    /**
+     * @param directory The directory.
+     * @param attributes The attributes of the directory (links followed).
+     * @return The key which identifies the directory independent of the links it has been reached by.
+     * @throws IOException in case the real path of the directory can not be determined.
+     */
+    private static Object getKey( Path directory, BasicFileAttributes attributes )
+        throws IOException
+    {
+        Object key = attributes.fileKey();
+        // Not all file systems provide a file key (for example on Windows).
+        return key != null ? key : directory.toRealPath();
+    }
+
+    /**
+     * Check if the given file would be found by {@link #scan()} without scanning all inputs.
+     *
+     * @param file The file.
+     * @return true if the file is one of the inputs or located in one of the input directories and is neither
+     *         excluded itself nor located in an excluded directory.
+     */
+    public boolean accepts( File file )
+    {
+        File absolute = file.getAbsoluteFile().toPath().normalize().toFile();
+        if ( inputs.contains( absolute ) )
+        {
+            return !isExcluded( absolute );
+        }
+        if ( isExcluded( absolute ) || !matchesFilePattern( absolute ) )
+        {
+            return false;
+        }
+        for ( File directory = absolute.getParentFile(); directory != null; directory = directory.getParentFile() )
+        {
+            if ( inputs.contains( directory ) )
+            {
+                return recursive || directory.equals( absolute.getParentFile() );
+            }
+            if ( isExcluded( directory ) )
+            {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private boolean matchesFilePattern( File file )
+    {
+        if ( filePatterns.isEmpty() )
+        {
+            return true;
+        }
+        String name = file.getName();
+        for ( Pattern pattern : filePatterns )
+        {
+            if ( pattern.matcher( name ).matches() )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check the given file or directory against the EXCLUDE, EXCLUDE_PATTERNS and EXCLUDE_SYMLINKS items. Excluded
+     * directories are not visited at all.
+     *
+     * @param file The file or directory to check.
+     * @return true if the file must not be taken into account.
+     */
+    boolean isExcluded( File file )
+    {
+        File absolute = file.getAbsoluteFile();
+        if ( excludes.contains( absolute ) )
+        {
+            return true;
+        }
+        String path = absolute.getPath();
+        for ( Pattern pattern : excludePatterns )
+        {
+            if ( pattern.matcher( path ).matches() )
+            {
+                return true;
+            }
+        }
+        return excludeSymlinks && Files.isSymbolicLink( absolute.toPath() );
+    }
+
+    /**
+     * Split a doxygen list value into its items. Items are separated by white spaces; double quotes can be used to
+     * give items which contain spaces.
+     *
+     * @param value The value of the configuration item.
+     * @return The list of items (never null).
+     */
+    public static List<String> splitList( String value )
+    {
+        List<String> result = new ArrayList<String>();
+        if ( value == null )
+        {
+            return result;
+        }
+
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for ( int i = 0; i < value.length(); i++ )
+        {
+            char c = value.charAt( i );
+            if ( c == '"' )
+            {
+                quoted = !quoted;
+            }
+            else if ( !quoted && Character.isWhitespace( c ) )
+            {
+                if ( current.length() > 0 )
+                {
+                    result.add( current.toString() );
+                    current.setLength( 0 );
+                }
+            }
+            else
+            {
+                current.append( c );
+            }
+        }
+        if ( current.length() > 0 )
+        {
+            result.add( current.toString() );
+        }
+        return result;
+    }
+
+    /**
+     * Convert a doxygen wildcard pattern (<code>*</code> and <code>?</code>) into a regular expression.
+     *
+     * @param wildcard The wildcard pattern.
+     * @return The compiled pattern.
+     */
+    public static Pattern toPattern( String wildcard )
+    {
+        StringBuilder regex = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for ( int i = 0; i < wildcard.length(); i++ )
+        {
+            char c = wildcard.charAt( i );
+            if ( c == '*' || c == '?' )
+            {
+                if ( literal.length() > 0 )
+                {
+                    regex.append( Pattern.quote( literal.toString() ) );
+                    literal.setLength( 0 );
+                }
+                regex.append( c == '*' ? ".*" : "." );
+            }
+            else
+            {
+                literal.append( c );
+            }
+        }
+        if ( literal.length() > 0 )
+        {
+            regex.append( Pattern.quote( literal.toString() ) );
+        }
+        return Pattern.compile( regex.toString() );
+    }
+
+    private static List<Pattern> toPatterns( List<String> wildcards )
+    {
+        List<Pattern> result = new ArrayList<Pattern>( wildcards.size() );
+        for ( String wildcard : wildcards )
+        {
+            result.add( toPattern( wildcard ) );
+        }
+        return result;
+    }
+
+    private static List<File> toFiles( File basedir, List<String> names )
+    {
+        List<File> result = new ArrayList<File>( names.size() );
+        for ( String name : names )
+        {
+            File file = new File( name );
+            if ( !file.isAbsolute() && basedir != null )
+            {
+                file = new File( basedir, name );
+            }
+            result.add( file.getAbsoluteFile().toPath().normalize().toFile() );
+        }
+        return result;
+    }
+}
@@ -0,0 +1,202 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+/**
+ * A member (function, variable, typedef, enum, define etc.) of a compound of the XML output of doxygen.
+ *
+ * @author agent
+ */
+public class DoxygenMember
+{
+    private final DoxygenCompound compound;
+
+    private String id;
+
+    private String kind;
+
+    private String name;
+
+    private String protection;
+
+    private boolean staticMember;
+
+    private String type;
+
+    private String definition;
+
+    private String argsString;
+
+    private String briefDescription;
+
+    private String location;
+
+    private int line;
+
+    DoxygenMember( DoxygenCompound compound )
+    {
+        this.compound = compound;
+    }
+
+    /**
+     * @return The compound the member has been read from.
+     */
+    public DoxygenCompound getCompound()
+    {
+        return compound;
+    }
+
+    public String getId()
+    {
+        return id;
+    }
+
+    void setId( String id )
+    {
+        this.id = id;
+    }
+
+    /**
+     * @return The kind of the member (for example <code>function</code> or <code>variable</code>).
+     */
+    public String getKind()
+    {
+        return kind;
+    }
+
+    void setKind( String kind )
+    {
+        this.kind = kind;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    void setName( String name )
+    {
+        this.name = name;
+    }
+
+    /**
+     * @return The protection (<code>public</code>, <code>protected</code>, <code>private</code> or
+     *         <code>package</code>).
+     */
+    public String getProtection()
+    {
+        return protection;
+    }
+
+    void setProtection( String protection )
+    {
+        this.protection = protection;
+    }
+
+    public boolean isStatic()
+    {
+        return staticMember;
+    }
+
+    void setStatic( boolean staticMember )
+    {
+        this.staticMember = staticMember;
+    }
+
+    public String getType()
+    {
+        return type;
+    }
+
+    void setType( String type )
+    {
+        this.type = type;
+    }
+
+    /**
+     * @return The complete declaration without the arguments (for example <code>int Foo::bar</code>).
+     */
+    public String getDefinition()
+    {
+        return definition;
+    }
+
+    void setDefinition( String definition )
+    {
+        this.definition = definition;
+    }
+
+    /**
+     * @return The arguments including the qualifiers (for example <code>(int x) const</code>).
+     */
+    public String getArgsString()
+    {
+        return argsString;
+    }
+
+    void setArgsString( String argsString )
+    {
+        this.argsString = argsString;
+    }
+
+    public String getBriefDescription()
+    {
+        return briefDescription;
+    }
+
+    void setBriefDescription( String briefDescription )
+    {
+        this.briefDescription = briefDescription;
+    }
+
+    /**
+     * @return The source file of the declaration.
+     */
+    public String getLocation()
+    {
+        return location;
+    }
+
+    void setLocation( String location )
+    {
+        this.location = location;
+    }
+
+    /**
+     * @return The line of the declaration or 0 if it is not known.
+     */
+    public int getLine()
+    {
+        return line;
+    }
+
+    void setLine( int line )
+    {
+        this.line = line;
+    }
+
+    @Override
+    public String toString()
+    {
+        return kind + " " + ( definition != null ? definition : name ) + ( argsString != null ? argsString : "" );
+    }
+}
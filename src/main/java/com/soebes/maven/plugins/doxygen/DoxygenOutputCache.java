@@ -0,0 +1,359 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.IOUtil;
+
+/**
+ * A local cache of generated documentation. The key of an entry is calculated from the doxygen configuration (without
+ * the OUTPUT_DIRECTORY), the doxygen version and the contents of the input files and of the tag files of other
+ * projects. The generated output directories and files (like the generated tag file) are stored as a zip archive
+ * named by the key. If the cache exceeds its maximum size the least recently used entries are removed.
+ *
+ * @author agent
+ */
+public class DoxygenOutputCache
+{
+    private static final String SUFFIX = ".zip";
+
+    private final File directory;
+
+    private final long maxSize;
+
+    /**
+     * @param directory The directory which contains the cached archives.
+     * @param maxSize The maximum size of all archives in bytes.
+     */
+    public DoxygenOutputCache( File directory, long maxSize )
+    {
+        this.directory = directory;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Calculate the key of the documentation created by the given configuration. Absolute paths of the base
+     * directory and the output directory are replaced by placeholders so the same sources result in the same key
+     * independent of the location of the working copy.
+     *
+     * @param config The doxygen configuration file.
+     * @param version The doxygen version.
+     * @param options The options which change the output but are not part of the configuration file.
+     * @param inputs The input files.
+     * @param tagfiles The TAGFILES which are read by doxygen. Their contents change the links of the output.
+     * @param basedir The base directory of the project.
+     * @param outputDirectory The output directory.
+     * @return The key.
+     * @throws IOException in case of failures during reading the files.
+     */
+    public String createKey( File config, String version, String options, List<File> inputs, List<File> tagfiles,
+                             File basedir, File outputDirectory )
+        throws IOException
+    {
+        String basedirPath = basedir.getAbsolutePath();
+        String outputPath = outputDirectory.getAbsolutePath();
+
+        DoxygenFingerprint fingerprint = new DoxygenFingerprint();
+        BufferedReader reader = new BufferedReader( new InputStreamReader( new FileInputStream( config ), "UTF-8" ) );
+        try
+        {
+            String line;
+            while ( ( line = reader.readLine() ) != null )
+            {
+                if ( line.startsWith( "#" ) || line.startsWith( DoxygenParameters.OUTPUT_DIRECTORY.name() ) )
+                {
+                    continue;
+                }
+                fingerprint.add( normalize( line, basedirPath, outputPath ) );
+            }
+        }
+        finally
+        {
+            IOUtil.close( reader );
+        }
+
+        fingerprint.add( version );
+        fingerprint.add( options );
+        for ( File input : inputs )
+        {
+            fingerprint.add( normalize( input.getAbsolutePath(), basedirPath, outputPath ) );
+            fingerprint.addContents( input );
+        }
+        for ( File tagfile : tagfiles )
+        {
+            // The path is already part of the TAGFILES item of the configuration.
+            fingerprint.addContents( tagfile );
+        }
+        return fingerprint.getValue();
+    }
+
+    private static String normalize( String value, String basedir, String outputDirectory )
+    {
+        // The output directory is usually located within the base directory.
+        return value.replace( outputDirectory, "${outputDirectory}" ).replace( basedir, "${basedir}" );
+    }
+
+    /**
+     * Restore the cached output directories. The entry is extracted into a temporary directory first, so the existing
+     * output is only replaced if the extraction succeeded.
+     *
+     * @param key The key of the entry.
+     * @param baseDirectory The directory the output directories are relative to.
+     * @param outputs The output directories and files which will be replaced by the cached ones.
+     * @return true if the entry exists and has been restored.
+     * @throws IOException in case of failures during extraction.
+     */
+    public boolean restore( String key, File baseDirectory, List<File> outputs )
+        throws IOException
+    {
+        File archive = new File( directory, key + SUFFIX );
+        if ( !archive.isFile() )
+        {
+            return false;
+        }
+
+        baseDirectory.mkdirs();
+        File temporary = File.createTempFile( ".doxygen-cache", ".tmp", baseDirectory );
+        try
+        {
+            temporary.delete();
+            extract( archive, temporary );
+
+            String basePath = baseDirectory.getAbsolutePath() + File.separator;
+            for ( File output : outputs )
+            {
+                String path = output.getAbsolutePath();
+                if ( !path.startsWith( basePath ) )
+                {
+                    throw new IOException( "The output " + output + " is not located within " + basePath );
+                }
+                File extracted = new File( temporary, path.substring( basePath.length() ) );
+                FileUtils.forceDelete( output );
+                if ( extracted.exists() )
+                {
+                    output.getParentFile().mkdirs();
+                    if ( !extracted.renameTo( output ) )
+                    {
+                        throw new IOException( "Could not move " + extracted + " to " + output );
+                    }
+                }
+            }
+        }
+        finally
+        {
+            FileUtils.forceDelete( temporary );
+        }
+
+        // Mark the entry as recently used.
+        archive.setLastModified( System.currentTimeMillis() );
+        return true;
+    }
+
+    private static void extract( File archive, File targetDirectory )
+        throws IOException
+    {
+        targetDirectory.mkdirs();
+        String basePath = targetDirectory.getCanonicalPath() + File.separator;
+        ZipInputStream in = new ZipInputStream( new FileInputStream( archive ) );
+        try
+        {
+            ZipEntry entry;
+            while ( ( entry = in.getNextEntry() ) != null )
+            {
+                File target = new File( targetDirectory, entry.getName() );
+                if ( !target.getCanonicalPath().startsWith( basePath ) )
+                {
+                    throw new IOException( "Invalid entry '" + entry.getName() + "' in " + archive );
+                }
+                if ( entry.isDirectory() )
+                {
+                    target.mkdirs();
+                    continue;
+                }
+                target.getParentFile().mkdirs();
+                OutputStream out = new FileOutputStream( target );
+                try
+                {
+                    IOUtil.copy( in, out );
+                }
+                finally
+                {
+                    IOUtil.close( out );
+                }
+            }
+        }
+        finally
+        {
+            IOUtil.close( in );
+        }
+    }
+
+    /**
+     * Store the output directories and files in the cache and remove the least recently used entries if the cache
+     * gets too large.
+     *
+     * @param key The key of the entry.
+     * @param baseDirectory The directory the output directories are relative to.
+     * @param outputDirectories The output directories and files to store.
+     * @throws IOException in case of failures during writing the archive.
+     */
+    public void store( String key, File baseDirectory, List<File> outputDirectories )
+        throws IOException
+    {
+        directory.mkdirs();
+        File archive = new File( directory, key + SUFFIX );
+        // Write to a temporary file first so concurrent builds never see a partial archive.
+        File temporary = File.createTempFile( key, ".tmp", directory );
+        try
+        {
+            ZipOutputStream out = new ZipOutputStream( new FileOutputStream( temporary ) );
+            try
+            {
+                String basePath = baseDirectory.getAbsolutePath() + File.separator;
+                for ( File outputDirectory : outputDirectories )
+                {
+                    addToArchive( out, basePath, outputDirectory );
+                }
+            }
+            finally
+            {
+                IOUtil.close( out );
+            }
+            archive.delete();
+            if ( !temporary.renameTo( archive ) )
+            {
+                throw new IOException( "Could not create cache entry " + archive );
+            }
+        }
+        finally
+        {
+            temporary.delete();
+        }
+
+        evict();
+    }
+
+    private void addToArchive( ZipOutputStream out, String basePath, File file )
+        throws IOException
+    {
+        String path = file.getAbsolutePath();
+        if ( !path.startsWith( basePath ) )
+        {
+            throw new IOException( "The output " + file + " is not located within " + basePath );
+        }
+        String name = path.substring( basePath.length() ).replace( File.separatorChar, '/' );
+
+        if ( file.isDirectory() )
+        {
+            out.putNextEntry( new ZipEntry( name + "/" ) );
+            out.closeEntry();
+            File[] children = file.listFiles();
+            if ( children != null )
+            {
+                for ( File child : children )
+                {
+                    addToArchive( out, basePath, child );
+                }
+            }
+        }
+        else if ( file.isFile() )
+        {
+            out.putNextEntry( new ZipEntry( name ) );
+            InputStream in = new FileInputStream( file );
+            try
+            {
+                IOUtil.copy( in, out );
+            }
+            finally
+            {
+                IOUtil.close( in );
+            }
+            out.closeEntry();
+        }
+    }
+
+    /**
+     * Remove the least recently used entries until the cache does not exceed its maximum size anymore.
+     */
+    void evict()
+    {
+        File[] archives = directory.listFiles( new FilenameFilter()
+        {
+            public boolean accept( File dir, String name )
+            {
+                return name.endsWith( SUFFIX );
+            }
+        } );
+        if ( archives == null )
+        {
+            return;
+        }
+
+        long size = 0;
+        for ( File archive : archives )
+        {
+            size += archive.length();
+        }
+        if ( size <= maxSize )
+        {
+            return;
+        }
+
+        Arrays.sort( archives, new Comparator<File>()
+        {
+            public int compare( File o1, File o2 )
+            {
+                long l1 = o1.lastModified();
+                long l2 = o2.lastModified();
+                return l1 < l2 ? -1 : ( l1 == l2 ? 0 : 1 );
+            }
+        } );
+        for ( File archive : archives )
+        {
+            if ( size <= maxSize )
+            {
+                break;
+            }
+            long length = archive.length();
+            if ( archive.delete() )
+            {
+                size -= length;
+            }
+        }
+    }
+}
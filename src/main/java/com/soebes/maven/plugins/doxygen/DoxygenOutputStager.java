@@ -0,0 +1,286 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.IOUtil;
+
+/**
+ * Lets doxygen generate into a staging directory and replaces the published output only after doxygen finished
+ * successfully. Files which did not change compared to the published output are replaced by hard links to the
+ * published files, so unchanged files keep their identity (and modification time) and take no additional disk space.
+ * The precompressed sibling of an unchanged file is linked as well, so it does not have to be compressed again.
+ * Each output directory is replaced by renaming, so a failed run never leaves half written output behind.
+ *
+ * @author agent
+ */
+public class DoxygenOutputStager
+{
+    private final File outputDirectory;
+
+    private final List<String> names;
+
+    private final File stagingDirectory;
+
+    private int linked;
+
+    /**
+     * @param outputDirectory The directory which contains the published output (OUTPUT_DIRECTORY).
+     * @param names The names of the output directories relative to the output directory (for example
+     *            <code>html</code>).
+     */
+    public DoxygenOutputStager( File outputDirectory, List<String> names )
+    {
+        this.outputDirectory = outputDirectory;
+        this.names = names;
+        this.stagingDirectory = new File( outputDirectory, ".doxygen-staging" );
+    }
+
+    /**
+     * Create an empty staging directory. The rest of an earlier failed run is removed.
+     *
+     * @return The directory which has to be used as OUTPUT_DIRECTORY.
+     * @throws IOException in case of failures.
+     */
+    public File createStagingDirectory()
+        throws IOException
+    {
+        FileUtils.deleteDirectory( stagingDirectory );
+        if ( !stagingDirectory.mkdirs() )
+        {
+            throw new IOException( "Could not create '" + stagingDirectory.getAbsolutePath() + "'." );
+        }
+        return stagingDirectory;
+    }
+
+    /**
+     * Replace the staged files which did not change by links to the published files. This is called before the
+     * staged output is post processed, so the post processing can skip the files which are up to date.
+     *
+     * @throws IOException in case of failures.
+     */
+    public void linkUnchangedFiles()
+        throws IOException
+    {
+        for ( String name : names )
+        {
+            File staged = new File( stagingDirectory, name );
+            File published = new File( outputDirectory, name );
+            if ( staged.isDirectory() && published.isDirectory() )
+            {
+                linkUnchangedFiles( staged.toPath(), published.toPath() );
+            }
+        }
+    }
+
+    /**
+     * Replace the published output by the staged one.
+     *
+     * @throws IOException in case of failures.
+     */
+    public void commit()
+        throws IOException
+    {
+        linkUnchangedFiles();
+        for ( String name : names )
+        {
+            File staged = new File( stagingDirectory, name );
+            if ( !staged.exists() )
+            {
+                continue;
+            }
+            replace( staged, new File( outputDirectory, name ) );
+        }
+        discard();
+    }
+
+    /**
+     * Remove the staging directory without touching the published output.
+     */
+    public void discard()
+    {
+        try
+        {
+            FileUtils.deleteDirectory( stagingDirectory );
+        }
+        catch ( IOException e )
+        {
+            // Removed by the next run.
+        }
+    }
+
+    /**
+     * @return The number of files which have been replaced by a link to the published file.
+     */
+    public int getLinked()
+    {
+        return linked;
+    }
+
+    private void linkUnchangedFiles( final Path staged, final Path published )
+        throws IOException
+    {
+        Files.walkFileTree( staged, new SimpleFileVisitor<Path>()
+        {
+            @Override
+            public FileVisitResult visitFile( Path file, BasicFileAttributes attributes )
+                throws IOException
+            {
+                Path existing = published.resolve( staged.relativize( file ) );
+                if ( Files.isRegularFile( existing ) && Files.size( existing ) == attributes.size()
+                    && !Files.isSameFile( file, existing ) && sameContent( file, existing ) )
+                {
+                    Path temp = file.resolveSibling( file.getFileName() + ".link" );
+                    try
+                    {
+                        Files.createLink( temp, existing );
+                        Files.move( temp, file, StandardCopyOption.REPLACE_EXISTING );
+                        linked++;
+                        linkCompressed( file, existing );
+                    }
+                    catch ( IOException e )
+                    {
+                        // Hard links are not supported (for example by the file system), keep the new file.
+                        Files.deleteIfExists( temp );
+                    }
+                    catch ( UnsupportedOperationException e )
+                    {
+                        Files.deleteIfExists( temp );
+                    }
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        } );
+    }
+
+    /**
+     * Link the precompressed sibling of the published file if the staged file has none yet. The precompressor checks
+     * the modification times, so an outdated sibling is compressed again.
+     */
+    private static void linkCompressed( Path file, Path existing )
+        throws IOException
+    {
+        Path compressed = existing.resolveSibling( existing.getFileName() + DoxygenPrecompressor.SUFFIX );
+        Path target = file.resolveSibling( file.getFileName() + DoxygenPrecompressor.SUFFIX );
+        if ( Files.isRegularFile( compressed ) && !Files.exists( target ) )
+        {
+            Files.createLink( target, compressed );
+        }
+    }
+
+    /**
+     * Compares the content of two files of the same size chunk by chunk, so only two buffers are needed and the
+     * comparison stops at the first difference.
+     */
+    private static boolean sameContent( Path first, Path second )
+        throws IOException
+    {
+        byte[] firstBuffer = new byte[8192];
+        byte[] secondBuffer = new byte[8192];
+        InputStream firstInput = Files.newInputStream( first );
+        InputStream secondInput = null;
+        try
+        {
+            secondInput = Files.newInputStream( second );
+            while ( true )
+            {
+                int count = read( firstInput, firstBuffer );
+                if ( count != read( secondInput, secondBuffer ) )
+                {
+                    return false;
+                }
+                if ( count == 0 )
+                {
+                    return true;
+                }
+                for ( int i = 0; i < count; i++ )
+                {
+                    if ( firstBuffer[i] != secondBuffer[i] )
+                    {
+                        return false;
+                    }
+                }
+            }
+        }
+        finally
+        {
+            IOUtil.close( firstInput );
+            IOUtil.close( secondInput );
+        }
+    }
+
+    /**
+     * @return The number of bytes read, less than the buffer size only at the end of the stream.
+     */
+    private static int read( InputStream input, byte[] buffer )
+        throws IOException
+    {
+        int count = 0;
+        while ( count < buffer.length )
+        {
+            int read = input.read( buffer, count, buffer.length - count );
+            if ( read < 0 )
+            {
+                break;
+            }
+            count += read;
+        }
+        return count;
+    }
+
+    private void replace( File staged, File published )
+        throws IOException
+    {
+        File old = new File( stagingDirectory, published.getName() + ".old" );
+        if ( published.exists() )
+        {
+            move( published.toPath(), old.toPath() );
+        }
+        move( staged.toPath(), published.toPath() );
+        FileUtils.deleteDirectory( old );
+    }
+
+    private static void move( Path source, Path target )
+        throws IOException
+    {
+        try
+        {
+            Files.move( source, target, StandardCopyOption.ATOMIC_MOVE );
+        }
+        catch ( AtomicMoveNotSupportedException e )
+        {
+            Files.move( source, target );
+        }
+    }
+}
@@ -21,6 +21,9 @@
  */
 package com.soebes.maven.plugins.doxygen;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
 public enum DoxygenParameters {
 	DOXYFILE_ENCODING(
 			"# This tag specifies the encoding used for all characters in the config file \n"
@@ -302,6 +305,7 @@ public enum DoxygenParameters {
 		DoxygenParameterType.BOOLEAN,
 		"false"
 	),
+	@DoxygenVersionRange(until = "1.8.3")
 	SYMBOL_CACHE_SIZE(
 			"# The SYMBOL_CACHE_SIZE determines the size of the internal cache use to \n"
 		+	"# determine which symbols to keep in memory and which to flush to disk.\n"
@@ -319,6 +323,19 @@ public enum DoxygenParameters {
 		DoxygenParameterType.INTEGER,
 		"0"
 	),
+	@DoxygenVersionRange(since = "1.8.3")
+	LOOKUP_CACHE_SIZE(
+			"# The size of the symbol lookup cache can be set using LOOKUP_CACHE_SIZE. This \n"
+		+	"# cache is used to resolve symbols given their name and scope. Since this can be \n"
+		+	"# an expensive process and often the same symbol appears multiple times in the \n"
+		+	"# code, doxygen keeps a cache of pre-resolved symbols. If the cache is too small \n"
+		+	"# doxygen will become slower. If the cache is too large, memory is wasted. The \n"
+		+	"# cache size is given by this formula: 2^(16+LOOKUP_CACHE_SIZE). The valid range \n"
+		+	"# is 0..9, the default is 0, corresponding to a cache size of 2^16 = 65536 \n"
+		+	"# symbols.\n",
+		DoxygenParameterType.INTEGER,
+		"0"
+	),
 	EXTRACT_ALL(
 			"# If the EXTRACT_ALL tag is set to YES doxygen will assume all entities in \n"
 		+	"# documentation are documented, even if no documentation was available. \n"
@@ -519,6 +536,7 @@ public enum DoxygenParameters {
 		DoxygenParameterType.BOOLEAN,
 		"true"
 	),
+	@DoxygenVersionRange(until = "1.8.0")
 	SHOW_DIRECTORIES(
 			"# If the sources in your project are distributed over multiple directories \n"
 		+	"# then setting the SHOW_DIRECTORIES tag to YES will show the directory hierarchy \n"
@@ -864,6 +882,7 @@ public enum DoxygenParameters {
 		DoxygenParameterType.STRING,
 		null
 	),
+	@DoxygenVersionRange(until = "1.8.0")
 	HTML_ALIGN_MEMBERS(
 			"# If the HTML_ALIGN_MEMBERS tag is set to YES, the members of classes, \n"
 		+	"# files or namespaces will be aligned in HTML using tables. If set to \n"
@@ -1428,6 +1447,14 @@ public enum DoxygenParameters {
 		DoxygenParameterType.BOOLEAN,
 		"true"
 	),
+	@DoxygenVersionRange(since = "1.7.0")
+	DOT_NUM_THREADS(
+			"# The DOT_NUM_THREADS specifies the number of dot invocations doxygen is \n"
+		+	"# allowed to run in parallel. When set to 0 (the default) doxygen will \n"
+		+	"# base this on the number of processors available in the system.\n",
+		DoxygenParameterType.INTEGER,
+		"0"
+	),
 	DOT_FONTNAME(
 			"# By default doxygen will write a font called FreeSans.ttf to the output \n"
 		+	"# directory and reference it in all dot files that doxygen generates. This \n"
@@ -1621,11 +1648,33 @@ public enum DoxygenParameters {
 	private String description;
 	private DoxygenParameterType type;
 	private String defaultValue;
+	private final byte[] template;
+	private final int assignmentOffset;
+	private DoxygenVersion since;
+	private DoxygenVersion until;
+	private boolean rangeResolved;
 
 	private DoxygenParameters(String description, DoxygenParameterType type, String defaultValue) {
 		this.description = description;
 		this.type = type;
 		this.defaultValue = defaultValue;
+		this.template = createTemplate(description, name());
+		this.assignmentOffset = (description + System.getProperty("line.separator")).getBytes(Charset.forName("UTF-8")).length;
+	}
+
+	/**
+	 * The template contains the description followed by the name padded
+	 * to 22 characters and the assignment.
+	 */
+	private static byte[] createTemplate(String description, String name) {
+		StringBuilder result = new StringBuilder(description);
+		result.append(System.getProperty("line.separator"));
+		result.append(name);
+		for (int i = name.length(); i < 22; i++) {
+			result.append(' ');
+		}
+		result.append(" = ");
+		return result.toString().getBytes(Charset.forName("UTF-8"));
 	}
 
 	public String getDescription() {
@@ -1639,4 +1688,59 @@ public enum DoxygenParameters {
 	public String getDefaultValue() {
 		return defaultValue;
 	}
+
+	/**
+	 * Check the {@link DoxygenVersionRange} of the item.
+	 *
+	 * @param version The doxygen version. <code>null</code> means unknown.
+	 * @return true if the given version knows this item or if the version
+	 *         is unknown.
+	 */
+	public boolean isSupportedBy(DoxygenVersion version) {
+		if (version == null) {
+			return true;
+		}
+		resolveRange();
+		return (since == null || version.compareTo(since) >= 0)
+			&& (until == null || version.compareTo(until) < 0);
+	}
+
+	private synchronized void resolveRange() {
+		if (rangeResolved) {
+			return;
+		}
+		try {
+			DoxygenVersionRange range = DoxygenParameters.class.getField(name())
+				.getAnnotation(DoxygenVersionRange.class);
+			if (range != null) {
+				since = DoxygenVersion.parse(range.since());
+				until = DoxygenVersion.parse(range.until());
+			}
+		} catch (NoSuchFieldException e) {
+			// Every constant is a field of the enum.
+			throw new IllegalStateException(e);
+		}
+		rangeResolved = true;
+	}
+
+	/**
+	 * The pre-rendered part of the configuration item which does not
+	 * depend on the value: The description, the padded name and the
+	 * assignment (UTF-8 encoded).
+	 *
+	 * @return A read-only view of the template.
+	 */
+	public ByteBuffer getTemplate() {
+		return ByteBuffer.wrap(template).asReadOnlyBuffer();
+	}
+
+	/**
+	 * The part of the template without the description: The name padded
+	 * to 22 characters and the assignment (UTF-8 encoded).
+	 *
+	 * @return A read-only view of the assignment.
+	 */
+	public ByteBuffer getAssignment() {
+		return ByteBuffer.wrap(template, assignmentOffset, template.length - assignmentOffset).asReadOnlyBuffer();
+	}
 }
\ No newline at end of file
@@ -0,0 +1,101 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+/**
+ * The phases of a doxygen run as they can be recognized by the progress messages doxygen prints on stdout. The phases
+ * are listed in the order doxygen runs them.
+ *
+ * @author agent
+ */
+public enum DoxygenPhase
+{
+    /**
+     * Searching the input files and reading the tag files.
+     */
+    READING( "reading", "Searching for ", "Reading and parsing tag files" ),
+
+    /**
+     * Preprocessing and parsing the input files.
+     */
+    PARSING( "parsing", "Parsing files", "Preprocessing ", "Parsing file " ),
+
+    /**
+     * Building the model (groups, class hierarchy, member relations etc.).
+     */
+    ANALYSING( "analysing", "Building group list" ),
+
+    /**
+     * Writing the documentation.
+     */
+    GENERATING( "generating", "Generating style sheet", "Generating search ind", "Generating example documentation",
+                "Generating file sources", "Generating file documentation", "Generating page documentation",
+                "Generating class documentation", "Generating docs for", "Generating code for file" ),
+
+    /**
+     * Calling dot for the graphs.
+     */
+    DOT( "dot", "Generating dot graphs", "Running dot" ),
+
+    /**
+     * Writing the indices, the XML output and the tag file.
+     */
+    FINISHING( "finishing", "Generating XML output", "finalizing index lists", "writing tag file",
+               "lookup cache used", "finished..." );
+
+    private final String name;
+
+    private final String[] markers;
+
+    private DoxygenPhase( String name, String... markers )
+    {
+        this.name = name;
+        this.markers = markers;
+    }
+
+    /**
+     * @return The name of the phase used in the timings.
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * @param line A line doxygen printed on stdout.
+     * @return The phase the line belongs to or <code>null</code> if the line is no marker of a phase.
+     */
+    public static DoxygenPhase classify( String line )
+    {
+        for ( DoxygenPhase phase : values() )
+        {
+            for ( String marker : phase.markers )
+            {
+                if ( line.startsWith( marker ) )
+                {
+                    return phase;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import org.codehaus.plexus.util.cli.StreamConsumer;
+
+/**
+ * Passes the stdout lines of doxygen to another consumer and records the time of the phases recognized by
+ * {@link DoxygenPhase#classify(String)}. Phases are only entered in their natural order, so messages which appear in
+ * several phases do not switch back.
+ *
+ * @author agent
+ */
+public class DoxygenPhaseConsumer
+    implements StreamConsumer
+{
+    private final StreamConsumer delegate;
+
+    private final DoxygenTimings timings;
+
+    private DoxygenPhase phase;
+
+    private long phaseStart;
+
+    /**
+     * @param delegate The consumer which gets all lines.
+     * @param timings The timings the phases are added to (as <code>doxygen.&lt;phase&gt;</code>).
+     */
+    public DoxygenPhaseConsumer( StreamConsumer delegate, DoxygenTimings timings )
+    {
+        this.delegate = delegate;
+        this.timings = timings;
+        this.phase = DoxygenPhase.READING;
+        this.phaseStart = System.nanoTime();
+    }
+
+    public void consumeLine( String line )
+    {
+        DoxygenPhase next = DoxygenPhase.classify( line );
+        if ( next != null )
+        {
+            enter( next );
+        }
+        delegate.consumeLine( line );
+    }
+
+    /**
+     * @param next The phase which has been recognized.
+     */
+    protected synchronized void enter( DoxygenPhase next )
+    {
+        if ( next.compareTo( phase ) > 0 )
+        {
+            long now = System.nanoTime();
+            timings.add( "doxygen." + phase.getName(), now - phaseStart );
+            phase = next;
+            phaseStart = now;
+        }
+    }
+
+    /**
+     * @return The phase doxygen is currently in.
+     */
+    public synchronized DoxygenPhase getPhase()
+    {
+        return phase;
+    }
+
+    /**
+     * Record the time of the last phase. Has to be called when doxygen has finished.
+     */
+    public synchronized void finish()
+    {
+        timings.add( "doxygen." + phase.getName(), System.nanoTime() - phaseStart );
+        phaseStart = System.nanoTime();
+    }
+}
@@ -0,0 +1,285 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import org.codehaus.plexus.util.IOUtil;
+
+/**
+ * Writes a gzip compressed sibling (<code>index.html.gz</code>) for every file of the generated documentation which
+ * has one of the given extensions, so a web server can deliver them directly (for example nginx with
+ * <code>gzip_static</code>). The directory tree is walked in parallel by a fork/join pool. Files whose compressed
+ * sibling is already newer than the file itself are skipped.
+ *
+ * @author agent
+ */
+public class DoxygenPrecompressor
+{
+    static final String SUFFIX = ".gz";
+
+    private final Set<String> extensions;
+
+    private final int parallelism;
+
+    /**
+     * @param extensions The comma separated list of file extensions (for example <code>html,js,css</code>).
+     * @param parallelism The number of threads to use.
+     */
+    public DoxygenPrecompressor( String extensions, int parallelism )
+    {
+        this.extensions = new HashSet<String>();
+        for ( String extension : extensions.split( "[,\\s]+" ) )
+        {
+            if ( extension.startsWith( "." ) )
+            {
+                extension = extension.substring( 1 );
+            }
+            if ( extension.length() > 0 )
+            {
+                this.extensions.add( extension.toLowerCase( Locale.ENGLISH ) );
+            }
+        }
+        this.parallelism = Math.max( 1, parallelism );
+    }
+
+    /**
+     * Compress all matching files below the given directory.
+     *
+     * @param directory The root of the generated documentation.
+     * @return The number of files which have been compressed.
+     * @throws IOException in case of failures.
+     */
+    public int compress( File directory )
+        throws IOException
+    {
+        if ( !directory.isDirectory() )
+        {
+            return 0;
+        }
+        ForkJoinPool pool = new ForkJoinPool( parallelism );
+        try
+        {
+            return pool.invoke( new DirectoryTask( directory ) ).intValue();
+        }
+        catch ( UncheckedIOException e )
+        {
+            throw e.getCause();
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    boolean isCandidate( File file )
+    {
+        String name = file.getName();
+        int dot = name.lastIndexOf( '.' );
+        return dot > 0 && extensions.contains( name.substring( dot + 1 ).toLowerCase( Locale.ENGLISH ) );
+    }
+
+    /**
+     * @param file The file to compress.
+     * @return true if the file has been compressed, false if the compressed sibling was up to date.
+     * @throws IOException in case of failures.
+     */
+    boolean compressFile( File file )
+        throws IOException
+    {
+        File compressed = new File( file.getPath() + SUFFIX );
+        if ( compressed.isFile() && compressed.lastModified() >= file.lastModified() )
+        {
+            return false;
+        }
+
+        File temp = new File( file.getPath() + SUFFIX + ".tmp" );
+        InputStream in = new FileInputStream( file );
+        OutputStream out = null;
+        try
+        {
+            out = new GZIPOutputStream( new FileOutputStream( temp ), 8192 )
+            {
+                {
+                    def.setLevel( Deflater.BEST_COMPRESSION );
+                }
+            };
+            IOUtil.copy( in, out, 8192 );
+            out.close();
+            out = null;
+        }
+        finally
+        {
+            IOUtil.close( in );
+            IOUtil.close( out );
+        }
+
+        try
+        {
+            Files.move( temp.toPath(), compressed.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE );
+        }
+        catch ( AtomicMoveNotSupportedException e )
+        {
+            Files.move( temp.toPath(), compressed.toPath(), StandardCopyOption.REPLACE_EXISTING );
+        }
+        return true;
+    }
+
+    private static class UncheckedIOException
+        extends RuntimeException
+    {
+        private static final long serialVersionUID = 1L;
+
+        UncheckedIOException( IOException cause )
+        {
+            super( cause );
+        }
+
+        @Override
+        public synchronized IOException getCause()
+        {
+            return (IOException) super.getCause();
+        }
+    }
+
+    /**
+     * Forks a task for each sub directory and for the files of the directory.
+     */
+    private class DirectoryTask
+        extends RecursiveTask<Integer>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final File directory;
+
+        DirectoryTask( File directory )
+        {
+            this.directory = directory;
+        }
+
+        @Override
+        protected Integer compute()
+        {
+            File[] entries = directory.listFiles();
+            if ( entries == null )
+            {
+                return Integer.valueOf( 0 );
+            }
+
+            List<File> files = new ArrayList<File>();
+            List<RecursiveTask<Integer>> subTasks = new ArrayList<RecursiveTask<Integer>>();
+            for ( File entry : entries )
+            {
+                if ( entry.isDirectory() )
+                {
+                    subTasks.add( new DirectoryTask( entry ) );
+                }
+                else if ( isCandidate( entry ) )
+                {
+                    files.add( entry );
+                }
+            }
+            subTasks.add( new FilesTask( files, 0, files.size() ) );
+            invokeAll( subTasks );
+
+            int count = 0;
+            for ( RecursiveTask<Integer> task : subTasks )
+            {
+                count += task.join().intValue();
+            }
+            return Integer.valueOf( count );
+        }
+    }
+
+    /**
+     * Compresses a range of files. Doxygen writes most of the files into a single directory, so the range is split
+     * until it is small enough.
+     */
+    private class FilesTask
+        extends RecursiveTask<Integer>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private static final int THRESHOLD = 32;
+
+        private final List<File> files;
+
+        private final int from;
+
+        private final int to;
+
+        FilesTask( List<File> files, int from, int to )
+        {
+            this.files = files;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Integer compute()
+        {
+            if ( to - from > THRESHOLD )
+            {
+                int middle = ( from + to ) >>> 1;
+                FilesTask first = new FilesTask( files, from, middle );
+                FilesTask second = new FilesTask( files, middle, to );
+                first.fork();
+                return Integer.valueOf( second.compute().intValue() + first.join().intValue() );
+            }
+
+            int count = 0;
+            try
+            {
+                for ( int i = from; i < to; i++ )
+                {
+                    if ( compressFile( files.get( i ) ) )
+                    {
+                        count++;
+                    }
+                }
+            }
+            catch ( IOException e )
+            {
+                throw new UncheckedIOException( e );
+            }
+            return Integer.valueOf( count );
+        }
+    }
+}
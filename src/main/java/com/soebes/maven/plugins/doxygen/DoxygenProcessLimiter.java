@@ -0,0 +1,95 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Limits the number of doxygen processes which run at the same time within the JVM. All modules of a parallel build
+ * share the same plugin class loader and therefore the same semaphore. If a module asks for another limit (for
+ * example the next build of a long running daemon) the semaphore is resized, so there is never more than one limit
+ * and processes which are already running release their permit to the same semaphore.
+ *
+ * @author agent
+ */
+public final class DoxygenProcessLimiter
+{
+    private static final ResizableSemaphore SEMAPHORE = new ResizableSemaphore();
+
+    private static int permits;
+
+    private DoxygenProcessLimiter()
+    {
+        // Only static methods.
+    }
+
+    /**
+     * @param requested The wanted number of concurrent processes. Values less than one mean the number of available
+     *            processors.
+     * @return The number of doxygen processes which may run at the same time.
+     */
+    public static int getLimit( int requested )
+    {
+        return requested > 0 ? requested : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * @param requested The wanted number of concurrent processes. Values less than one mean the number of available
+     *            processors.
+     * @return The semaphore which has to be acquired before a doxygen process is started.
+     */
+    public static synchronized Semaphore getSemaphore( int requested )
+    {
+        int wanted = getLimit( requested );
+        if ( wanted > permits )
+        {
+            SEMAPHORE.release( wanted - permits );
+        }
+        else if ( wanted < permits )
+        {
+            // Running processes keep their permits, new ones have to wait until enough have been released.
+            SEMAPHORE.reducePermits( permits - wanted );
+        }
+        permits = wanted;
+        return SEMAPHORE;
+    }
+
+    /**
+     * Makes {@link Semaphore#reducePermits(int)} accessible.
+     */
+    private static class ResizableSemaphore
+        extends Semaphore
+    {
+        private static final long serialVersionUID = 1L;
+
+        ResizableSemaphore()
+        {
+            super( 0, true );
+        }
+
+        @Override
+        protected void reducePermits( int reduction )
+        {
+            super.reducePermits( reduction );
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.plexus.util.cli.StreamConsumer;
+
+/**
+ * Passes the stdout lines of doxygen to another consumer and reports the progress of doxygen while it is running:
+ * the number of parsed files (with an estimated time of arrival based on the number of input files), the number of
+ * generated compounds and the number of dot graphs. The progress is logged at most once per interval. The phases are
+ * tracked by {@link DoxygenPhaseConsumer}.
+ *
+ * @author agent
+ */
+public class DoxygenProgressConsumer
+    extends DoxygenPhaseConsumer
+{
+    private static final Pattern DOT_GRAPH = Pattern.compile( "Running dot for graph (\\d+)/(\\d+)" );
+
+    private final Log log;
+
+    private final int expectedFiles;
+
+    private final long intervalNanos;
+
+    private final long start;
+
+    private long lastReport;
+
+    private long phaseStart;
+
+    private int count;
+
+    private int total;
+
+    /**
+     * @param delegate The consumer which gets all lines.
+     * @param timings The timings the phases are added to (as <code>doxygen.&lt;phase&gt;</code>).
+     * @param log The log the progress is written to.
+     * @param expectedFiles The number of input files or a negative value if it is not known.
+     * @param intervalMillis The minimum time between two progress messages.
+     */
+    public DoxygenProgressConsumer( StreamConsumer delegate, DoxygenTimings timings, Log log, int expectedFiles,
+                                    long intervalMillis )
+    {
+        super( delegate, timings );
+        this.log = log;
+        this.expectedFiles = expectedFiles;
+        this.intervalNanos = intervalMillis * 1000000L;
+        this.start = System.nanoTime();
+        this.lastReport = start;
+        this.phaseStart = start;
+        this.total = -1;
+    }
+
+    public void consumeLine( String line )
+    {
+        super.consumeLine( line );
+
+        DoxygenPhase phase = getPhase();
+        if ( phase == DoxygenPhase.PARSING && line.startsWith( "Parsing file " ) )
+        {
+            count++;
+            total = expectedFiles;
+        }
+        else if ( phase == DoxygenPhase.GENERATING && line.startsWith( "Generating docs for compound " ) )
+        {
+            count++;
+        }
+        else if ( phase == DoxygenPhase.DOT )
+        {
+            Matcher matcher = DOT_GRAPH.matcher( line );
+            if ( matcher.lookingAt() )
+            {
+                count = Integer.parseInt( matcher.group( 1 ) );
+                total = Integer.parseInt( matcher.group( 2 ) );
+            }
+            else
+            {
+                return;
+            }
+        }
+        else
+        {
+            return;
+        }
+
+        long now = System.nanoTime();
+        if ( now - lastReport >= intervalNanos )
+        {
+            lastReport = now;
+            report( getProgress( phase, now ) );
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected synchronized void enter( DoxygenPhase next )
+    {
+        DoxygenPhase previous = getPhase();
+        super.enter( next );
+        if ( getPhase() != previous )
+        {
+            finishPhase( previous );
+            phaseStart = System.nanoTime();
+            count = 0;
+            total = -1;
+        }
+    }
+
+    /**
+     * Report the throughput of the last phase and record its time. Has to be called when doxygen has finished.
+     */
+    @Override
+    public synchronized void finish()
+    {
+        finishPhase( getPhase() );
+        super.finish();
+    }
+
+    private void finishPhase( DoxygenPhase phase )
+    {
+        if ( count > 0 )
+        {
+            report( getProgress( phase, System.nanoTime() ) + " finished" );
+        }
+    }
+
+    /**
+     * @param phase The current phase.
+     * @param now The current time as given by {@link System#nanoTime()}.
+     * @return The description of the progress of the current phase.
+     */
+    String getProgress( DoxygenPhase phase, long now )
+    {
+        double seconds = Math.max( 1, now - phaseStart ) / 1000000000.0;
+        double rate = count / seconds;
+        StringBuilder message = new StringBuilder();
+        message.append( getItemDescription( phase ) ).append( ' ' ).append( count );
+        if ( total > 0 )
+        {
+            message.append( '/' ).append( total );
+        }
+        message.append( String.format( Locale.ENGLISH, " (%.1f/s", Double.valueOf( rate ) ) );
+        if ( total > count && rate > 0 )
+        {
+            message.append( ", ETA " ).append( formatSeconds( ( total - count ) / rate ) );
+        }
+        message.append( ", elapsed " ).append( formatSeconds( ( now - start ) / 1000000000.0 ) ).append( ')' );
+        return message.toString();
+    }
+
+    private static String getItemDescription( DoxygenPhase phase )
+    {
+        switch ( phase )
+        {
+            case PARSING:
+                return "Parsed files";
+            case GENERATING:
+                return "Generated compounds";
+            case DOT:
+                return "Dot graphs";
+            default:
+                return phase.getName();
+        }
+    }
+
+    static String formatSeconds( double seconds )
+    {
+        long value = Math.round( seconds );
+        if ( value < 60 )
+        {
+            return value + " s";
+        }
+        return ( value / 60 ) + " min " + ( value % 60 ) + " s";
+    }
+
+    /**
+     * @param message The progress message.
+     */
+    protected void report( String message )
+    {
+        log.info( message );
+    }
+}
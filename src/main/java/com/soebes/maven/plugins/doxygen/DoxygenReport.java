@@ -33,9 +33,23 @@ import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.reporting.MavenReport;
 import org.apache.maven.reporting.MavenReportException;
+import org.apache.maven.model.Dependency;
 import org.codehaus.doxia.sink.Sink;
+import org.codehaus.plexus.util.StringUtils;
 import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 
 /**
@@ -65,6 +79,31 @@ public class DoxygenReport
     @Parameter(defaultValue = "doxygen", property = "destDir")
     private String destDir;
 
+    /**
+     * The current project.
+     */
+    @Parameter( defaultValue = "${project}", required = true, readonly = true )
+    private MavenProject project;
+
+    /**
+     * The projects of the reactor.
+     */
+    @Parameter( defaultValue = "${reactorProjects}", required = true, readonly = true )
+    private List<MavenProject> reactorProjects;
+
+    /**
+     * If set to <code>true</code> every module creates a tag file (GENERATE_TAGFILE) named
+     * <code>artifactId.tag</code> in its output directory. The tag files of all modules of the reactor the current
+     * module depends on (directly or transitively) are added to TAGFILES, so the documentation links to the
+     * documentation of those modules instead of documenting their code again. The modules are expected to use the
+     * same output layout. The links are built from the site URLs of the modules (the site of the
+     * distributionManagement or the url of the project) like the links of the site between the modules, so they
+     * still work after <code>site:stage</code> or <code>site:deploy</code>. Only for modules without an URL the
+     * location in the file system is used.
+     */
+    @Parameter( property = "doxygen.linkModules", defaultValue = "false" )
+    private boolean linkModules;
+
     
     /** {@inheritDoc} */
     public void execute()
@@ -83,6 +122,10 @@ public class DoxygenReport
             Locale locale = Locale.getDefault();
             generate( sink, locale );
         }
+        catch ( DoxygenWarningLimitException e )
+        {
+            throw new MojoFailureException( e.getMessage() );
+        }
         catch ( MavenReportException e )
         {
 //            if ( failOnError )
@@ -103,12 +146,125 @@ public class DoxygenReport
     /** {@inheritDoc} */
     public void generate( Sink sink, Locale locale )
         throws MavenReportException
+    {
+        long start = System.nanoTime();
+        try
+        {
+            generateCached( locale );
+        }
+        finally
+        {
+            getTimings().record( "report", start );
+            finishExecution();
+        }
+    }
+
+    private void generateCached( Locale locale )
+        throws MavenReportException
     {
         setOutputDirectory(getReportOutputDirectory());
 
-        executeReport( locale );
+        if ( !isUseCache() )
+        {
+            executeReport( locale );
+            return;
+        }
+
+        long start = System.nanoTime();
+        File config = buildConfigurationFile();
+        getTimings().record( "configuration", start );
+
+        DoxygenOutputCache cache =
+            new DoxygenOutputCache( getCacheDirectory(), getCacheMaxSize() * 1024L * 1024L );
+        String key;
+        start = System.nanoTime();
+        try
+        {
+            key = cache.createKey( config, getDoxygenVersion( getExecutablePath() ), getOutputOptions(),
+                                   getInputFiles(), getTagfileInputs(), getBasedir(), getOutputDirectory() );
+            if ( cache.restore( key, getOutputDirectory(), getCachedOutputs() ) )
+            {
+                getLog().info( "Restored Doxygen documentation from cache entry " + key + "." );
+                getTimings().record( "cache", start );
+                return;
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new MavenReportException( "Error while reading the Doxygen cache.", e );
+        }
+        getTimings().record( "cache", start );
+
+        executeReport( config );
+
+        start = System.nanoTime();
+        try
+        {
+            cache.store( key, getOutputDirectory(), getCachedOutputs() );
+        }
+        catch ( IOException e )
+        {
+            getLog().warn( "Could not store the Doxygen documentation in the cache: " + e.getMessage() );
+        }
+        getTimings().record( "cache", start );
     }
 
+    /**
+     * @return The output directories and the generated files within the output directory (the GENERATE_TAGFILE and
+     *         the warning statistics) which are stored in the cache.
+     */
+    List<File> getCachedOutputs()
+    {
+        List<File> result = new ArrayList<File>( getGeneratedOutputDirectories() );
+        String outputPath = getOutputDirectory().getAbsolutePath() + File.separator;
+        String tagfile = getEffectiveConfiguration( DoxygenParameters.GENERATE_TAGFILE, getGenerateTagfile() );
+        if ( tagfile != null && tagfile.trim().length() > 0 )
+        {
+            File file = resolveFile( tagfile.trim() );
+            if ( file.getAbsolutePath().startsWith( outputPath ) )
+            {
+                result.add( file );
+            }
+            else
+            {
+                getLog().debug( "The tag file '" + file.getAbsolutePath() + "' is not cached, because it is not "
+                    + "located within the output directory." );
+            }
+        }
+        result.add( getWarningStatisticsFile() );
+        return result;
+    }
+
+    /**
+     * @return The existing tag files of the TAGFILES item.
+     */
+    List<File> getTagfileInputs()
+    {
+        List<File> result = new ArrayList<File>();
+        String tagfiles = getEffectiveConfiguration( DoxygenParameters.TAGFILES, getTagfiles() );
+        for ( String item : DoxygenInputScanner.splitList( tagfiles ) )
+        {
+            int separator = item.indexOf( '=' );
+            File file = resolveFile( separator < 0 ? item : item.substring( 0, separator ) );
+            if ( file.isFile() )
+            {
+                result.add( file );
+            }
+        }
+        return result;
+    }
+
+    private String getEffectiveConfiguration( DoxygenParameters key, String configured )
+    {
+        String value = getAdditionalConfiguration().get( key );
+        return value != null ? value : configured;
+    }
+
+    private File resolveFile( String name )
+    {
+        File file = new File( name );
+        return file.isAbsolute() ? file : new File( getBasedir(), name );
+    }
 
     /** {@inheritDoc} */
 	public File getReportOutputDirectory() {
@@ -121,9 +277,319 @@ public class DoxygenReport
 	
 
 	protected MavenProject getProject() {
-		return getProject();
+		return project;
 	}
 
+    public void setProject( MavenProject project )
+    {
+        this.project = project;
+    }
+
+    /** {@inheritDoc} */
+    protected String getModuleName()
+    {
+        if ( getProject() == null )
+        {
+            return super.getModuleName();
+        }
+        return getProject().getGroupId() + ":" + getProject().getArtifactId();
+    }
+
+    protected List<MavenProject> getReactorProjects()
+    {
+        return reactorProjects;
+    }
+
+    public void setReactorProjects( List<MavenProject> reactorProjects )
+    {
+        this.reactorProjects = reactorProjects;
+    }
+
+    public boolean isLinkModules()
+    {
+        return linkModules;
+    }
+
+    public void setLinkModules( boolean linkModules )
+    {
+        this.linkModules = linkModules;
+    }
+
+    /**
+     * Create the tag file of this module and use the tag files of the modules this module depends on.
+     *
+     * @return The GENERATE_TAGFILE and TAGFILES items if {@link #isLinkModules()} is set.
+     */
+    protected Map<DoxygenParameters, String> getAdditionalConfiguration()
+    {
+        if ( !isLinkModules() || getProject() == null )
+        {
+            return Collections.emptyMap();
+        }
+
+        Map<DoxygenParameters, String> result = new EnumMap<DoxygenParameters, String>( DoxygenParameters.class );
+        if ( getGenerateTagfile() == null || getGenerateTagfile().trim().length() == 0 )
+        {
+            result.put( DoxygenParameters.GENERATE_TAGFILE, getModuleTagfile( getProject() ).getAbsolutePath() );
+        }
+
+        StringBuilder tagfiles = new StringBuilder();
+        if ( getTagfiles() != null )
+        {
+            tagfiles.append( getTagfiles().trim() );
+        }
+        for ( MavenProject upstream : getUpstreamProjects() )
+        {
+            File tagfile = getModuleTagfile( upstream );
+            if ( !tagfile.isFile() )
+            {
+                getLog().debug( "No tag file found for " + upstream.getArtifactId() + " at '"
+                    + tagfile.getAbsolutePath() + "'." );
+                continue;
+            }
+            String location = getModuleLocation( upstream );
+            tagfiles.append( " \"" ).append( tagfile.getAbsolutePath() ).append( '=' ).append( location );
+            tagfiles.append( '"' );
+        }
+        if ( tagfiles.length() > 0 )
+        {
+            result.put( DoxygenParameters.TAGFILES, tagfiles.toString().trim() );
+        }
+        return result;
+    }
+
+    /**
+     * Walk the declared dependencies of the current project through the reactor. Dependencies which are not part of
+     * the reactor are not followed.
+     *
+     * @return The projects of the reactor the current project depends on directly or transitively.
+     */
+    Set<MavenProject> getUpstreamProjects()
+    {
+        Set<MavenProject> result = new LinkedHashSet<MavenProject>();
+        if ( getReactorProjects() != null )
+        {
+            addUpstreamProjects( getProject(), result );
+        }
+        return result;
+    }
+
+    private void addUpstreamProjects( MavenProject current, Set<MavenProject> result )
+    {
+        for ( Iterator<?> it = current.getDependencies().iterator(); it.hasNext(); )
+        {
+            Dependency dependency = (Dependency) it.next();
+            for ( MavenProject candidate : getReactorProjects() )
+            {
+                if ( candidate != getProject() && dependency.getGroupId().equals( candidate.getGroupId() )
+                    && dependency.getArtifactId().equals( candidate.getArtifactId() ) && result.add( candidate ) )
+                {
+                    addUpstreamProjects( candidate, result );
+                }
+            }
+        }
+    }
+
+    /**
+     * The output directory of the given module which is located the same way as the output directory of the current
+     * project relative to the reporting output directory.
+     */
+    private File getModuleOutputDirectory( MavenProject module )
+    {
+        if ( module == getProject() )
+        {
+            return getOutputDirectory();
+        }
+        File reporting = getReportingOutputDirectory( module );
+        String path = getRelativePath( getReportingOutputDirectory( getProject() ), getOutputDirectory() );
+        if ( path.length() == 0 || path.startsWith( ".." ) )
+        {
+            return reporting;
+        }
+        return new File( reporting, path );
+    }
+
+    private File getModuleHtmlDirectory( MavenProject module )
+    {
+        String path = getRelativePath( getOutputDirectory(), getHtmlOutputDirectory() );
+        return new File( getModuleOutputDirectory( module ), path );
+    }
+
+    private File getModuleTagfile( MavenProject module )
+    {
+        return new File( getModuleOutputDirectory( module ), module.getArtifactId() + ".tag" );
+    }
+
+    /**
+     * @param module The upstream module.
+     * @return The location of the HTML documentation of the given module as seen from the HTML documentation of the
+     *         current project within the published site.
+     */
+    String getModuleLocation( MavenProject module )
+    {
+        return getLink( getHtmlOutputDirectory(), getProject(), getModuleHtmlDirectory( module ), module );
+    }
+
+    /**
+     * @param fromDirectory The directory within the reporting output of <code>fromProject</code> the link is used in.
+     * @param fromProject The project the link starts from.
+     * @param toDirectory The directory within the reporting output of <code>toProject</code> the link leads to.
+     * @param toProject The project the link leads to.
+     * @return The link between the directories within the published sites of the projects or the location in the
+     *         file system if the site URLs are not known or the target is not part of the site.
+     */
+    static String getLink( File fromDirectory, MavenProject fromProject, File toDirectory, MavenProject toProject )
+    {
+        String fileLocation = getRelativePath( fromDirectory, toDirectory );
+
+        String siteLocation = getRelativeUrl( getSiteUrl( fromProject ), getSiteUrl( toProject ) );
+        String toSite = getRelativePath( fromDirectory, getReportingOutputDirectory( fromProject ) );
+        String fromSite = getRelativePath( getReportingOutputDirectory( toProject ), toDirectory );
+        if ( siteLocation == null || fromSite.startsWith( ".." ) )
+        {
+            return fileLocation;
+        }
+        if ( siteLocation.indexOf( ':' ) > 0 )
+        {
+            // Published on another host.
+            return siteLocation + '/' + fromSite;
+        }
+        return normalizePath( toSite + '/' + siteLocation + '/' + fromSite );
+    }
+
+    /**
+     * @param module The project.
+     * @return The URL of the site of the project or <code>null</code> if not known.
+     */
+    static String getSiteUrl( MavenProject module )
+    {
+        if ( module.getDistributionManagement() != null && module.getDistributionManagement().getSite() != null
+            && module.getDistributionManagement().getSite().getUrl() != null )
+        {
+            return module.getDistributionManagement().getSite().getUrl();
+        }
+        return module.getUrl();
+    }
+
+    /**
+     * @param from The URL of the site the link starts from.
+     * @param to The URL of the site the link leads to.
+     * @return The relative link from one site to the other, <code>to</code> itself if the sites are located on
+     *         different hosts or <code>null</code> if one of the URLs is not given or invalid.
+     */
+    static String getRelativeUrl( String from, String to )
+    {
+        if ( from == null || to == null )
+        {
+            return null;
+        }
+        URI fromUri;
+        URI toUri;
+        try
+        {
+            fromUri = new URI( from.trim() );
+            toUri = new URI( to.trim() );
+        }
+        catch ( URISyntaxException e )
+        {
+            return null;
+        }
+        if ( fromUri.getScheme() == null || !fromUri.getScheme().equals( toUri.getScheme() )
+            || ( fromUri.getAuthority() == null ? toUri.getAuthority() != null
+                            : !fromUri.getAuthority().equals( toUri.getAuthority() ) ) )
+        {
+            return to.trim().replaceAll( "/+$", "" );
+        }
+
+        List<String> fromSegments = toSegments( fromUri.getPath() );
+        List<String> toSegments = toSegments( toUri.getPath() );
+        int common = 0;
+        while ( common < fromSegments.size() && common < toSegments.size()
+            && fromSegments.get( common ).equals( toSegments.get( common ) ) )
+        {
+            common++;
+        }
+        StringBuilder result = new StringBuilder();
+        for ( int i = common; i < fromSegments.size(); i++ )
+        {
+            result.append( "../" );
+        }
+        for ( int i = common; i < toSegments.size(); i++ )
+        {
+            result.append( toSegments.get( i ) ).append( '/' );
+        }
+        return result.length() == 0 ? "." : result.substring( 0, result.length() - 1 );
+    }
+
+    private static List<String> toSegments( String path )
+    {
+        List<String> result = new ArrayList<String>();
+        if ( path != null )
+        {
+            for ( String segment : path.split( "/" ) )
+            {
+                if ( segment.length() > 0 )
+                {
+                    result.add( segment );
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param path A relative path using slashes.
+     * @return The path without <code>.</code> and with <code>name/..</code> removed.
+     */
+    static String normalizePath( String path )
+    {
+        List<String> result = new ArrayList<String>();
+        for ( String segment : toSegments( path ) )
+        {
+            if ( ".".equals( segment ) )
+            {
+                continue;
+            }
+            if ( "..".equals( segment ) && !result.isEmpty() && !"..".equals( result.get( result.size() - 1 ) ) )
+            {
+                result.remove( result.size() - 1 );
+                continue;
+            }
+            result.add( segment );
+        }
+        return StringUtils.join( result.iterator(), "/" );
+    }
+
+    /**
+     * @param module The project.
+     * @return The reporting output directory of the given project.
+     */
+    static File getReportingOutputDirectory( MavenProject module )
+    {
+        if ( module.getReporting() != null && module.getReporting().getOutputDirectory() != null )
+        {
+            File directory = new File( module.getReporting().getOutputDirectory() );
+            if ( directory.isAbsolute() )
+            {
+                return directory;
+            }
+            return new File( module.getBasedir(), directory.getPath() );
+        }
+        return new File( module.getBasedir(), "target/site" );
+    }
+
+    /**
+     * @param directory The directory the path starts from.
+     * @param target The target file.
+     * @return The path of the target relative to the given directory using slashes.
+     */
+    static String getRelativePath( File directory, File target )
+    {
+        Path from = directory.getAbsoluteFile().toPath().normalize();
+        Path to = target.getAbsoluteFile().toPath().normalize();
+        return from.relativize( to ).toString().replace( File.separatorChar, '/' );
+    }
+
     /** {@inheritDoc} */
 	public String getCategoryName()
     {
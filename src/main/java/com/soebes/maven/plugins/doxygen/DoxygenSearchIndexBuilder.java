@@ -0,0 +1,535 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.IOUtil;
+
+/**
+ * Builds a search index for the HTML output from the XML output of doxygen. The JavaScript search of doxygen loads
+ * the complete index into the browser which does not work for large code bases. This index is split into small files
+ * which are loaded by the client on demand:
+ * <ul>
+ * <li><code>meta.json</code> contains the number of documents, the block size and the available term buckets.</li>
+ * <li><code>terms-&lt;prefix&gt;.json</code> contains the sorted terms which start with the two character prefix and
+ * their postings (delta encoded document numbers).</li>
+ * <li><code>docs-&lt;n&gt;.json</code> contains a block of documents (name, kind, link and brief description).</li>
+ * </ul>
+ * The XML files are read by a streaming parser and every block of documents is written as soon as it is complete, so
+ * only the dictionary and the current block are kept in memory.
+ *
+ * @author agent
+ */
+public class DoxygenSearchIndexBuilder
+{
+    /**
+     * The name of the directory below the HTML output which contains the index.
+     */
+    public static final String DIRECTORY = "search-index";
+
+    static final int BLOCK_SIZE = 512;
+
+    private static final String[] CLIENT_RESOURCES = { "search.js", "search.html" };
+
+    private final File xmlDirectory;
+
+    private final File htmlDirectory;
+
+    private final String fileExtension;
+
+    private final XMLInputFactory factory;
+
+    private final List<String[]> block = new ArrayList<String[]>( BLOCK_SIZE );
+
+    private int documents;
+
+    private int blocks;
+
+    private File directory;
+
+    private final TreeMap<String, List<Integer>> postings = new TreeMap<String, List<Integer>>();
+
+    private Map<String, String> htmlFiles;
+
+    /**
+     * @param xmlDirectory The XML output of doxygen.
+     * @param htmlDirectory The HTML output of doxygen. The index is written into the {@link #DIRECTORY} below it.
+     * @param fileExtension The HTML_FILE_EXTENSION.
+     */
+    public DoxygenSearchIndexBuilder( File xmlDirectory, File htmlDirectory, String fileExtension )
+    {
+        this.xmlDirectory = xmlDirectory;
+        this.htmlDirectory = htmlDirectory;
+        this.fileExtension = fileExtension;
+        this.factory = XMLInputFactory.newInstance();
+        // The XML output of doxygen references no DTD, but the parser must not try to load anything.
+        factory.setProperty( XMLInputFactory.SUPPORT_DTD, Boolean.FALSE );
+        factory.setProperty( XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE );
+    }
+
+    /**
+     * Read the XML output and write the index.
+     *
+     * @return The number of indexed documents.
+     * @throws IOException in case of failures.
+     */
+    public int build()
+        throws IOException
+    {
+        htmlFiles = new HashMap<String, String>();
+        collectHtmlFiles( htmlDirectory, "" );
+        directory = new File( htmlDirectory, DIRECTORY );
+        FileUtils.deleteDirectory( directory );
+        directory.mkdirs();
+        for ( String refid : readCompoundIds() )
+        {
+            File compound = new File( xmlDirectory, refid + ".xml" );
+            if ( compound.isFile() )
+            {
+                readCompound( compound );
+            }
+        }
+        write();
+        return documents;
+    }
+
+    private void collectHtmlFiles( File directory, String prefix )
+    {
+        File[] entries = directory.listFiles();
+        if ( entries == null )
+        {
+            return;
+        }
+        for ( File entry : entries )
+        {
+            if ( entry.isDirectory() )
+            {
+                if ( !DIRECTORY.equals( entry.getName() ) )
+                {
+                    collectHtmlFiles( entry, prefix + entry.getName() + "/" );
+                }
+            }
+            else
+            {
+                htmlFiles.put( entry.getName(), prefix + entry.getName() );
+            }
+        }
+    }
+
+    private List<String> readCompoundIds()
+        throws IOException
+    {
+        List<String> result = new ArrayList<String>();
+        File index = new File( xmlDirectory, "index.xml" );
+        InputStream in = new FileInputStream( index );
+        try
+        {
+            XMLStreamReader reader = factory.createXMLStreamReader( in );
+            while ( reader.hasNext() )
+            {
+                if ( reader.next() == XMLStreamConstants.START_ELEMENT && "compound".equals( reader.getLocalName() ) )
+                {
+                    String refid = reader.getAttributeValue( null, "refid" );
+                    if ( refid != null )
+                    {
+                        result.add( refid );
+                    }
+                }
+            }
+            reader.close();
+        }
+        catch ( XMLStreamException e )
+        {
+            throw new IOException( "Could not read '" + index.getAbsolutePath() + "': " + e.getMessage(), e );
+        }
+        finally
+        {
+            IOUtil.close( in );
+        }
+        return result;
+    }
+
+    private void readCompound( File compound )
+        throws IOException
+    {
+        InputStream in = new FileInputStream( compound );
+        try
+        {
+            XMLStreamReader reader = factory.createXMLStreamReader( in );
+            List<String> path = new ArrayList<String>();
+            String compoundId = null;
+            String compoundKind = null;
+            String compoundName = null;
+            String compoundBrief = null;
+            String memberId = null;
+            String memberKind = null;
+            String memberName = null;
+            StringBuilder text = null;
+            while ( reader.hasNext() )
+            {
+                int event = reader.next();
+                if ( event == XMLStreamConstants.START_ELEMENT )
+                {
+                    String name = reader.getLocalName();
+                    String parent = path.isEmpty() ? null : path.get( path.size() - 1 );
+                    path.add( name );
+                    if ( "compounddef".equals( name ) )
+                    {
+                        compoundId = reader.getAttributeValue( null, "id" );
+                        compoundKind = reader.getAttributeValue( null, "kind" );
+                        compoundName = null;
+                        compoundBrief = null;
+                    }
+                    else if ( "memberdef".equals( name ) )
+                    {
+                        memberId = reader.getAttributeValue( null, "id" );
+                        memberKind = reader.getAttributeValue( null, "kind" );
+                        memberName = null;
+                    }
+                    else if ( text == null
+                        && ( ( "compoundname".equals( name ) || "briefdescription".equals( name ) )
+                            && "compounddef".equals( parent )
+                            || ( "name".equals( name ) || "briefdescription".equals( name ) )
+                            && "memberdef".equals( parent ) ) )
+                    {
+                        text = new StringBuilder();
+                    }
+                }
+                else if ( event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA )
+                {
+                    if ( text != null )
+                    {
+                        text.append( reader.getText() );
+                    }
+                }
+                else if ( event == XMLStreamConstants.END_ELEMENT )
+                {
+                    String name = path.remove( path.size() - 1 );
+                    String parent = path.isEmpty() ? null : path.get( path.size() - 1 );
+                    if ( text != null && "compounddef".equals( parent ) )
+                    {
+                        if ( "compoundname".equals( name ) )
+                        {
+                            compoundName = text.toString().trim();
+                            text = null;
+                        }
+                        else if ( "briefdescription".equals( name ) )
+                        {
+                            compoundBrief = normalize( text );
+                            // The brief description follows the name, so the compound is complete.
+                            addDocument( compoundName, compoundKind, compoundId, null, compoundBrief );
+                            text = null;
+                        }
+                    }
+                    else if ( text != null && "memberdef".equals( parent ) )
+                    {
+                        if ( "name".equals( name ) )
+                        {
+                            memberName = text.toString().trim();
+                            text = null;
+                        }
+                        else if ( "briefdescription".equals( name ) )
+                        {
+                            String qualified =
+                                compoundName == null ? memberName : compoundName + "::" + memberName;
+                            addDocument( qualified, memberKind, memberId, memberName, normalize( text ) );
+                            text = null;
+                        }
+                    }
+                }
+            }
+            reader.close();
+        }
+        catch ( XMLStreamException e )
+        {
+            throw new IOException( "Could not read '" + compound.getAbsolutePath() + "': " + e.getMessage(), e );
+        }
+        finally
+        {
+            IOUtil.close( in );
+        }
+    }
+
+    private static String normalize( CharSequence text )
+    {
+        return text.toString().replaceAll( "\\s+", " " ).trim();
+    }
+
+    /**
+     * @param id The id of a compound (<code>classFoo</code>) or member (<code>classFoo_1a0123</code>).
+     * @return The link to the HTML page of the id relative to the HTML output or <code>null</code> if there is no
+     *         page.
+     */
+    String getLink( String id )
+    {
+        String anchor = null;
+        String page = id;
+        int separator = id.lastIndexOf( "_1" );
+        if ( separator > 0 && !htmlFiles.containsKey( id + fileExtension ) )
+        {
+            page = id.substring( 0, separator );
+            anchor = id.substring( separator + 2 );
+        }
+        String file = htmlFiles.get( page + fileExtension );
+        if ( file == null )
+        {
+            return null;
+        }
+        return anchor == null ? file : file + "#" + anchor;
+    }
+
+    private void addDocument( String name, String kind, String id, String shortName, String brief )
+        throws IOException
+    {
+        if ( name == null || id == null )
+        {
+            return;
+        }
+        String link = getLink( id );
+        if ( link == null )
+        {
+            return;
+        }
+        int number = documents++;
+        block.add( new String[] { name, kind == null ? "" : kind, link, brief } );
+        if ( block.size() == BLOCK_SIZE )
+        {
+            writeBlock();
+        }
+
+        for ( String term : tokenize( name ) )
+        {
+            addPosting( term, number );
+        }
+        for ( String term : tokenize( brief ) )
+        {
+            addPosting( term, number );
+        }
+    }
+
+    private void addPosting( String term, int document )
+    {
+        List<Integer> list = postings.get( term );
+        if ( list == null )
+        {
+            list = new ArrayList<Integer>( 2 );
+            postings.put( term, list );
+        }
+        // Documents are added in ascending order, so the list stays sorted and free of duplicates.
+        if ( list.isEmpty() || list.get( list.size() - 1 ).intValue() != document )
+        {
+            list.add( Integer.valueOf( document ) );
+        }
+    }
+
+    /**
+     * Split the given text into terms. Identifiers are split at non alphanumeric characters and at camel case
+     * boundaries; the complete identifier is a term as well. Terms are lower case, contain only ASCII letters and
+     * digits and have at least two characters.
+     *
+     * @param text The text.
+     * @return The terms.
+     */
+    static List<String> tokenize( String text )
+    {
+        List<String> result = new ArrayList<String>();
+        if ( text == null )
+        {
+            return result;
+        }
+        for ( String word : text.split( "[^A-Za-z0-9]+" ) )
+        {
+            addTerm( result, word );
+            String[] parts = word.split( "(?<=[a-z0-9])(?=[A-Z])|(?<=[A-Z])(?=[A-Z][a-z])" );
+            if ( parts.length > 1 )
+            {
+                for ( String part : parts )
+                {
+                    addTerm( result, part );
+                }
+            }
+        }
+        return result;
+    }
+
+    private static void addTerm( List<String> result, String term )
+    {
+        if ( term.length() >= 2 )
+        {
+            result.add( term.toLowerCase( Locale.ENGLISH ) );
+        }
+    }
+
+    private void writeBlock()
+        throws IOException
+    {
+        StringBuilder json = new StringBuilder( "[" );
+        for ( int i = 0; i < block.size(); i++ )
+        {
+            json.append( i == 0 ? "[" : ",[" );
+            String[] document = block.get( i );
+            for ( int j = 0; j < document.length; j++ )
+            {
+                appendString( j == 0 ? json : json.append( ',' ), document[j] );
+            }
+            json.append( ']' );
+        }
+        writeJson( new File( directory, "docs-" + blocks + ".json" ), json.append( "]" ) );
+        blocks++;
+        block.clear();
+    }
+
+    private void write()
+        throws IOException
+    {
+        if ( !block.isEmpty() )
+        {
+            writeBlock();
+        }
+
+        List<String> buckets = new ArrayList<String>();
+        StringBuilder json = null;
+        String bucket = null;
+        for ( Map.Entry<String, List<Integer>> entry : postings.entrySet() )
+        {
+            String prefix = entry.getKey().substring( 0, 2 );
+            if ( !prefix.equals( bucket ) )
+            {
+                if ( json != null )
+                {
+                    writeJson( new File( directory, "terms-" + bucket + ".json" ), json.append( "}" ) );
+                }
+                bucket = prefix;
+                buckets.add( bucket );
+                json = new StringBuilder( "{" );
+            }
+            else
+            {
+                json.append( ',' );
+            }
+            appendString( json, entry.getKey() ).append( ":[" );
+            int previous = 0;
+            List<Integer> list = entry.getValue();
+            for ( int i = 0; i < list.size(); i++ )
+            {
+                int value = list.get( i ).intValue();
+                json.append( i == 0 ? "" : "," ).append( value - previous );
+                previous = value;
+            }
+            json.append( ']' );
+        }
+        if ( json != null )
+        {
+            writeJson( new File( directory, "terms-" + bucket + ".json" ), json.append( "}" ) );
+        }
+
+        json = new StringBuilder( "{\"version\":1,\"documents\":" );
+        json.append( documents ).append( ",\"blockSize\":" ).append( BLOCK_SIZE ).append( ",\"buckets\":[" );
+        for ( int i = 0; i < buckets.size(); i++ )
+        {
+            appendString( i == 0 ? json : json.append( ',' ), buckets.get( i ) );
+        }
+        writeJson( new File( directory, "meta.json" ), json.append( "]}" ) );
+
+        for ( String resource : CLIENT_RESOURCES )
+        {
+            copyResource( resource, new File( directory, resource ) );
+        }
+    }
+
+    private static StringBuilder appendString( StringBuilder json, String value )
+    {
+        json.append( '"' );
+        for ( int i = 0; i < value.length(); i++ )
+        {
+            char c = value.charAt( i );
+            if ( c == '"' || c == '\\' )
+            {
+                json.append( '\\' ).append( c );
+            }
+            else if ( c < 0x20 || c == '<' || c == '>' || c == '&' )
+            {
+                json.append( String.format( "\\u%04x", Integer.valueOf( c ) ) );
+            }
+            else
+            {
+                json.append( c );
+            }
+        }
+        return json.append( '"' );
+    }
+
+    private static void writeJson( File file, CharSequence json )
+        throws IOException
+    {
+        Writer out = new OutputStreamWriter( new FileOutputStream( file ), "UTF-8" );
+        try
+        {
+            out.append( json );
+        }
+        finally
+        {
+            IOUtil.close( out );
+        }
+    }
+
+    private static void copyResource( String name, File target )
+        throws IOException
+    {
+        InputStream in = DoxygenSearchIndexBuilder.class.getResourceAsStream( DIRECTORY + "/" + name );
+        if ( in == null )
+        {
+            throw new IOException( "The resource '" + name + "' is missing." );
+        }
+        OutputStream out = null;
+        try
+        {
+            out = new FileOutputStream( target );
+            IOUtil.copy( in, out );
+        }
+        finally
+        {
+            IOUtil.close( in );
+            IOUtil.close( out );
+        }
+    }
+}
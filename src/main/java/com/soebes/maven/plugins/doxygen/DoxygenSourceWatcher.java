@@ -0,0 +1,204 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the input directories of doxygen for changed, created and deleted files. Changes which arrive in a burst
+ * (for example when an IDE saves several files or a branch is switched) are collected until no further change arrives
+ * within the debounce time.
+ *
+ * @author agent
+ */
+public class DoxygenSourceWatcher
+    implements Closeable
+{
+    private final DoxygenInputScanner scanner;
+
+    private final boolean recursive;
+
+    private final WatchService service;
+
+    private final Map<WatchKey, Path> directories = new HashMap<WatchKey, Path>();
+
+    private boolean overflow;
+
+    /**
+     * @param scanner The scanner which gives the inputs and decides which files are relevant.
+     * @param recursive true if the sub directories of the input directories have to be watched.
+     * @throws IOException in case the directories could not be watched.
+     */
+    public DoxygenSourceWatcher( DoxygenInputScanner scanner, boolean recursive )
+        throws IOException
+    {
+        this.scanner = scanner;
+        this.recursive = recursive;
+        this.service = FileSystems.getDefault().newWatchService();
+        for ( File input : scanner.getInputs() )
+        {
+            if ( input.isDirectory() )
+            {
+                register( input.toPath(), null );
+            }
+            else if ( input.getParentFile() != null && input.getParentFile().isDirectory() )
+            {
+                // Single files can not be watched, so their directory is watched.
+                register( input.getParentFile().toPath(), null );
+            }
+        }
+    }
+
+    private void register( Path directory, Set<File> created )
+        throws IOException
+    {
+        if ( directories.containsValue( directory ) )
+        {
+            return;
+        }
+        WatchKey key =
+            directory.register( service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE,
+                                StandardWatchEventKinds.ENTRY_MODIFY );
+        directories.put( key, directory );
+        if ( !recursive )
+        {
+            return;
+        }
+        DirectoryStream<Path> entries = Files.newDirectoryStream( directory );
+        try
+        {
+            for ( Path entry : entries )
+            {
+                if ( Files.isDirectory( entry ) )
+                {
+                    if ( !scanner.isExcluded( entry.toFile() ) )
+                    {
+                        register( entry, created );
+                    }
+                }
+                else if ( created != null && scanner.accepts( entry.toFile() ) )
+                {
+                    // Files which have been created before the new directory has been registered.
+                    created.add( entry.toFile() );
+                }
+            }
+        }
+        finally
+        {
+            entries.close();
+        }
+    }
+
+    /**
+     * Wait until relevant files have changed and no further change arrived within the debounce time.
+     *
+     * @param debounceMillis The time without changes which ends a burst of changes.
+     * @return The changed, created and deleted files.
+     * @throws InterruptedException if the thread has been interrupted while waiting.
+     * @throws IOException in case a new directory could not be watched.
+     */
+    public Set<File> awaitChanges( long debounceMillis )
+        throws InterruptedException, IOException
+    {
+        Set<File> changes = new TreeSet<File>();
+        overflow = false;
+        while ( changes.isEmpty() && !overflow )
+        {
+            collect( service.take(), changes );
+        }
+        WatchKey key;
+        while ( ( key = service.poll( debounceMillis, TimeUnit.MILLISECONDS ) ) != null )
+        {
+            collect( key, changes );
+        }
+        return changes;
+    }
+
+    /**
+     * @return true if events have been lost or a watched directory has been deleted during the last
+     *         {@link #awaitChanges(long)}, so the changes are not complete.
+     */
+    public boolean isOverflow()
+    {
+        return overflow;
+    }
+
+    private void collect( WatchKey key, Set<File> changes )
+        throws IOException
+    {
+        Path directory = directories.get( key );
+        for ( WatchEvent<?> event : key.pollEvents() )
+        {
+            if ( event.kind() == StandardWatchEventKinds.OVERFLOW )
+            {
+                overflow = true;
+                continue;
+            }
+            if ( directory == null )
+            {
+                continue;
+            }
+            Path path = directory.resolve( (Path) event.context() );
+            if ( event.kind() == StandardWatchEventKinds.ENTRY_CREATE && recursive && Files.isDirectory( path ) )
+            {
+                if ( !scanner.isExcluded( path.toFile() ) )
+                {
+                    register( path, changes );
+                }
+            }
+            else if ( event.kind() == StandardWatchEventKinds.ENTRY_DELETE && directories.containsValue( path ) )
+            {
+                // The files of a deleted directory are not reported one by one.
+                overflow = true;
+            }
+            else if ( scanner.accepts( path.toFile() ) )
+            {
+                changes.add( path.toFile().getAbsoluteFile() );
+            }
+        }
+        if ( !key.reset() )
+        {
+            directories.remove( key );
+        }
+    }
+
+    public void close()
+        throws IOException
+    {
+        service.close();
+    }
+}
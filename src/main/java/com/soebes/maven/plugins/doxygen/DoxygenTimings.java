@@ -0,0 +1,127 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Collects the time spent in the phases of a report execution (writing the configuration, looking up the executable,
+ * the phases of the doxygen process, post processing etc.). The time of phases which are entered several times (for
+ * example by parallelShards) is summed up.
+ *
+ * @author agent
+ */
+public class DoxygenTimings
+{
+    private final String module;
+
+    private final Map<String, Long> nanos = new LinkedHashMap<String, Long>();
+
+    /**
+     * @param module The name of the module the timings belong to.
+     */
+    public DoxygenTimings( String module )
+    {
+        this.module = module;
+    }
+
+    public String getModule()
+    {
+        return module;
+    }
+
+    /**
+     * Record the time since the given start.
+     *
+     * @param phase The name of the phase.
+     * @param start The start as given by {@link System#nanoTime()}.
+     */
+    public void record( String phase, long start )
+    {
+        add( phase, System.nanoTime() - start );
+    }
+
+    /**
+     * @param phase The name of the phase.
+     * @param duration The duration in nano seconds which is added to the phase.
+     */
+    public synchronized void add( String phase, long duration )
+    {
+        Long previous = nanos.get( phase );
+        nanos.put( phase, Long.valueOf( previous == null ? duration : previous.longValue() + duration ) );
+    }
+
+    /**
+     * @return The duration of the phases in milli seconds in the order the phases have been recorded first.
+     */
+    public synchronized Map<String, Long> getMillis()
+    {
+        Map<String, Long> result = new LinkedHashMap<String, Long>();
+        for ( Map.Entry<String, Long> entry : nanos.entrySet() )
+        {
+            result.put( entry.getKey(), Long.valueOf( entry.getValue().longValue() / 1000000L ) );
+        }
+        return result;
+    }
+
+    /**
+     * @return The timings as JSON object with the module and the phases in milli seconds.
+     */
+    public String toJson()
+    {
+        StringBuilder json = new StringBuilder( "{\n  \"module\": \"" );
+        json.append( escape( module ) ).append( "\",\n  \"phases\": {" );
+        String separator = "\n";
+        for ( Map.Entry<String, Long> entry : getMillis().entrySet() )
+        {
+            json.append( separator ).append( "    \"" ).append( escape( entry.getKey() ) ).append( "\": " );
+            json.append( entry.getValue() );
+            separator = ",\n";
+        }
+        return json.append( "\n  }\n}\n" ).toString();
+    }
+
+    /**
+     * @param file The file the JSON representation is written to.
+     * @throws IOException in case of failures.
+     */
+    public void write( File file )
+        throws IOException
+    {
+        file.getAbsoluteFile().getParentFile().mkdirs();
+        FileUtils.fileWrite( file, "UTF-8", toJson() );
+    }
+
+    private static String escape( String value )
+    {
+        if ( value == null )
+        {
+            return "";
+        }
+        return value.replace( "\\", "\\\\" ).replace( "\"", "\\\"" );
+    }
+}
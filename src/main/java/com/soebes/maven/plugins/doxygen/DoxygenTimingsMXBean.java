@@ -0,0 +1,59 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import java.util.Map;
+
+/**
+ * Gives access to the timings of the doxygen reports executed in this JVM. This is useful for long running Maven
+ * processes where the timings of the builds can be observed via JMX.
+ *
+ * @author agent
+ */
+public interface DoxygenTimingsMXBean
+{
+    /**
+     * @return The number of recorded report executions.
+     */
+    long getExecutions();
+
+    /**
+     * @return The modules for which timings have been recorded.
+     */
+    String[] getModules();
+
+    /**
+     * @return The milli seconds per phase summed up over all recorded executions.
+     */
+    Map<String, Long> getTotals();
+
+    /**
+     * @param module The module.
+     * @return The milli seconds per phase of the last execution for the module.
+     */
+    Map<String, Long> getTimings( String module );
+
+    /**
+     * Remove all recorded timings.
+     */
+    void reset();
+}
@@ -0,0 +1,151 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Keeps the timings of the last execution per module and publishes them as MXBean named
+ * <code>com.soebes.maven.plugins.doxygen:type=Timings</code>.
+ *
+ * @author agent
+ */
+public class DoxygenTimingsRegistry
+    implements DoxygenTimingsMXBean
+{
+    /**
+     * The name the registry is published with.
+     */
+    public static final String OBJECT_NAME = "com.soebes.maven.plugins.doxygen:type=Timings";
+
+    private static DoxygenTimingsRegistry instance;
+
+    private final ConcurrentMap<String, Map<String, Long>> modules =
+        new ConcurrentHashMap<String, Map<String, Long>>();
+
+    private final Map<String, Long> totals = new TreeMap<String, Long>();
+
+    private final AtomicLong executions = new AtomicLong();
+
+    /**
+     * @return The registry of this class loader. It is registered at the platform MBean server when it is created.
+     *         An instance of another class loader (an earlier version of the plugin) is replaced.
+     */
+    public static synchronized DoxygenTimingsRegistry getInstance()
+    {
+        if ( instance == null )
+        {
+            instance = new DoxygenTimingsRegistry();
+            try
+            {
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                ObjectName name = new ObjectName( OBJECT_NAME );
+                try
+                {
+                    server.registerMBean( instance, name );
+                }
+                catch ( InstanceAlreadyExistsException e )
+                {
+                    server.unregisterMBean( name );
+                    server.registerMBean( instance, name );
+                }
+            }
+            catch ( JMException e )
+            {
+                // JMX is only a view on the timings; they are written to the timings file anyway.
+            }
+            catch ( SecurityException e )
+            {
+                // See above.
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * @param timings The timings of an execution.
+     */
+    public void update( DoxygenTimings timings )
+    {
+        Map<String, Long> millis = timings.getMillis();
+        modules.put( timings.getModule(), millis );
+        synchronized ( totals )
+        {
+            for ( Map.Entry<String, Long> entry : millis.entrySet() )
+            {
+                Long previous = totals.get( entry.getKey() );
+                totals.put( entry.getKey(), Long.valueOf( previous == null ? entry.getValue().longValue()
+                                : previous.longValue() + entry.getValue().longValue() ) );
+            }
+        }
+        executions.incrementAndGet();
+    }
+
+    public long getExecutions()
+    {
+        return executions.get();
+    }
+
+    public String[] getModules()
+    {
+        return modules.keySet().toArray( new String[0] );
+    }
+
+    public Map<String, Long> getTotals()
+    {
+        synchronized ( totals )
+        {
+            return new TreeMap<String, Long>( totals );
+        }
+    }
+
+    public Map<String, Long> getTimings( String module )
+    {
+        Map<String, Long> result = modules.get( module );
+        if ( result == null )
+        {
+            return Collections.emptyMap();
+        }
+        return result;
+    }
+
+    public void reset()
+    {
+        modules.clear();
+        synchronized ( totals )
+        {
+            totals.clear();
+        }
+        executions.set( 0 );
+    }
+}
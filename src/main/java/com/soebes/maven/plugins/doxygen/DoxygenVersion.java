@@ -0,0 +1,110 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A doxygen version like <code>1.8.11</code>. Additional information which is printed by some builds (for example
+ * <code>1.9.1 (ef9b20ac7f8a8621fcfc299f8bd0b80422390f4b)</code>) is ignored.
+ *
+ * @author agent
+ */
+public final class DoxygenVersion
+    implements Comparable<DoxygenVersion>
+{
+    private static final Pattern VERSION = Pattern.compile( "(\\d+)(?:\\.(\\d+))?(?:\\.(\\d+))?" );
+
+    private final int major;
+
+    private final int minor;
+
+    private final int patch;
+
+    public DoxygenVersion( int major, int minor, int patch )
+    {
+        this.major = major;
+        this.minor = minor;
+        this.patch = patch;
+    }
+
+    /**
+     * @param version The version as printed by <code>doxygen --version</code>.
+     * @return The version or <code>null</code> if the given text does not start with a version.
+     */
+    public static DoxygenVersion parse( String version )
+    {
+        if ( version == null )
+        {
+            return null;
+        }
+        Matcher matcher = VERSION.matcher( version.trim() );
+        if ( !matcher.lookingAt() )
+        {
+            return null;
+        }
+        return new DoxygenVersion( toInt( matcher.group( 1 ) ), toInt( matcher.group( 2 ) ),
+                                   toInt( matcher.group( 3 ) ) );
+    }
+
+    private static int toInt( String value )
+    {
+        return value == null ? 0 : Integer.parseInt( value );
+    }
+
+    /** {@inheritDoc} */
+    public int compareTo( DoxygenVersion other )
+    {
+        if ( major != other.major )
+        {
+            return major < other.major ? -1 : 1;
+        }
+        if ( minor != other.minor )
+        {
+            return minor < other.minor ? -1 : 1;
+        }
+        if ( patch != other.patch )
+        {
+            return patch < other.patch ? -1 : 1;
+        }
+        return 0;
+    }
+
+    @Override
+    public boolean equals( Object obj )
+    {
+        return obj instanceof DoxygenVersion && compareTo( (DoxygenVersion) obj ) == 0;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return ( major * 31 + minor ) * 31 + patch;
+    }
+
+    @Override
+    public String toString()
+    {
+        return major + "." + minor + "." + patch;
+    }
+}
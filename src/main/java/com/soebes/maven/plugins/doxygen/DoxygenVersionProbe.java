@@ -0,0 +1,250 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.plexus.util.IOUtil;
+import org.codehaus.plexus.util.cli.CommandLineException;
+import org.codehaus.plexus.util.cli.CommandLineUtils;
+import org.codehaus.plexus.util.cli.Commandline;
+
+/**
+ * Determines the version of a doxygen executable by calling <code>doxygen --version</code>. The result is cached for
+ * the lifetime of the JVM and in a properties file, so a build calls every executable only once and later builds do
+ * not call it at all as long as the executable is not changed. The entries are keyed by the path, size and
+ * modification time of the executable. An executable which could not tell its version is asked again the next time,
+ * because it may be installed or fixed while the JVM is running (for example between the builds of a daemon).
+ *
+ * @author agent
+ */
+public class DoxygenVersionProbe
+{
+    /**
+     * Marks executables which could not tell their version.
+     */
+    private static final String UNKNOWN = "";
+
+    private static final ConcurrentMap<String, String> VERSIONS = new ConcurrentHashMap<String, String>();
+
+    private final File versionsFile;
+
+    private final Log log;
+
+    /**
+     * @param versionsFile The file where the versions are stored. If <code>null</code> the versions are only kept in
+     *            memory.
+     * @param log The log.
+     */
+    public DoxygenVersionProbe( File versionsFile, Log log )
+    {
+        this.versionsFile = versionsFile;
+        this.log = log;
+    }
+
+    /**
+     * @param executablePath The doxygen executable (absolute path or name which is searched on the PATH).
+     * @param workingDirectory The directory doxygen is called in.
+     * @return The version as reported by <code>doxygen --version</code> or <code>null</code> if it could not be
+     *         determined.
+     */
+    public String getVersion( String executablePath, File workingDirectory )
+    {
+        String key = createKey( executablePath );
+        String version = VERSIONS.get( key );
+        if ( version == null )
+        {
+            synchronized ( DoxygenVersionProbe.class )
+            {
+                version = VERSIONS.get( key );
+                if ( version == null )
+                {
+                    version = readStored( key );
+                    if ( version == null )
+                    {
+                        version = probe( executablePath, workingDirectory );
+                        store( key, version );
+                    }
+                    if ( !UNKNOWN.equals( version ) )
+                    {
+                        VERSIONS.put( key, version );
+                    }
+                }
+            }
+        }
+        return UNKNOWN.equals( version ) ? null : version;
+    }
+
+    private String probe( String executablePath, File workingDirectory )
+    {
+        Commandline cli = new Commandline();
+        if ( workingDirectory != null )
+        {
+            cli.setWorkingDirectory( workingDirectory.getAbsolutePath() );
+        }
+        cli.setExecutable( executablePath );
+        cli.createArg().setValue( "--version" );
+
+        CommandLineUtils.StringStreamConsumer version = new CommandLineUtils.StringStreamConsumer();
+        try
+        {
+            int returnCode = CommandLineUtils.executeCommandLine( cli, version, LogStreamConsumer.DISCARD );
+            if ( returnCode == 0 && version.getOutput().trim().length() > 0 )
+            {
+                return version.getOutput().trim();
+            }
+        }
+        catch ( CommandLineException e )
+        {
+            log.debug( "Could not determine the doxygen version.", e );
+        }
+        return UNKNOWN;
+    }
+
+    /**
+     * The key contains the size and the modification time of the executable so an updated installation is detected.
+     * Executables which are not found are only cached in memory.
+     */
+    static String createKey( String executablePath )
+    {
+        File executable = findExecutable( executablePath );
+        if ( executable == null )
+        {
+            return executablePath;
+        }
+        return executable.getAbsolutePath() + "|" + executable.length() + "|" + executable.lastModified();
+    }
+
+    private static File findExecutable( String executablePath )
+    {
+        File file = new File( executablePath );
+        if ( file.isAbsolute() || executablePath.indexOf( File.separatorChar ) >= 0 )
+        {
+            return file.isFile() ? file : null;
+        }
+        String path = System.getenv( "PATH" );
+        if ( path == null )
+        {
+            return null;
+        }
+        for ( String directory : path.split( File.pathSeparator ) )
+        {
+            File candidate = new File( directory, executablePath );
+            if ( candidate.isFile() )
+            {
+                return candidate;
+            }
+            candidate = new File( directory, executablePath + ".exe" );
+            if ( candidate.isFile() )
+            {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private Properties load()
+    {
+        Properties properties = new Properties();
+        if ( versionsFile == null || !versionsFile.isFile() )
+        {
+            return properties;
+        }
+        InputStream in = null;
+        try
+        {
+            in = new FileInputStream( versionsFile );
+            properties.load( in );
+        }
+        catch ( IOException e )
+        {
+            log.debug( "Could not read '" + versionsFile.getAbsolutePath() + "'.", e );
+        }
+        finally
+        {
+            IOUtil.close( in );
+        }
+        return properties;
+    }
+
+    private String readStored( String key )
+    {
+        if ( key.indexOf( '|' ) < 0 )
+        {
+            return null;
+        }
+        String version = load().getProperty( key );
+        return UNKNOWN.equals( version ) ? null : version;
+    }
+
+    private void store( String key, String version )
+    {
+        if ( versionsFile == null || key.indexOf( '|' ) < 0 || UNKNOWN.equals( version ) )
+        {
+            return;
+        }
+        Properties properties = load();
+        properties.setProperty( key, version );
+
+        versionsFile.getParentFile().mkdirs();
+        File temp = new File( versionsFile.getPath() + "." + Thread.currentThread().getId() + ".tmp" );
+        OutputStream out = null;
+        try
+        {
+            out = new FileOutputStream( temp );
+            properties.store( out, "doxygen versions" );
+            out.close();
+            out = null;
+            if ( !temp.renameTo( versionsFile ) )
+            {
+                versionsFile.delete();
+                temp.renameTo( versionsFile );
+            }
+        }
+        catch ( IOException e )
+        {
+            log.debug( "Could not write '" + versionsFile.getAbsolutePath() + "'.", e );
+        }
+        finally
+        {
+            IOUtil.close( out );
+            temp.delete();
+        }
+    }
+
+    /**
+     * Forget the versions which are kept in memory.
+     */
+    static void clear()
+    {
+        VERSIONS.clear();
+    }
+}
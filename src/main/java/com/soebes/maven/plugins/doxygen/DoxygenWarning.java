@@ -0,0 +1,78 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+/**
+ * A single warning (or error) message of doxygen.
+ *
+ * @author agent
+ */
+public class DoxygenWarning
+{
+    private final String file;
+
+    private final int line;
+
+    private final String category;
+
+    private final String text;
+
+    public DoxygenWarning( String file, int line, String category, String text )
+    {
+        this.file = file;
+        this.line = line;
+        this.category = category;
+        this.text = text;
+    }
+
+    /**
+     * @return The file the warning refers to (empty if the warning does not refer to a file).
+     */
+    public String getFile()
+    {
+        return file;
+    }
+
+    /**
+     * @return The line within the file or 0 if unknown.
+     */
+    public int getLine()
+    {
+        return line;
+    }
+
+    /**
+     * @return The category of the warning, see {@link DoxygenWarningParser#categorize(String)}.
+     */
+    public String getCategory()
+    {
+        return category;
+    }
+
+    /**
+     * @return The message.
+     */
+    public String getText()
+    {
+        return text;
+    }
+}
@@ -0,0 +1,191 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+import org.codehaus.plexus.util.IOUtil;
+
+/**
+ * Reads the WARN_LOGFILE while doxygen is writing it and feeds the parsed warnings into the statistics. The file is
+ * read only once and only the current line is kept in memory.
+ *
+ * @author agent
+ */
+public class DoxygenWarningLogTailer
+    implements Runnable
+{
+    /**
+     * Lines which are longer are cut, to keep the memory bounded.
+     */
+    private static final int MAX_LINE_LENGTH = 64 * 1024;
+
+    private static final long POLL_INTERVAL = 200;
+
+    private static final Charset UTF_8 = Charset.forName( "UTF-8" );
+
+    private final File logFile;
+
+    private final DoxygenWarningParser parser;
+
+    private final DoxygenWarningStatistics statistics;
+
+    private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+    private Thread thread;
+
+    private volatile boolean finished;
+
+    private IOException failure;
+
+    /**
+     * @param logFile The WARN_LOGFILE. An existing file is removed by {@link #start()}.
+     * @param parser The parser for the lines.
+     * @param statistics The statistics the warnings are added to.
+     */
+    public DoxygenWarningLogTailer( File logFile, DoxygenWarningParser parser, DoxygenWarningStatistics statistics )
+    {
+        this.logFile = logFile;
+        this.parser = parser;
+        this.statistics = statistics;
+    }
+
+    /**
+     * Remove the file of an earlier run and start reading in the background.
+     */
+    public void start()
+    {
+        logFile.delete();
+        thread = new Thread( this, "doxygen-warnings" );
+        thread.setDaemon( true );
+        thread.start();
+    }
+
+    /**
+     * Read the rest of the file after doxygen has finished and wait for the background thread.
+     *
+     * @throws IOException in case of failures during reading the file.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public void stop()
+        throws IOException, InterruptedException
+    {
+        finished = true;
+        thread.join();
+        if ( failure != null )
+        {
+            throw failure;
+        }
+    }
+
+    /** {@inheritDoc} */
+    public void run()
+    {
+        InputStream in = null;
+        try
+        {
+            while ( in == null )
+            {
+                boolean last = finished;
+                if ( logFile.isFile() )
+                {
+                    in = new FileInputStream( logFile );
+                }
+                else if ( last )
+                {
+                    return;
+                }
+                else
+                {
+                    Thread.sleep( POLL_INTERVAL );
+                }
+            }
+
+            byte[] buffer = new byte[64 * 1024];
+            while ( true )
+            {
+                // Read the flag before reading the file, so nothing is lost which was written before the end.
+                boolean last = finished;
+                int count = in.read( buffer );
+                if ( count > 0 )
+                {
+                    consume( buffer, count );
+                }
+                else if ( last )
+                {
+                    break;
+                }
+                else
+                {
+                    Thread.sleep( POLL_INTERVAL );
+                }
+            }
+            endLine();
+        }
+        catch ( IOException e )
+        {
+            failure = e;
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+        finally
+        {
+            IOUtil.close( in );
+        }
+    }
+
+    private void consume( byte[] buffer, int count )
+    {
+        for ( int i = 0; i < count; i++ )
+        {
+            byte b = buffer[i];
+            if ( b == '\n' )
+            {
+                endLine();
+            }
+            else if ( b != '\r' && line.size() < MAX_LINE_LENGTH )
+            {
+                line.write( b );
+            }
+        }
+    }
+
+    private void endLine()
+    {
+        if ( line.size() > 0 )
+        {
+            DoxygenWarning warning = parser.parse( new String( line.toByteArray(), UTF_8 ) );
+            if ( warning != null )
+            {
+                statistics.add( warning );
+            }
+            line.reset();
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parses the lines doxygen writes to the WARN_LOGFILE. The lines are expected in the format given by WARN_FORMAT which
+ * may contain the <code>$file</code>, <code>$line</code>, <code>$text</code> and <code>$version</code> tags. Lines
+ * which do not match the format (for example continuation lines of multi line messages) are ignored.
+ *
+ * @author agent
+ */
+public class DoxygenWarningParser
+{
+    /**
+     * The default of WARN_FORMAT.
+     */
+    public static final String DEFAULT_FORMAT = "$file:$line: $text";
+
+    private static final String[] TAGS = { "$file", "$line", "$text", "$version" };
+
+    private static final String[][] CATEGORIES = {
+        { "is not documented", "undocumented" },
+        { "are not documented", "undocumented" },
+        { "not documented", "undocumented" },
+        { "parameter", "parameters" },
+        { "argument", "parameters" },
+        { "unable to resolve reference", "unresolved reference" },
+        { "explicit link request", "unresolved reference" },
+        { "unknown command", "unknown command" },
+        { "unsupported xml/html tag", "unsupported tag" },
+        { "unexpected", "syntax" },
+        { "end of comment", "syntax" },
+        { "no matching", "no matching member" },
+        { "multiple", "duplicate" },
+        { "duplicate", "duplicate" },
+    };
+
+    private final Pattern pattern;
+
+    private final int fileGroup;
+
+    private final int lineGroup;
+
+    private final int textGroup;
+
+    /**
+     * @param format The value of WARN_FORMAT. If <code>null</code> or empty the doxygen default is used.
+     */
+    public DoxygenWarningParser( String format )
+    {
+        format = unquote( format );
+        if ( format.length() == 0 )
+        {
+            format = DEFAULT_FORMAT;
+        }
+
+        StringBuilder regex = new StringBuilder( "^" );
+        List<String> groups = new ArrayList<String>();
+        int position = 0;
+        while ( position < format.length() )
+        {
+            String tag = findTag( format, position );
+            if ( tag == null )
+            {
+                regex.append( Pattern.quote( format.substring( position ) ) );
+                break;
+            }
+            int index = format.indexOf( tag, position );
+            if ( index > position )
+            {
+                regex.append( Pattern.quote( format.substring( position, index ) ) );
+            }
+            if ( "$line".equals( tag ) )
+            {
+                regex.append( "(\\d*)" );
+            }
+            else if ( "$text".equals( tag ) )
+            {
+                regex.append( "(.*)" );
+            }
+            else
+            {
+                regex.append( "(.*?)" );
+            }
+            groups.add( tag );
+            position = index + tag.length();
+        }
+        regex.append( "$" );
+
+        this.pattern = Pattern.compile( regex.toString() );
+        this.fileGroup = groups.indexOf( "$file" ) + 1;
+        this.lineGroup = groups.indexOf( "$line" ) + 1;
+        this.textGroup = groups.indexOf( "$text" ) + 1;
+    }
+
+    private static String unquote( String format )
+    {
+        if ( format == null )
+        {
+            return "";
+        }
+        String result = format.trim();
+        if ( result.length() >= 2 && result.startsWith( "\"" ) && result.endsWith( "\"" ) )
+        {
+            result = result.substring( 1, result.length() - 1 );
+        }
+        return result;
+    }
+
+    private static String findTag( String format, int position )
+    {
+        String result = null;
+        int first = Integer.MAX_VALUE;
+        for ( String tag : TAGS )
+        {
+            int index = format.indexOf( tag, position );
+            if ( index >= 0 && index < first )
+            {
+                first = index;
+                result = tag;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param line A line of the WARN_LOGFILE.
+     * @return The warning or <code>null</code> if the line does not match the WARN_FORMAT.
+     */
+    public DoxygenWarning parse( String line )
+    {
+        Matcher matcher = pattern.matcher( line );
+        if ( !matcher.matches() )
+        {
+            return null;
+        }
+        String file = fileGroup > 0 ? matcher.group( fileGroup ) : "";
+        int number = 0;
+        if ( lineGroup > 0 && matcher.group( lineGroup ).length() > 0 )
+        {
+            try
+            {
+                number = Integer.parseInt( matcher.group( lineGroup ) );
+            }
+            catch ( NumberFormatException e )
+            {
+                // Ignore line numbers which are too large.
+            }
+        }
+        String text = textGroup > 0 ? matcher.group( textGroup ) : line;
+        return new DoxygenWarning( file, number, categorize( text ), text );
+    }
+
+    /**
+     * Classify the message of a warning. The category is derived from the wording of the message, so messages about
+     * different symbols end up in the same category.
+     *
+     * @param text The message (including the <code>warning:</code> or <code>error:</code> prefix).
+     * @return The category.
+     */
+    public static String categorize( String text )
+    {
+        String lower = text.toLowerCase( Locale.ENGLISH ).trim();
+        if ( lower.startsWith( "error:" ) )
+        {
+            return "error";
+        }
+        for ( String[] category : CATEGORIES )
+        {
+            if ( lower.contains( category[0] ) )
+            {
+                return category[1];
+            }
+        }
+        return "other";
+    }
+}
@@ -0,0 +1,186 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import org.codehaus.plexus.util.IOUtil;
+
+/**
+ * Counts the warnings of a doxygen run per file and category. Only the counts are kept, so the memory needed does not
+ * depend on the number of warnings. All methods can be called by several threads.
+ *
+ * @author agent
+ */
+public class DoxygenWarningStatistics
+{
+    /**
+     * The name of the file the statistics are stored in within the report output directory.
+     */
+    public static final String FILE_NAME = "doxygen-warnings.properties";
+
+    private static final char SEPARATOR = '|';
+
+    private final Map<String, Map<String, Integer>> files = new TreeMap<String, Map<String, Integer>>();
+
+    private long total;
+
+    /**
+     * @param warning The warning to count.
+     */
+    public synchronized void add( DoxygenWarning warning )
+    {
+        add( warning.getFile(), warning.getCategory(), 1 );
+    }
+
+    private void add( String file, String category, int count )
+    {
+        Map<String, Integer> categories = files.get( file );
+        if ( categories == null )
+        {
+            categories = new TreeMap<String, Integer>();
+            files.put( file, categories );
+        }
+        Integer current = categories.get( category );
+        categories.put( category, Integer.valueOf( current == null ? count : current.intValue() + count ) );
+        total += count;
+    }
+
+    /**
+     * @return The number of all warnings.
+     */
+    public synchronized long getTotal()
+    {
+        return total;
+    }
+
+    /**
+     * @return The number of warnings per category.
+     */
+    public synchronized Map<String, Long> getCountsByCategory()
+    {
+        Map<String, Long> result = new TreeMap<String, Long>();
+        for ( Map<String, Integer> categories : files.values() )
+        {
+            for ( Map.Entry<String, Integer> entry : categories.entrySet() )
+            {
+                Long current = result.get( entry.getKey() );
+                result.put( entry.getKey(), Long.valueOf( ( current == null ? 0 : current.longValue() )
+                    + entry.getValue().intValue() ) );
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return The number of warnings per file and category sorted by the file.
+     */
+    public synchronized Map<String, Map<String, Integer>> getCountsByFile()
+    {
+        Map<String, Map<String, Integer>> result = new TreeMap<String, Map<String, Integer>>();
+        for ( Map.Entry<String, Map<String, Integer>> entry : files.entrySet() )
+        {
+            result.put( entry.getKey(), new TreeMap<String, Integer>( entry.getValue() ) );
+        }
+        return result;
+    }
+
+    /**
+     * @param file The file to write the counts to.
+     * @throws IOException in case of failures during writing.
+     */
+    public synchronized void store( File file )
+        throws IOException
+    {
+        Properties properties = new Properties();
+        for ( Map.Entry<String, Map<String, Integer>> entry : files.entrySet() )
+        {
+            for ( Map.Entry<String, Integer> category : entry.getValue().entrySet() )
+            {
+                properties.setProperty( category.getKey() + SEPARATOR + entry.getKey(),
+                                        category.getValue().toString() );
+            }
+        }
+        file.getParentFile().mkdirs();
+        OutputStream out = new FileOutputStream( file );
+        try
+        {
+            properties.store( out, "doxygen warnings" );
+        }
+        finally
+        {
+            IOUtil.close( out );
+        }
+    }
+
+    /**
+     * @param file The file written by {@link #store(File)}.
+     * @return The counts or <code>null</code> if the file does not exist.
+     * @throws IOException in case of failures during reading.
+     */
+    public static DoxygenWarningStatistics load( File file )
+        throws IOException
+    {
+        if ( !file.isFile() )
+        {
+            return null;
+        }
+        Properties properties = new Properties();
+        InputStream in = new FileInputStream( file );
+        try
+        {
+            properties.load( in );
+        }
+        finally
+        {
+            IOUtil.close( in );
+        }
+
+        DoxygenWarningStatistics result = new DoxygenWarningStatistics();
+        for ( String key : properties.stringPropertyNames() )
+        {
+            int index = key.indexOf( SEPARATOR );
+            if ( index < 0 )
+            {
+                continue;
+            }
+            try
+            {
+                result.add( key.substring( index + 1 ), key.substring( 0, index ),
+                            Integer.parseInt( properties.getProperty( key ) ) );
+            }
+            catch ( NumberFormatException e )
+            {
+                // Ignore broken entries.
+            }
+        }
+        return result;
+    }
+}
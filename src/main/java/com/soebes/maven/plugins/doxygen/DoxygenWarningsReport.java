@@ -0,0 +1,219 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.maven.plugins.annotations.Component;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.reporting.AbstractMavenReport;
+import org.apache.maven.reporting.MavenReportException;
+import org.codehaus.doxia.site.renderer.SiteRenderer;
+import org.codehaus.doxia.sink.Sink;
+
+/**
+ * This report shows the warnings of the last doxygen run per category and per file. The warnings are only collected if
+ * WARN_LOGFILE (warnLogfile) is set. The report has to be configured after the <code>report</code> goal. It only
+ * reads the warnings stored by the <code>report</code> goal and does not need any of the doxygen parameters.
+ *
+ * @author agent
+ */
+@Mojo( name = "warnings", defaultPhase = LifecyclePhase.SITE, requiresProject = true, threadSafe = true )
+public class DoxygenWarningsReport
+    extends AbstractMavenReport
+{
+
+    @Component
+    private SiteRenderer siteRenderer;
+
+    /**
+     * The current project.
+     */
+    @Parameter( defaultValue = "${project}", required = true, readonly = true )
+    private MavenProject project;
+
+    /**
+     * The directory the site is generated to. The report goal stores the warnings in this directory.
+     */
+    @Parameter( defaultValue = "${project.reporting.outputDirectory}", property = "reportOutputDirectory",
+                required = true )
+    private File outputDirectory;
+
+    /** {@inheritDoc} */
+    protected void executeReport( Locale locale )
+        throws MavenReportException
+    {
+        File file = getWarningStatisticsFile();
+        DoxygenWarningStatistics statistics;
+        try
+        {
+            statistics = DoxygenWarningStatistics.load( file );
+        }
+        catch ( IOException e )
+        {
+            throw new MavenReportException( "Error reading the doxygen warnings '" + file.getAbsolutePath() + "'.", e );
+        }
+        render( getSink(), statistics );
+    }
+
+    /**
+     * @return The file the report goal has stored the warnings in.
+     */
+    File getWarningStatisticsFile()
+    {
+        return new File( getReportOutputDirectory(), DoxygenWarningStatistics.FILE_NAME );
+    }
+
+    /**
+     * Write the warnings into the given sink.
+     *
+     * @param sink The sink.
+     * @param statistics The warnings or <code>null</code> if they are not available.
+     */
+    static void render( Sink sink, DoxygenWarningStatistics statistics )
+    {
+        sink.head();
+        sink.title();
+        sink.text( "Doxygen Warnings" );
+        sink.title_();
+        sink.head_();
+
+        sink.body();
+        sink.section1();
+        sink.sectionTitle1();
+        sink.text( "Doxygen Warnings" );
+        sink.sectionTitle1_();
+
+        if ( statistics == null )
+        {
+            paragraph( sink, "No warnings have been collected. Set warnLogfile to collect the warnings of doxygen." );
+        }
+        else
+        {
+            paragraph( sink, "Total number of warnings: " + statistics.getTotal() );
+
+            sink.table();
+            row( sink, true, "Category", "Warnings" );
+            for ( Map.Entry<String, Long> entry : statistics.getCountsByCategory().entrySet() )
+            {
+                row( sink, false, entry.getKey(), entry.getValue().toString() );
+            }
+            sink.table_();
+
+            sink.section2();
+            sink.sectionTitle2();
+            sink.text( "Files" );
+            sink.sectionTitle2_();
+            sink.table();
+            row( sink, true, "File", "Category", "Warnings" );
+            for ( Map.Entry<String, Map<String, Integer>> file : statistics.getCountsByFile().entrySet() )
+            {
+                for ( Map.Entry<String, Integer> entry : file.getValue().entrySet() )
+                {
+                    row( sink, false, file.getKey(), entry.getKey(), entry.getValue().toString() );
+                }
+            }
+            sink.table_();
+            sink.section2_();
+        }
+
+        sink.section1_();
+        sink.body_();
+        sink.flush();
+    }
+
+    private static void paragraph( Sink sink, String text )
+    {
+        sink.paragraph();
+        sink.text( text );
+        sink.paragraph_();
+    }
+
+    private static void row( Sink sink, boolean header, String... cells )
+    {
+        sink.tableRow();
+        for ( String cell : cells )
+        {
+            if ( header )
+            {
+                sink.tableHeaderCell();
+                sink.text( cell );
+                sink.tableHeaderCell_();
+            }
+            else
+            {
+                sink.tableCell();
+                sink.text( cell );
+                sink.tableCell_();
+            }
+        }
+        sink.tableRow_();
+    }
+
+    /** {@inheritDoc} */
+    protected SiteRenderer getSiteRenderer()
+    {
+        return siteRenderer;
+    }
+
+    /** {@inheritDoc} */
+    protected String getOutputDirectory()
+    {
+        return outputDirectory.getAbsolutePath();
+    }
+
+    /** {@inheritDoc} */
+    protected MavenProject getProject()
+    {
+        return project;
+    }
+
+    /** {@inheritDoc} */
+    public String getOutputName()
+    {
+        return "doxygen-warnings";
+    }
+
+    /** {@inheritDoc} */
+    public boolean isExternalReport()
+    {
+        return false;
+    }
+
+    /** {@inheritDoc} */
+    public String getDescription( Locale locale )
+    {
+        return "Warnings of the Doxygen run";
+    }
+
+    /** {@inheritDoc} */
+    public String getName( Locale locale )
+    {
+        return "Doxygen Warnings";
+    }
+}
@@ -0,0 +1,269 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.reporting.MavenReportException;
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Generates the documentation once and regenerates it whenever input files change until the build is stopped
+ * (Ctrl+C). If only a few files have changed, only these files are documented into a preview directory
+ * (<code>doxygen-preview/html</code> in the outputDirectory) which links to the documentation of the last full run via
+ * a tag file, so the changes can be looked at within seconds. Larger changes and deleted files lead to a full run.
+ *
+ * @author agent
+ */
+@Mojo( name = "watch", requiresProject = true, threadSafe = true )
+public class DoxygenWatchMojo
+    extends AbstractDoxygenMojo
+{
+    /**
+     * The time in milli seconds without further changes which ends a burst of changes.
+     */
+    @Parameter( property = "doxygen.watchDebounce", defaultValue = "500" )
+    private long watchDebounce;
+
+    /**
+     * The maximum number of changed files which are documented into the preview directory. If more files have
+     * changed the complete documentation is generated again.
+     */
+    @Parameter( property = "doxygen.watchMaxChangedFiles", defaultValue = "20" )
+    private int watchMaxChangedFiles;
+
+    /**
+     * Set for the full runs, so the preview runs can link to the documentation.
+     */
+    private boolean fullRun;
+
+    /** {@inheritDoc} */
+    public void execute()
+        throws MojoExecutionException
+    {
+        if ( isSkip() )
+        {
+            getLog().info( "Skipping doxygen watch" );
+            return;
+        }
+
+        try
+        {
+            runFull();
+
+            DoxygenSourceWatcher watcher = new DoxygenSourceWatcher( getInputScanner(), isRecursive() );
+            try
+            {
+                getLog().info( "Watching the input files for changes. Press Ctrl+C to stop." );
+                while ( !Thread.currentThread().isInterrupted() )
+                {
+                    Set<File> changes = watcher.awaitChanges( getWatchDebounce() );
+                    try
+                    {
+                        regenerate( changes, watcher.isOverflow() );
+                    }
+                    catch ( MavenReportException e )
+                    {
+                        // Keep watching, the next change may fix the problem.
+                        getLog().error( e.getMessage(), e );
+                    }
+                }
+            }
+            finally
+            {
+                watcher.close();
+            }
+        }
+        catch ( MavenReportException e )
+        {
+            throw new MojoExecutionException( e.getMessage(), e );
+        }
+        catch ( IOException e )
+        {
+            throw new MojoExecutionException( "Could not watch the input files: " + e.getMessage(), e );
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @param changes The changed files.
+     * @param incomplete true if the changes are not complete.
+     * @throws MavenReportException in case of failures.
+     */
+    void regenerate( Set<File> changes, boolean incomplete )
+        throws MavenReportException
+    {
+        List<File> existing = new ArrayList<File>();
+        boolean deleted = false;
+        for ( File file : changes )
+        {
+            if ( file.isFile() )
+            {
+                existing.add( file );
+            }
+            else
+            {
+                deleted = true;
+            }
+        }
+
+        if ( incomplete || deleted || existing.size() > getWatchMaxChangedFiles() || !getFullTagfile().isFile() )
+        {
+            getLog().info( changes.size() + " files changed, generating the complete documentation." );
+            runFull();
+        }
+        else if ( !existing.isEmpty() )
+        {
+            getLog().info( existing.size() + " files changed, generating the preview." );
+            runPreview( existing );
+        }
+    }
+
+    private void runFull()
+        throws MavenReportException
+    {
+        getPreviewDirectory().mkdirs();
+        fullRun = true;
+        try
+        {
+            executeReport( Locale.getDefault() );
+        }
+        finally
+        {
+            fullRun = false;
+            finishExecution();
+        }
+    }
+
+    private void runPreview( List<File> files )
+        throws MavenReportException
+    {
+        File previewDirectory = getPreviewDirectory();
+        File html = new File( previewDirectory, "html" );
+        try
+        {
+            FileUtils.deleteDirectory( html );
+        }
+        catch ( IOException e )
+        {
+            throw new MavenReportException( "Could not delete the preview '" + html.getAbsolutePath() + "'.", e );
+        }
+
+        Map<DoxygenParameters, String> overrides = new EnumMap<DoxygenParameters, String>( DoxygenParameters.class );
+        // The changed files are filtered the same way as in the full run.
+        overrides.put( DoxygenParameters.INPUT, toInputList( filterInputFiles( files ) ) );
+        overrides.put( DoxygenParameters.RECURSIVE, "NO" );
+        overrides.put( DoxygenParameters.OUTPUT_DIRECTORY, previewDirectory.getAbsolutePath() );
+        overrides.put( DoxygenParameters.HTML_OUTPUT, "html" );
+        overrides.put( DoxygenParameters.GENERATE_TAGFILE, "" );
+        overrides.put( DoxygenParameters.GENERATE_LATEX, "NO" );
+        overrides.put( DoxygenParameters.GENERATE_RTF, "NO" );
+        overrides.put( DoxygenParameters.GENERATE_MAN, "NO" );
+        overrides.put( DoxygenParameters.GENERATE_XML, "NO" );
+        overrides.put( DoxygenParameters.TAGFILES, "\"" + getFullTagfile().getAbsolutePath() + "="
+            + DoxygenReport.getRelativePath( html, getHtmlOutputDirectory() ) + "\"" );
+
+        File config = new File( previewDirectory, "doxygen.config" );
+        try
+        {
+            buildConfigurationFile( config, overrides );
+            // The INPUT contains only the changed files, so the resolved input files are no measure for the progress.
+            runDoxygen( config, getExecutablePath(), null, null, -1 );
+        }
+        finally
+        {
+            finishExecution();
+        }
+        getLog().info( "Preview: " + new File( html, "index.html" ).toURI() );
+    }
+
+    /**
+     * @return The tag file written by the full runs.
+     */
+    File getFullTagfile()
+    {
+        return new File( getPreviewDirectory(), "full.tag" );
+    }
+
+    private File getPreviewDirectory()
+    {
+        return new File( getOutputDirectory(), "doxygen-preview" );
+    }
+
+    /**
+     * Let the full runs write the tag file the preview runs link against.
+     */
+    protected Map<DoxygenParameters, String> getAdditionalConfiguration()
+        throws MavenReportException
+    {
+        if ( !fullRun )
+        {
+            return super.getAdditionalConfiguration();
+        }
+        Map<DoxygenParameters, String> result = new EnumMap<DoxygenParameters, String>( DoxygenParameters.class );
+        result.putAll( super.getAdditionalConfiguration() );
+        result.put( DoxygenParameters.GENERATE_TAGFILE, getFullTagfile().getAbsolutePath() );
+        return result;
+    }
+
+    /**
+     * Every full run has to run doxygen, because the input files have changed within the same build session. The
+     * execution key of the deduplication does not contain the input files.
+     */
+    public boolean isDeduplicate()
+    {
+        return false;
+    }
+
+    public long getWatchDebounce()
+    {
+        return watchDebounce;
+    }
+
+    public void setWatchDebounce( long watchDebounce )
+    {
+        this.watchDebounce = watchDebounce;
+    }
+
+    public int getWatchMaxChangedFiles()
+    {
+        return watchMaxChangedFiles;
+    }
+
+    public void setWatchMaxChangedFiles( int watchMaxChangedFiles )
+    {
+        this.watchMaxChangedFiles = watchMaxChangedFiles;
+    }
+}
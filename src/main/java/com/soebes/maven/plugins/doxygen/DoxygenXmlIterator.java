@@ -0,0 +1,207 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.codehaus.plexus.util.IOUtil;
+
+/**
+ * Iterates over the elements of an XML file of doxygen while it is read. Only the current element is kept in memory.
+ * The iterator has to be closed if it is not iterated until the end.
+ *
+ * @param <T> The type of the elements.
+ * @author agent
+ */
+public abstract class DoxygenXmlIterator<T>
+    implements Iterator<T>, Closeable
+{
+    private final File file;
+
+    private InputStream in;
+
+    private XMLStreamReader reader;
+
+    private T next;
+
+    private boolean finished;
+
+    /**
+     * @param factory The factory used to create the parser.
+     * @param file The XML file.
+     * @throws IOException in case the file could not be opened.
+     */
+    protected DoxygenXmlIterator( XMLInputFactory factory, File file )
+        throws IOException
+    {
+        this.file = file;
+        this.in = new FileInputStream( file );
+        try
+        {
+            this.reader = factory.createXMLStreamReader( in );
+        }
+        catch ( XMLStreamException e )
+        {
+            IOUtil.close( in );
+            throw new IOException( "Could not read '" + file.getAbsolutePath() + "': " + e.getMessage(), e );
+        }
+    }
+
+    /**
+     * Read the next element.
+     *
+     * @param reader The parser.
+     * @return The next element or <code>null</code> at the end of the file.
+     * @throws XMLStreamException in case of failures.
+     */
+    protected abstract T readNext( XMLStreamReader reader )
+        throws XMLStreamException;
+
+    /**
+     * Read the text of the current element including the text of all nested elements. The parser is positioned at
+     * the end of the element afterwards.
+     *
+     * @param reader The parser positioned at the start of an element.
+     * @return The text where white space is normalized.
+     * @throws XMLStreamException in case of failures.
+     */
+    protected static String readText( XMLStreamReader reader )
+        throws XMLStreamException
+    {
+        StringBuilder text = new StringBuilder();
+        int depth = 1;
+        while ( depth > 0 )
+        {
+            int event = reader.next();
+            if ( event == XMLStreamConstants.START_ELEMENT )
+            {
+                depth++;
+            }
+            else if ( event == XMLStreamConstants.END_ELEMENT )
+            {
+                depth--;
+            }
+            else if ( event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA )
+            {
+                text.append( reader.getText() );
+            }
+        }
+        return text.toString().replaceAll( "\\s+", " " ).trim();
+    }
+
+    /**
+     * Skip the current element including all nested elements.
+     *
+     * @param reader The parser positioned at the start of an element.
+     * @throws XMLStreamException in case of failures.
+     */
+    protected static void skipElement( XMLStreamReader reader )
+        throws XMLStreamException
+    {
+        int depth = 1;
+        while ( depth > 0 )
+        {
+            int event = reader.next();
+            if ( event == XMLStreamConstants.START_ELEMENT )
+            {
+                depth++;
+            }
+            else if ( event == XMLStreamConstants.END_ELEMENT )
+            {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalStateException if the file could not be read.
+     */
+    public boolean hasNext()
+    {
+        if ( next == null && !finished )
+        {
+            try
+            {
+                next = readNext( reader );
+            }
+            catch ( XMLStreamException e )
+            {
+                close();
+                throw new IllegalStateException( "Could not read '" + file.getAbsolutePath() + "': "
+                    + e.getMessage(), e );
+            }
+            if ( next == null )
+            {
+                close();
+            }
+        }
+        return next != null;
+    }
+
+    public T next()
+    {
+        if ( !hasNext() )
+        {
+            throw new NoSuchElementException();
+        }
+        T result = next;
+        next = null;
+        return result;
+    }
+
+    public void remove()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public void close()
+    {
+        finished = true;
+        if ( reader != null )
+        {
+            try
+            {
+                reader.close();
+            }
+            catch ( XMLStreamException e )
+            {
+                // The stream is closed below.
+            }
+            reader = null;
+        }
+        IOUtil.close( in );
+        in = null;
+    }
+}
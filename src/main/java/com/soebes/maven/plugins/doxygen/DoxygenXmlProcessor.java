@@ -0,0 +1,44 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import java.io.IOException;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Processes the XML output of doxygen right after doxygen has been called (for example to compare the API with an
+ * earlier version). Implementations are given by the xmlProcessors parameter and need a public default constructor;
+ * they are loaded from the dependencies of the plugin.
+ *
+ * @author agent
+ */
+public interface DoxygenXmlProcessor
+{
+    /**
+     * @param reader The reader of the XML output.
+     * @param log The log of the plugin.
+     * @throws IOException in case of failures. This fails the build.
+     */
+    void process( DoxygenXmlReader reader, Log log )
+        throws IOException;
+}
@@ -0,0 +1,209 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import java.io.File;
+import java.io.IOException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Reads the XML output of doxygen (GENERATE_XML) while iterating over it, so the memory needed does not depend on the
+ * size of the output. The compounds (classes, files, namespaces etc.) are read from <code>index.xml</code>; the
+ * members of a compound are read from the file of the compound when {@link DoxygenCompound#members()} is called.
+ *
+ * <pre>
+ * DoxygenXmlIterator&lt;DoxygenCompound&gt; compounds = new DoxygenXmlReader( xmlOutput ).compounds();
+ * try
+ * {
+ *     while ( compounds.hasNext() )
+ *     {
+ *         DoxygenCompound compound = compounds.next();
+ *         ...
+ *     }
+ * }
+ * finally
+ * {
+ *     compounds.close();
+ * }
+ * </pre>
+ *
+ * @author agent
+ */
+public class DoxygenXmlReader
+{
+    private final File xmlDirectory;
+
+    private final XMLInputFactory factory;
+
+    /**
+     * @param xmlDirectory The XML output directory (XML_OUTPUT).
+     */
+    public DoxygenXmlReader( File xmlDirectory )
+    {
+        this.xmlDirectory = xmlDirectory;
+        this.factory = XMLInputFactory.newInstance();
+        factory.setProperty( XMLInputFactory.SUPPORT_DTD, Boolean.FALSE );
+        factory.setProperty( XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE );
+    }
+
+    /**
+     * @return The XML output directory.
+     */
+    public File getXmlDirectory()
+    {
+        return xmlDirectory;
+    }
+
+    /**
+     * @return The compounds listed in <code>index.xml</code>.
+     * @throws IOException if <code>index.xml</code> could not be opened.
+     */
+    public DoxygenXmlIterator<DoxygenCompound> compounds()
+        throws IOException
+    {
+        return new DoxygenXmlIterator<DoxygenCompound>( factory, new File( xmlDirectory, "index.xml" ) )
+        {
+            @Override
+            protected DoxygenCompound readNext( XMLStreamReader reader )
+                throws XMLStreamException
+            {
+                while ( reader.hasNext() )
+                {
+                    if ( reader.next() == XMLStreamConstants.START_ELEMENT
+                        && "compound".equals( reader.getLocalName() ) )
+                    {
+                        return readCompound( reader );
+                    }
+                }
+                return null;
+            }
+        };
+    }
+
+    private DoxygenCompound readCompound( XMLStreamReader reader )
+        throws XMLStreamException
+    {
+        String id = reader.getAttributeValue( null, "refid" );
+        String kind = reader.getAttributeValue( null, "kind" );
+        String name = null;
+        // The members listed in index.xml are skipped; they are read from the compound file.
+        while ( reader.next() != XMLStreamConstants.END_ELEMENT )
+        {
+            if ( reader.getEventType() == XMLStreamConstants.START_ELEMENT )
+            {
+                if ( "name".equals( reader.getLocalName() ) )
+                {
+                    name = DoxygenXmlIterator.readText( reader );
+                }
+                else
+                {
+                    DoxygenXmlIterator.skipElement( reader );
+                }
+            }
+        }
+        return new DoxygenCompound( this, id, kind, name );
+    }
+
+    /**
+     * @param compound The compound.
+     * @return The members defined in the file of the compound.
+     * @throws IOException if the file could not be opened.
+     */
+    DoxygenXmlIterator<DoxygenMember> members( final DoxygenCompound compound )
+        throws IOException
+    {
+        return new DoxygenXmlIterator<DoxygenMember>( factory, compound.getFile() )
+        {
+            @Override
+            protected DoxygenMember readNext( XMLStreamReader reader )
+                throws XMLStreamException
+            {
+                while ( reader.hasNext() )
+                {
+                    if ( reader.next() == XMLStreamConstants.START_ELEMENT
+                        && "memberdef".equals( reader.getLocalName() ) )
+                    {
+                        return readMember( compound, reader );
+                    }
+                }
+                return null;
+            }
+        };
+    }
+
+    private static DoxygenMember readMember( DoxygenCompound compound, XMLStreamReader reader )
+        throws XMLStreamException
+    {
+        DoxygenMember member = new DoxygenMember( compound );
+        member.setId( reader.getAttributeValue( null, "id" ) );
+        member.setKind( reader.getAttributeValue( null, "kind" ) );
+        member.setProtection( reader.getAttributeValue( null, "prot" ) );
+        member.setStatic( "yes".equals( reader.getAttributeValue( null, "static" ) ) );
+        while ( reader.next() != XMLStreamConstants.END_ELEMENT )
+        {
+            if ( reader.getEventType() != XMLStreamConstants.START_ELEMENT )
+            {
+                continue;
+            }
+            String name = reader.getLocalName();
+            if ( "name".equals( name ) )
+            {
+                member.setName( DoxygenXmlIterator.readText( reader ) );
+            }
+            else if ( "type".equals( name ) )
+            {
+                member.setType( DoxygenXmlIterator.readText( reader ) );
+            }
+            else if ( "definition".equals( name ) )
+            {
+                member.setDefinition( DoxygenXmlIterator.readText( reader ) );
+            }
+            else if ( "argsstring".equals( name ) )
+            {
+                member.setArgsString( DoxygenXmlIterator.readText( reader ) );
+            }
+            else if ( "briefdescription".equals( name ) )
+            {
+                member.setBriefDescription( DoxygenXmlIterator.readText( reader ) );
+            }
+            else if ( "location".equals( name ) )
+            {
+                member.setLocation( reader.getAttributeValue( null, "file" ) );
+                String line = reader.getAttributeValue( null, "line" );
+                if ( line != null && line.matches( "\\d+" ) )
+                {
+                    member.setLine( Integer.parseInt( line ) );
+                }
+                DoxygenXmlIterator.skipElement( reader );
+            }
+            else
+            {
+                DoxygenXmlIterator.skipElement( reader );
+            }
+        }
+        return member;
+    }
+}
@@ -0,0 +1,75 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.plexus.util.cli.StreamConsumer;
+
+/**
+ * This will forward every line doxygen prints to the Maven log at the time it arrives. The lines are already
+ * separated by the stream pumper so there is no need to buffer the whole output.
+ *
+ * @author agent
+ */
+public class LogStreamConsumer
+    implements StreamConsumer
+{
+    /**
+     * Used for output of doxygen we are not interested in.
+     */
+    public static final StreamConsumer DISCARD = new StreamConsumer()
+    {
+        public void consumeLine( String line )
+        {
+            // Intentionally ignored.
+        }
+    };
+
+    private static final String PREFIX = "doxygen: ";
+
+    private final Log log;
+
+    private final boolean warn;
+
+    /**
+     * @param log The log to write to.
+     * @param warn <code>true</code> to log on warn level (used for stderr) otherwise on info level.
+     */
+    public LogStreamConsumer( Log log, boolean warn )
+    {
+        this.log = log;
+        this.warn = warn;
+    }
+
+    /** {@inheritDoc} */
+    public void consumeLine( String line )
+    {
+        if ( warn )
+        {
+            log.warn( PREFIX + line );
+        }
+        else
+        {
+            log.info( PREFIX + line );
+        }
+    }
+}
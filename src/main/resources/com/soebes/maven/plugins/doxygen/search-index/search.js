@@ -0,0 +1,162 @@
+/*
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/*
+ * Client of the search index written by DoxygenSearchIndexBuilder. Only the term bucket of each query term and the
+ * document blocks of the hits are loaded.
+ */
+var DoxygenSearch = (function () {
+  var base = "";
+  var cache = {};
+
+  function load(name, callback) {
+    if (cache.hasOwnProperty(name)) {
+      callback(cache[name]);
+      return;
+    }
+    var request = new XMLHttpRequest();
+    request.onreadystatechange = function () {
+      if (request.readyState === 4) {
+        cache[name] = (request.status === 200 || request.status === 0) && request.responseText
+          ? JSON.parse(request.responseText) : null;
+        callback(cache[name]);
+      }
+    };
+    request.open("GET", base + name, true);
+    request.send();
+  }
+
+  function terms(query) {
+    var result = [];
+    var words = query.toLowerCase().split(/[^a-z0-9]+/);
+    for (var i = 0; i < words.length; i++) {
+      if (words[i].length >= 2) {
+        result.push(words[i]);
+      }
+    }
+    return result;
+  }
+
+  // All documents of the terms in the bucket which start with the given prefix.
+  function lookup(bucket, prefix) {
+    var hits = {};
+    if (bucket) {
+      for (var term in bucket) {
+        if (bucket.hasOwnProperty(term) && term.lastIndexOf(prefix, 0) === 0) {
+          var deltas = bucket[term];
+          var document = 0;
+          for (var i = 0; i < deltas.length; i++) {
+            document += deltas[i];
+            hits[document] = true;
+          }
+        }
+      }
+    }
+    return hits;
+  }
+
+  function search(query, callback, limit) {
+    limit = limit || 50;
+    var words = terms(query);
+    if (words.length === 0) {
+      callback([]);
+      return;
+    }
+    load("meta.json", function (meta) {
+      var hits = null;
+      var pending = words.length;
+      for (var i = 0; i < words.length; i++) {
+        (function (word) {
+          var prefix = word.substring(0, 2);
+          var done = function (bucket) {
+            var found = lookup(bucket, word);
+            if (hits === null) {
+              hits = found;
+            } else {
+              for (var document in hits) {
+                if (hits.hasOwnProperty(document) && !found.hasOwnProperty(document)) {
+                  delete hits[document];
+                }
+              }
+            }
+            if (--pending === 0) {
+              resolve(meta, hits, limit, callback);
+            }
+          };
+          if (meta && meta.buckets.indexOf(prefix) >= 0) {
+            load("terms-" + prefix + ".json", done);
+          } else {
+            done(null);
+          }
+        })(words[i]);
+      }
+    });
+  }
+
+  function resolve(meta, hits, limit, callback) {
+    var numbers = [];
+    for (var document in hits) {
+      if (hits.hasOwnProperty(document)) {
+        numbers.push(parseInt(document, 10));
+      }
+    }
+    numbers.sort(function (a, b) { return a - b; });
+    numbers = numbers.slice(0, limit);
+    var blocks = {};
+    for (var i = 0; i < numbers.length; i++) {
+      blocks[Math.floor(numbers[i] / meta.blockSize)] = true;
+    }
+    var pending = 0;
+    for (var block in blocks) {
+      if (blocks.hasOwnProperty(block)) {
+        pending++;
+      }
+    }
+    if (pending === 0) {
+      callback([]);
+      return;
+    }
+    for (block in blocks) {
+      if (blocks.hasOwnProperty(block)) {
+        load("docs-" + block + ".json", function () {
+          if (--pending === 0) {
+            var result = [];
+            for (var j = 0; j < numbers.length; j++) {
+              var docs = cache["docs-" + Math.floor(numbers[j] / meta.blockSize) + ".json"];
+              var entry = docs && docs[numbers[j] % meta.blockSize];
+              if (entry) {
+                result.push({ name: entry[0], kind: entry[1], link: entry[2], brief: entry[3] });
+              }
+            }
+            callback(result);
+          }
+        });
+      }
+    }
+  }
+
+  return {
+    /* The location of the index relative to the page which uses it (default: the same directory). */
+    setBase: function (location) {
+      base = location;
+      cache = {};
+    },
+    search: search
+  };
+})();
@@ -0,0 +1,148 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import static org.testng.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.Os;
+import org.codehaus.plexus.util.cli.CommandLineUtils;
+import org.codehaus.plexus.util.cli.Commandline;
+import org.testng.SkipException;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class DotGraphCacheTest
+    extends TestBase
+{
+
+    private File base;
+
+    private File calls;
+
+    private File shim;
+
+    @BeforeMethod
+    public void beforeMethod()
+        throws IOException
+    {
+        if ( Os.isFamily( Os.FAMILY_WINDOWS ) )
+        {
+            throw new SkipException( "The dot cache needs a POSIX shell." );
+        }
+        base = new File( getTargetDir(), "dot-cache-test" );
+        FileUtils.deleteDirectory( base );
+        base.mkdirs();
+
+        // A fake dot which writes the format into every output file.
+        calls = new File( base, "calls" );
+        File dot = new File( base, "real dot" );
+        FileUtils.fileWrite( dot, "UTF-8", "#!/bin/sh\necho x >> '" + calls.getAbsolutePath() + "'\n"
+            + "while [ $# -gt 0 ]; do\n"
+            + "  case \"$1\" in\n"
+            + "    -T*) format=\"$1\" ;;\n"
+            + "    -o) shift; echo \"$format\" > \"$1\" ;;\n"
+            + "  esac\n"
+            + "  shift\n"
+            + "done\n" );
+        dot.setExecutable( true );
+
+        shim = new File( base, "bin" );
+        new DotGraphCache( new File( base, "cache" ), dot.getAbsolutePath() ).install( shim );
+    }
+
+    private void runDot( String graph )
+        throws Exception
+    {
+        runDot( graph, null );
+    }
+
+    private void runDot( String graph, String path )
+        throws Exception
+    {
+        Commandline cli = new Commandline();
+        if ( path != null )
+        {
+            cli.addEnvironment( "PATH", path );
+        }
+        cli.setWorkingDirectory( base.getAbsolutePath() );
+        cli.setExecutable( new File( shim, "dot" ).getAbsolutePath() );
+        cli.createArg().setValue( graph );
+        cli.createArg().setValue( "-Tpng" );
+        cli.createArg().setValue( "-o" );
+        cli.createArg().setValue( "out graph.png" );
+        cli.createArg().setValue( "-Tcmapx" );
+        cli.createArg().setValue( "-o" );
+        cli.createArg().setValue( "out graph.map" );
+        assertEquals( CommandLineUtils.executeCommandLine( cli, null, null ), 0 );
+    }
+
+    private int getCalls()
+        throws IOException
+    {
+        return calls.exists() ? FileUtils.fileRead( calls ).split( "\n" ).length : 0;
+    }
+
+    @Test
+    public void unchangedGraphsShouldBeTakenFromTheCache()
+        throws Exception
+    {
+        FileUtils.fileWrite( new File( base, "a.dot" ), "UTF-8", "digraph a { x -> y }" );
+        runDot( "a.dot" );
+        assertEquals( getCalls(), 1 );
+
+        new File( base, "out graph.png" ).delete();
+        new File( base, "out graph.map" ).delete();
+        runDot( "a.dot" );
+        assertEquals( getCalls(), 1 );
+        assertEquals( FileUtils.fileRead( new File( base, "out graph.png" ) ).trim(), "-Tpng" );
+        assertEquals( FileUtils.fileRead( new File( base, "out graph.map" ) ).trim(), "-Tcmapx" );
+
+        FileUtils.fileWrite( new File( base, "a.dot" ), "UTF-8", "digraph a { x -> z }" );
+        runDot( "a.dot" );
+        assertEquals( getCalls(), 2 );
+    }
+
+    @Test
+    public void cacheShouldBeSkippedWithoutStrongHash()
+        throws Exception
+    {
+        FileUtils.fileWrite( new File( base, "a.dot" ), "UTF-8", "digraph a { x -> y }" );
+        // Neither sha1sum nor shasum can be found.
+        String path = new File( base, "empty" ).getAbsolutePath();
+        runDot( "a.dot", path );
+        runDot( "a.dot", path );
+        assertEquals( getCalls(), 2 );
+        assertEquals( FileUtils.fileRead( new File( base, "out graph.png" ) ).trim(), "-Tpng" );
+        String[] entries = new File( base, "cache" ).list();
+        assertEquals( entries == null ? 0 : entries.length, 0 );
+    }
+
+    @Test
+    public void quotesShouldBeEscaped()
+    {
+        assertEquals( DotGraphCache.quote( "it's" ), "'it'\\''s'" );
+    }
+}
@@ -0,0 +1,130 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.maven.model.Model;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.FileUtils;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class DoxygenAggregateReportTest
+    extends TestBase
+{
+
+    private File base;
+
+    @BeforeMethod
+    public void beforeMethod()
+        throws IOException
+    {
+        base = new File( getTargetDir(), "aggregate-test" );
+        FileUtils.deleteDirectory( base );
+    }
+
+    private MavenProject createProject( String name, boolean withSources )
+    {
+        File basedir = new File( base, name );
+        MavenProject project = new MavenProject( new Model() );
+        project.setFile( new File( basedir, "pom.xml" ) );
+        File sources = new File( basedir, "src/main/java" );
+        if ( withSources )
+        {
+            sources.mkdirs();
+        }
+        project.addCompileSourceRoot( sources.getAbsolutePath() );
+        return project;
+    }
+
+    @Test
+    public void inputShouldContainTheExistingSourceRootsOfAllProjects()
+    {
+        List<MavenProject> projects =
+            Arrays.asList( createProject( "root", false ), createProject( "module b", true ),
+                           createProject( "module-a", true ) );
+
+        DoxygenAggregateReport report = new DoxygenAggregateReport();
+        report.setReactorProjects( projects );
+
+        List<String> input = DoxygenInputScanner.splitList( report.getInput() );
+        assertEquals( input.size(), 2 );
+        assertEquals( input.get( 0 ), new File( base, "module b/src/main/java" ).getAbsolutePath() );
+        assertEquals( input.get( 1 ), new File( base, "module-a/src/main/java" ).getAbsolutePath() );
+    }
+
+    @Test
+    public void linkShouldBeBuiltFromTheSiteUrls()
+    {
+        MavenProject root = createProject( "root", false );
+        root.getModel().setUrl( "http://example.com/site/" );
+        MavenProject module = createProject( "module-a", true );
+        module.getModel().setUrl( "http://example.com/site/module-a/" );
+
+        File page = new File( DoxygenReport.getReportingOutputDirectory( module ), "doxygen" );
+        File html = new File( DoxygenReport.getReportingOutputDirectory( root ), "doxygen/html" );
+        assertEquals( DoxygenReport.getLink( page, module, html, root ), "../../doxygen/html" );
+    }
+
+    @Test
+    public void entryPageShouldBeTheDirectoryPageOfTheSourceRoot()
+        throws IOException
+    {
+        MavenProject moduleA = createProject( "module-a", true );
+        MavenProject moduleB = createProject( "module-b", true );
+        String sourcesA = new File( base, "module-a/src/main/java" ).getAbsolutePath();
+        File tagfile = new File( base, "aggregate.tag" );
+        FileUtils.fileWrite( tagfile, "UTF-8", "<?xml version='1.0' encoding='UTF-8' standalone='yes' ?>\n"
+            + "<tagfile>\n"
+            + "  <compound kind=\"file\">\n"
+            + "    <name>A.java</name>\n"
+            + "    <path>" + sourcesA + "/</path>\n"
+            + "    <filename>_a_8java</filename>\n"
+            + "  </compound>\n"
+            + "  <compound kind=\"dir\">\n"
+            + "    <name>java</name>\n"
+            + "    <path>" + sourcesA + "/</path>\n"
+            + "    <filename>dir_1234</filename>\n"
+            + "    <file>A.java</file>\n"
+            + "  </compound>\n"
+            + "</tagfile>\n" );
+
+        Map<String, String> pages = DoxygenAggregateReport.readDirectoryPages( tagfile, ".html" );
+        assertEquals( DoxygenAggregateReport.getEntryPage( moduleA, pages, "index.html" ), "dir_1234.html" );
+        assertEquals( DoxygenAggregateReport.getEntryPage( moduleB, pages, "index.html" ), "index.html" );
+    }
+
+    @Test
+    public void forwardPageShouldContainTheLink()
+    {
+        String page = DoxygenAggregateReport.createForwardPage( "../x/index.html" );
+        assertTrue( page.contains( "url=../x/index.html" ) );
+    }
+}
@@ -0,0 +1,199 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.IOUtil;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class DoxygenArchiverTest
+    extends TestBase
+{
+
+    private File base;
+
+    private File zipFile;
+
+    @BeforeMethod
+    public void beforeMethod()
+        throws IOException
+    {
+        base = new File( getTargetDir(), "archiver-test" );
+        FileUtils.deleteDirectory( base );
+        new File( base, "html/search" ).mkdirs();
+        new File( base, "xml" ).mkdirs();
+        for ( int i = 0; i < 100; i++ )
+        {
+            FileUtils.fileWrite( new File( base, "html/file" + i + ".html" ), "UTF-8",
+                                 "<html><body>file file file file file " + i + "</body></html>" );
+        }
+        FileUtils.fileWrite( new File( base, "html/search/search.js" ), "UTF-8", "" );
+        FileUtils.fileWrite( new File( base, "html/graph.png" ), "UTF-8", "png png png png png png png png" );
+        FileUtils.fileWrite( new File( base, "xml/index.xml" ), "UTF-8", "<doxygenindex/>" );
+        zipFile = new File( base, "docs.zip" );
+    }
+
+    private static byte[] read( ZipFile zip, String name )
+        throws IOException
+    {
+        InputStream in = zip.getInputStream( zip.getEntry( name ) );
+        try
+        {
+            return IOUtil.toByteArray( in );
+        }
+        finally
+        {
+            IOUtil.close( in );
+        }
+    }
+
+    @Test
+    public void directoriesShouldBePackaged()
+        throws IOException
+    {
+        int count =
+            new DoxygenArchiver( "png,gz", 4 ).archive( zipFile, base,
+                                                        Arrays.asList( new File( base, "html" ),
+                                                                       new File( base, "xml" ),
+                                                                       new File( base, "latex" ) ) );
+        assertEquals( count, 103 );
+
+        ZipFile zip = new ZipFile( zipFile );
+        try
+        {
+            List<String> names = new ArrayList<String>();
+            for ( Enumeration<? extends ZipEntry> entries = zip.entries(); entries.hasMoreElements(); )
+            {
+                names.add( entries.nextElement().getName() );
+            }
+            assertEquals( names.size(), 103 );
+            List<String> sorted = new ArrayList<String>( names );
+            Collections.sort( sorted );
+            assertEquals( names, sorted );
+
+            assertEquals( new String( read( zip, "html/file7.html" ), "UTF-8" ),
+                          "<html><body>file file file file file 7</body></html>" );
+            assertEquals( zip.getEntry( "html/file7.html" ).getMethod(), ZipEntry.DEFLATED );
+            assertEquals( zip.getEntry( "html/graph.png" ).getMethod(), ZipEntry.STORED );
+            assertEquals( zip.getEntry( "html/search/search.js" ).getSize(), 0 );
+            assertEquals( new String( read( zip, "xml/index.xml" ), "UTF-8" ), "<doxygenindex/>" );
+        }
+        finally
+        {
+            zip.close();
+        }
+        assertFalse( new File( base, "docs.zip.tmp" ).exists() );
+    }
+
+    @Test
+    public void largeAndIncompressibleFilesShouldBePackaged()
+        throws IOException
+    {
+        byte[] random = new byte[100000];
+        new Random( 42 ).nextBytes( random );
+        Files.write( new File( base, "html/random.bin" ).toPath(), random );
+        byte[] large = new byte[3 * 1024 * 1024];
+        Arrays.fill( large, (byte) 'a' );
+        Files.write( new File( base, "html/large.html" ).toPath(), large );
+        Files.write( new File( base, "html/large.png" ).toPath(), large );
+
+        new DoxygenArchiver( "png", 2 ).archive( zipFile, base, Collections.singletonList( new File( base, "html" ) ) );
+
+        ZipFile zip = new ZipFile( zipFile );
+        try
+        {
+            assertEquals( zip.getEntry( "html/random.bin" ).getMethod(), ZipEntry.STORED );
+            assertEquals( read( zip, "html/random.bin" ), random );
+            assertEquals( zip.getEntry( "html/large.html" ).getMethod(), ZipEntry.DEFLATED );
+            assertEquals( read( zip, "html/large.html" ), large );
+            assertEquals( zip.getEntry( "html/large.png" ).getMethod(), ZipEntry.STORED );
+            assertEquals( read( zip, "html/large.png" ), large );
+            assertNull( zip.getEntry( "xml/index.xml" ) );
+        }
+        finally
+        {
+            zip.close();
+        }
+        // The compressed data of the large file has been written next to the archive and removed afterwards.
+        assertEquals( FileUtils.getFiles( base, "*.deflate", null ).size(), 0 );
+    }
+
+    @Test
+    public void moreThan65535EntriesShouldBePackaged()
+        throws IOException
+    {
+        File many = new File( base, "many" );
+        many.mkdirs();
+        int files = 70000;
+        for ( int i = 0; i < files; i++ )
+        {
+            Files.write( new File( many, "f" + i + ".html" ).toPath(), Integer.toString( i ).getBytes( "UTF-8" ) );
+        }
+
+        int count = new DoxygenArchiver( "png", 4 ).archive( zipFile, base, Collections.singletonList( many ) );
+        assertEquals( count, files );
+
+        // The Zip64 end of central directory record and its locator precede the end of central directory record.
+        byte[] data = Files.readAllBytes( zipFile.toPath() );
+        int end = data.length - 22;
+        assertEquals( Arrays.copyOfRange( data, end, end + 4 ), new byte[] { 'P', 'K', 5, 6 } );
+        assertEquals( Arrays.copyOfRange( data, end - 20, end - 16 ), new byte[] { 'P', 'K', 6, 7 } );
+        assertEquals( Arrays.copyOfRange( data, end - 76, end - 72 ), new byte[] { 'P', 'K', 6, 6 } );
+
+        ZipFile zip = new ZipFile( zipFile );
+        try
+        {
+            assertEquals( zip.size(), files );
+            int entries = 0;
+            for ( Enumeration<? extends ZipEntry> it = zip.entries(); it.hasMoreElements(); it.nextElement() )
+            {
+                entries++;
+            }
+            assertEquals( entries, files );
+            assertEquals( new String( read( zip, "many/f0.html" ), "UTF-8" ), "0" );
+            assertEquals( new String( read( zip, "many/f65535.html" ), "UTF-8" ), "65535" );
+            assertEquals( new String( read( zip, "many/f69999.html" ), "UTF-8" ), "69999" );
+        }
+        finally
+        {
+            zip.close();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import static org.testng.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class DoxygenCacheSizeAdvisorTest
+    extends TestBase
+{
+
+    private static final long GB = 1024L * 1024L * 1024L;
+
+    private File base;
+
+    private File history;
+
+    @BeforeMethod
+    public void beforeMethod()
+        throws IOException
+    {
+        base = new File( getTargetDir(), "cache-size-test" );
+        FileUtils.deleteDirectory( base );
+        base.mkdirs();
+        history = new File( base, "module.history" );
+    }
+
+    @Test
+    public void estimateShouldGrowWithTheInput()
+    {
+        assertEquals( DoxygenCacheSizeAdvisor.estimate( 1024 * 1024 ), 0 );
+        assertEquals( DoxygenCacheSizeAdvisor.estimate( 100L * 1024 * 1024 ), 4 );
+        assertEquals( DoxygenCacheSizeAdvisor.estimate( Long.MAX_VALUE ), DoxygenCacheSizeAdvisor.MAX_VALUE );
+    }
+
+    @Test
+    public void estimateShouldBeLimitedByTheMemory()
+    {
+        assertEquals( new DoxygenCacheSizeAdvisor( history, 16 * GB ).advise( 100L * 1024 * 1024 ), 4 );
+        assertEquals( new DoxygenCacheSizeAdvisor( history, GB / 4 ).advise( 100L * 1024 * 1024 ), 1 );
+    }
+
+    @Test
+    public void historyShouldRefineTheChoice()
+        throws IOException
+    {
+        DoxygenCacheSizeAdvisor advisor = new DoxygenCacheSizeAdvisor( history, 16 * GB );
+        advisor.record( 2, 1000, 5000, -1 );
+        // The next larger size has not been tried yet.
+        assertEquals( advisor.advise( 1000 ), 3 );
+
+        advisor.record( 3, 1000, 6000, -1 );
+        // Larger was slower, so stay with the faster one.
+        assertEquals( advisor.advise( 1000 ), 2 );
+
+        advisor.record( 2, 1000, 5000, 5 );
+        assertEquals( advisor.advise( 1000 ), 5 );
+    }
+
+    @Test
+    public void memInfoShouldBeRead()
+        throws IOException
+    {
+        File meminfo = new File( base, "meminfo" );
+        FileUtils.fileWrite( meminfo, "UTF-8", "MemTotal:       16318412 kB\nMemFree:         1000 kB\n"
+            + "MemAvailable:    8000000 kB\n" );
+        assertEquals( DoxygenCacheSizeAdvisor.readAvailableMemory( meminfo ), 8000000L * 1024 );
+        assertEquals( DoxygenCacheSizeAdvisor.readAvailableMemory( new File( base, "missing" ) ), 0 );
+    }
+}
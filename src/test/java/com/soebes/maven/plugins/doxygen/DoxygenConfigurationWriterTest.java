@@ -0,0 +1,102 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import static org.testng.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.IOUtil;
+import org.testng.annotations.Test;
+
+/**
+ * Compares the configuration written by {@link DoxygenConfigurationWriter} with
+ * <code>src/test/resources/doxygen-golden.config</code>, which has been written by the former
+ * <code>PrintWriter</code> based writer (description, name padded to 22 characters, value, empty line) for the same
+ * items and values.
+ */
+public class DoxygenConfigurationWriterTest
+    extends TestBase
+{
+
+    private static String valueOf( DoxygenParameters key )
+    {
+        if ( key.ordinal() % 7 == 0 )
+        {
+            return null;
+        }
+        if ( key.ordinal() % 5 == 0 )
+        {
+            return "\"/some path/" + key.ordinal() + "\" other";
+        }
+        return "value-" + key.ordinal();
+    }
+
+    @Test
+    public void outputShouldBeIdenticalToTheFormerWriter()
+        throws IOException
+    {
+        File config = new File( getTargetDir(), "golden-test.config" );
+        DoxygenConfigurationWriter writer = new DoxygenConfigurationWriter( config, null, "UTF-8", false, null );
+        for ( DoxygenParameters key : DoxygenParameters.values() )
+        {
+            writer.write( key, valueOf( key ) );
+        }
+        writer.close();
+
+        InputStream in = getClass().getResourceAsStream( "/doxygen-golden.config" );
+        String golden;
+        try
+        {
+            golden = IOUtil.toString( in, "UTF-8" );
+        }
+        finally
+        {
+            IOUtil.close( in );
+        }
+        byte[] expected = golden.replace( "\n", System.getProperty( "line.separator" ) ).getBytes( "UTF-8" );
+        byte[] actual = Files.readAllBytes( config.toPath() );
+        assertEquals( actual.length, expected.length );
+        assertEquals( actual, expected );
+    }
+
+    @Test
+    public void writersShouldNotShareTheirBuffer()
+        throws IOException
+    {
+        File first = new File( getTargetDir(), "writer-first.config" );
+        File second = new File( getTargetDir(), "writer-second.config" );
+        DoxygenConfigurationWriter a = new DoxygenConfigurationWriter( first, null, "UTF-8", true );
+        DoxygenConfigurationWriter b = new DoxygenConfigurationWriter( second, null, "UTF-8", true );
+        a.write( DoxygenParameters.PROJECT_NAME, "first" );
+        b.write( DoxygenParameters.PROJECT_NAME, "second" );
+        a.close();
+        b.close();
+
+        assertEquals( FileUtils.fileRead( first, "UTF-8" ).trim(), "PROJECT_NAME           = first" );
+        assertEquals( FileUtils.fileRead( second, "UTF-8" ).trim(), "PROJECT_NAME           = second" );
+    }
+}
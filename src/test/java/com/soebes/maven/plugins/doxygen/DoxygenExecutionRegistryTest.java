@@ -0,0 +1,156 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+public class DoxygenExecutionRegistryTest
+{
+
+    private static Callable<Void> counting( final AtomicInteger runs )
+    {
+        return new Callable<Void>()
+        {
+            public Void call()
+            {
+                runs.incrementAndGet();
+                return null;
+            }
+        };
+    }
+
+    @Test
+    public void sameKeyShouldRunOncePerSession()
+        throws Exception
+    {
+        DoxygenExecutionRegistry registry = DoxygenExecutionRegistry.getInstance( new Object() );
+        AtomicInteger runs = new AtomicInteger();
+
+        assertTrue( registry.execute( "a", counting( runs ) ) );
+        assertFalse( registry.execute( "a", counting( runs ) ) );
+        assertTrue( registry.execute( "b", counting( runs ) ) );
+        assertEquals( runs.get(), 2 );
+
+        registry.forget( "a" );
+        assertTrue( registry.execute( "a", counting( runs ) ) );
+        assertEquals( runs.get(), 3 );
+    }
+
+    @Test
+    public void sessionsShouldNotShareExecutions()
+        throws Exception
+    {
+        Object session = new Object();
+        assertSame( DoxygenExecutionRegistry.getInstance( session ), DoxygenExecutionRegistry.getInstance( session ) );
+
+        AtomicInteger runs = new AtomicInteger();
+        assertTrue( DoxygenExecutionRegistry.getInstance( session ).execute( "a", counting( runs ) ) );
+        assertTrue( DoxygenExecutionRegistry.getInstance( new Object() ).execute( "a", counting( runs ) ) );
+        assertEquals( runs.get(), 2 );
+    }
+
+    @Test
+    public void failedExecutionShouldBeRunAgain()
+        throws Exception
+    {
+        DoxygenExecutionRegistry registry = DoxygenExecutionRegistry.getInstance( new Object() );
+        try
+        {
+            registry.execute( "a", new Callable<Void>()
+            {
+                public Void call()
+                    throws IOException
+                {
+                    throw new IOException( "failed" );
+                }
+            } );
+            fail( "ExecutionException expected" );
+        }
+        catch ( ExecutionException e )
+        {
+            assertTrue( e.getCause() instanceof IOException );
+        }
+
+        AtomicInteger runs = new AtomicInteger();
+        assertTrue( registry.execute( "a", counting( runs ) ) );
+        assertEquals( runs.get(), 1 );
+    }
+
+    @Test
+    public void secondExecutionShouldWaitForTheRunningOne()
+        throws Exception
+    {
+        final DoxygenExecutionRegistry registry = DoxygenExecutionRegistry.getInstance( new Object() );
+        final CountDownLatch started = new CountDownLatch( 1 );
+        final CountDownLatch release = new CountDownLatch( 1 );
+        final AtomicInteger runs = new AtomicInteger();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try
+        {
+            Future<Boolean> first = executor.submit( new Callable<Boolean>()
+            {
+                public Boolean call()
+                    throws Exception
+                {
+                    return registry.execute( "a", new Callable<Void>()
+                    {
+                        public Void call()
+                            throws InterruptedException
+                        {
+                            started.countDown();
+                            release.await();
+                            runs.incrementAndGet();
+                            return null;
+                        }
+                    } );
+                }
+            } );
+            assertTrue( started.await( 10, TimeUnit.SECONDS ) );
+            release.countDown();
+
+            assertFalse( registry.execute( "a", counting( runs ) ) );
+            assertEquals( runs.get(), 1 );
+            assertTrue( first.get( 10, TimeUnit.SECONDS ) );
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import static org.testng.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class DoxygenFilterStageTest
+    extends TestBase
+{
+
+    static final AtomicInteger CALLS = new AtomicInteger();
+
+    private File base;
+
+    private File sources;
+
+    /**
+     * Converts the content of <code>*.upper</code> files into upper case.
+     */
+    public static class UpperCaseFilter
+        implements DoxygenInputFilter
+    {
+        public boolean accepts( File file )
+        {
+            return file.getName().endsWith( ".upper" );
+        }
+
+        public byte[] filter( File file, byte[] content )
+            throws IOException
+        {
+            CALLS.incrementAndGet();
+            return new String( content, "UTF-8" ).toUpperCase( Locale.ENGLISH ).getBytes( "UTF-8" );
+        }
+
+        public String getVersion()
+        {
+            return "1";
+        }
+    }
+
+    @BeforeMethod
+    public void beforeMethod()
+        throws IOException
+    {
+        base = new File( getTargetDir(), "filter-stage-test" );
+        FileUtils.deleteDirectory( base );
+        sources = new File( base, "project" );
+        new File( sources, "src/sub" ).mkdirs();
+        for ( int i = 0; i < 10; i++ )
+        {
+            FileUtils.fileWrite( new File( sources, "src/sub/f" + i + ".upper" ), "UTF-8", "file " + i );
+        }
+        FileUtils.fileWrite( new File( sources, "src/plain.h" ), "UTF-8", "plain" );
+        CALLS.set( 0 );
+    }
+
+    private DoxygenFilterStage createStage()
+    {
+        List<DoxygenInputFilter> filters = Collections.<DoxygenInputFilter> singletonList( new UpperCaseFilter() );
+        return new DoxygenFilterStage( filters, sources, new File( base, "mirror" ), new File( base, "cache" ), 4 );
+    }
+
+    @Test
+    public void filteredFilesShouldBeMirroredAndCached()
+        throws IOException
+    {
+        List<File> input =
+            Arrays.asList( new File( sources, "src/plain.h" ), new File( sources, "src/sub/f3.upper" ) );
+        DoxygenFilterStage stage = createStage();
+        List<File> result = stage.filter( input );
+
+        assertEquals( result, Arrays.asList( new File( sources, "src/plain.h" ),
+                                             new File( base, "mirror/src/sub/f3.upper" ).getAbsoluteFile() ) );
+        assertEquals( FileUtils.fileRead( result.get( 1 ), "UTF-8" ), "FILE 3" );
+        assertEquals( stage.getFiltered(), 1 );
+
+        FileUtils.deleteDirectory( new File( base, "mirror" ) );
+        stage = createStage();
+        result = stage.filter( input );
+        assertEquals( FileUtils.fileRead( result.get( 1 ), "UTF-8" ), "FILE 3" );
+        assertEquals( stage.getFiltered(), 0 );
+        assertEquals( stage.getCached(), 1 );
+        assertEquals( CALLS.get(), 1 );
+    }
+
+    @Test
+    public void sameContentAtAnotherPathShouldBeFilteredAgain()
+        throws IOException
+    {
+        FileUtils.fileWrite( new File( sources, "src/copy.upper" ), "UTF-8", "file 3" );
+        List<File> input =
+            Arrays.asList( new File( sources, "src/sub/f3.upper" ), new File( sources, "src/copy.upper" ) );
+        DoxygenFilterStage stage = createStage();
+        stage.filter( input );
+
+        assertEquals( stage.getFiltered(), 2 );
+        assertEquals( stage.getCached(), 0 );
+    }
+
+    @Test
+    public void changedFilesShouldBeFilteredAgain()
+        throws IOException
+    {
+        List<File> input = new DoxygenInputScanner( sources, "src", "*.upper", true, null, null, false ).scan();
+        assertEquals( createStage().filter( input ).size(), 10 );
+        assertEquals( CALLS.get(), 10 );
+
+        FileUtils.fileWrite( new File( sources, "src/sub/f5.upper" ), "UTF-8", "changed" );
+        DoxygenFilterStage stage = createStage();
+        List<File> result = stage.filter( input );
+        assertEquals( CALLS.get(), 11 );
+        assertEquals( stage.getCached(), 9 );
+        assertEquals( FileUtils.fileRead( result.get( 5 ), "UTF-8" ), "CHANGED" );
+    }
+}
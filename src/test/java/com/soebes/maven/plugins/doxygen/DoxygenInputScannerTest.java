@@ -0,0 +1,147 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.Os;
+import org.testng.SkipException;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class DoxygenInputScannerTest
+    extends TestBase
+{
+
+    private File sources;
+
+    @BeforeMethod
+    public void beforeMethod()
+        throws IOException
+    {
+        sources = new File( getTargetDir(), "scanner-sources" );
+        FileUtils.deleteDirectory( sources );
+        new File( sources, "sub/test" ).mkdirs();
+        FileUtils.fileWrite( new File( sources, "A.java" ), "UTF-8", "class A {}" );
+        FileUtils.fileWrite( new File( sources, "readme.txt" ), "UTF-8", "Nothing" );
+        FileUtils.fileWrite( new File( sources, "sub/B.java" ), "UTF-8", "class B {}" );
+        FileUtils.fileWrite( new File( sources, "sub/test/C.java" ), "UTF-8", "class C {}" );
+    }
+
+    @Test
+    public void splitListShouldHonorQuotes()
+    {
+        assertEquals( DoxygenInputScanner.splitList( " a  \"b c\" d" ), Arrays.asList( "a", "b c", "d" ) );
+    }
+
+    @Test
+    public void splitListShouldAcceptNull()
+    {
+        assertTrue( DoxygenInputScanner.splitList( null ).isEmpty() );
+    }
+
+    @Test
+    public void wildcardsShouldBeConverted()
+    {
+        assertTrue( DoxygenInputScanner.toPattern( "*.java" ).matcher( "A.java" ).matches() );
+        assertFalse( DoxygenInputScanner.toPattern( "*.java" ).matcher( "Ajava" ).matches() );
+        assertTrue( DoxygenInputScanner.toPattern( "*/test/*" ).matcher( "/x/test/C.java" ).matches() );
+    }
+
+    @Test
+    public void nonRecursiveScanShouldOnlyFindTopLevelFiles()
+    {
+        List<File> result = new DoxygenInputScanner( sources, ".", "*.java", false, null, null, false ).scan();
+        assertEquals( result, Arrays.asList( new File( sources, "A.java" ).getAbsoluteFile() ) );
+    }
+
+    @Test
+    public void recursiveScanShouldHonorExcludes()
+    {
+        List<File> result =
+            new DoxygenInputScanner( sources, ".", "*.java", true, null, "*/test/*", false ).scan();
+        assertEquals( result, Arrays.asList( new File( sources, "A.java" ).getAbsoluteFile(),
+                                             new File( sources, "sub/B.java" ).getAbsoluteFile() ) );
+    }
+
+    @Test
+    public void parallelScanShouldFindTheSameFiles()
+        throws IOException
+    {
+        for ( int i = 0; i < 20; i++ )
+        {
+            File directory = new File( sources, "many/d" + i + "/e" + ( i % 3 ) );
+            directory.mkdirs();
+            FileUtils.fileWrite( new File( directory, "F" + i + ".java" ), "UTF-8", "class F {}" );
+        }
+        DoxygenInputScanner scanner = new DoxygenInputScanner( sources, ".", "*.java", true, "sub", null, false );
+        scanner.setParallelism( 1 );
+        List<File> sequential = scanner.scan();
+        scanner.setParallelism( 8 );
+        List<File> parallel = scanner.scan();
+
+        assertEquals( sequential.size(), 21 );
+        assertEquals( parallel, sequential );
+        assertFalse( parallel.contains( new File( sources, "sub/B.java" ).getAbsoluteFile() ) );
+    }
+
+    @Test
+    public void symbolicLinkCyclesShouldBeVisitedOnce()
+        throws IOException
+    {
+        if ( Os.isFamily( Os.FAMILY_WINDOWS ) )
+        {
+            throw new SkipException( "Symbolic links need special privileges on Windows." );
+        }
+        // sub/test/loop points back to the root of the sources.
+        Files.createSymbolicLink( new File( sources, "sub/test/loop" ).toPath(), sources.toPath() );
+
+        DoxygenInputScanner scanner = new DoxygenInputScanner( sources, ".", "*.java", true, null, null, false );
+        List<File> files = scanner.scan();
+
+        assertEquals( files.size(), 3 );
+        assertTrue( files.contains( new File( sources, "sub/test/C.java" ).getAbsoluteFile() ) );
+    }
+
+    @Test
+    public void acceptsShouldMatchTheScan()
+    {
+        DoxygenInputScanner scanner = new DoxygenInputScanner( sources, ".", "*.java", true, null, "*/test/*", false );
+        assertTrue( scanner.accepts( new File( sources, "sub/B.java" ) ) );
+        assertFalse( scanner.accepts( new File( sources, "sub/test/C.java" ) ) );
+        assertFalse( scanner.accepts( new File( sources, "readme.txt" ) ) );
+        assertFalse( scanner.accepts( new File( getTargetDir(), "Other.java" ) ) );
+
+        scanner = new DoxygenInputScanner( sources, ".", "*.java", false, null, null, false );
+        assertTrue( scanner.accepts( new File( sources, "A.java" ) ) );
+        assertFalse( scanner.accepts( new File( sources, "sub/B.java" ) ) );
+    }
+}
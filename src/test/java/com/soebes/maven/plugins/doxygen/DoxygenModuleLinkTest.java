@@ -0,0 +1,183 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.DistributionManagement;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Site;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.FileUtils;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class DoxygenModuleLinkTest
+    extends TestBase
+{
+
+    private File base;
+
+    private MavenProject core;
+
+    private MavenProject util;
+
+    private MavenProject app;
+
+    private MavenProject other;
+
+    @BeforeMethod
+    public void beforeMethod()
+        throws IOException
+    {
+        base = new File( getTargetDir(), "module-link-test" );
+        FileUtils.deleteDirectory( base );
+        core = createProject( "core" );
+        util = createProject( "util", "core", "junit" );
+        app = createProject( "app", "util" );
+        other = createProject( "other" );
+    }
+
+    private MavenProject createProject( String artifactId, String... dependencies )
+    {
+        Model model = new Model();
+        model.setGroupId( "com.example" );
+        model.setArtifactId( artifactId );
+        for ( String name : dependencies )
+        {
+            Dependency dependency = new Dependency();
+            dependency.setGroupId( "com.example" );
+            dependency.setArtifactId( name );
+            model.addDependency( dependency );
+        }
+        model.setUrl( "http://example.com/site/" + artifactId + "/" );
+        MavenProject project = new MavenProject( model );
+        project.setFile( new File( base, artifactId + "/pom.xml" ) );
+        return project;
+    }
+
+    private File createCoreTagfile()
+        throws IOException
+    {
+        File coreTag = new File( base, "core/target/site/doxygen/core.tag" );
+        coreTag.getParentFile().mkdirs();
+        FileUtils.fileWrite( coreTag, "UTF-8", "<tagfile/>" );
+        return coreTag;
+    }
+
+    private DoxygenReport createReport( MavenProject project )
+    {
+        DoxygenReport report = new DoxygenReport();
+        report.setProject( project );
+        report.setReactorProjects( Arrays.asList( core, util, app, other ) );
+        report.setBasedir( project.getBasedir() );
+        report.setOutputDirectory( new File( project.getBasedir(), "target/site/doxygen" ) );
+        report.setLinkModules( true );
+        return report;
+    }
+
+    @Test
+    public void upstreamProjectsShouldBeFoundTransitively()
+    {
+        assertEquals( new ArrayList<MavenProject>( createReport( app ).getUpstreamProjects() ),
+                      Arrays.asList( util, core ) );
+        assertTrue( createReport( core ).getUpstreamProjects().isEmpty() );
+    }
+
+    @Test
+    public void existingTagfilesOfUpstreamProjectsShouldBeLinked()
+        throws IOException
+    {
+        File coreTag = createCoreTagfile();
+
+        Map<DoxygenParameters, String> items = createReport( app ).getAdditionalConfiguration();
+        assertEquals( items.get( DoxygenParameters.GENERATE_TAGFILE ),
+                      new File( base, "app/target/site/doxygen/app.tag" ).getAbsolutePath() );
+        // Relative within the site, so it works for the staged and the deployed site.
+        assertEquals( items.get( DoxygenParameters.TAGFILES ),
+                      "\"" + coreTag.getAbsolutePath() + "=../../../core/doxygen/html-doc\"" );
+    }
+
+    private static DistributionManagement createDistributionManagement( String url )
+    {
+        Site site = new Site();
+        site.setUrl( url );
+        DistributionManagement distributionManagement = new DistributionManagement();
+        distributionManagement.setSite( site );
+        return distributionManagement;
+    }
+
+    @Test
+    public void siteOfTheDistributionManagementShouldBePreferred()
+    {
+        core.getModel().setDistributionManagement(
+            createDistributionManagement( "scp://example.com/www/modules/core" ) );
+        app.getModel().setDistributionManagement( createDistributionManagement( "scp://example.com/www/app" ) );
+
+        assertEquals( createReport( app ).getModuleLocation( core ), "../../../modules/core/doxygen/html-doc" );
+    }
+
+    @Test
+    public void modulesOnOtherHostsShouldBeLinkedAbsolute()
+    {
+        core.getModel().setUrl( "http://core.example.com/" );
+        assertEquals( createReport( app ).getModuleLocation( core ), "http://core.example.com/doxygen/html-doc" );
+    }
+
+    @Test
+    public void fileSystemShouldBeUsedWithoutUrls()
+    {
+        core.getModel().setUrl( null );
+        assertEquals( createReport( app ).getModuleLocation( core ),
+                      "../../../../../core/target/site/doxygen/html-doc" );
+    }
+
+    @Test
+    public void relativeUrlsShouldBeCalculated()
+    {
+        assertEquals( DoxygenReport.getRelativeUrl( "http://a.com/site/app/", "http://a.com/site/core" ), "../core" );
+        assertEquals( DoxygenReport.getRelativeUrl( "http://a.com/site", "http://a.com/site/lib/core" ), "lib/core" );
+        assertEquals( DoxygenReport.getRelativeUrl( "http://a.com/site/", "http://a.com/site" ), "." );
+        assertEquals( DoxygenReport.getRelativeUrl( "http://a.com/site/", "https://a.com/site/" ),
+                      "https://a.com/site" );
+        assertEquals( DoxygenReport.getRelativeUrl( null, "http://a.com/site" ), null );
+        assertEquals( DoxygenReport.normalizePath( "../../../core/./doxygen/../doxygen/html" ),
+                      "../../../core/doxygen/html" );
+    }
+
+    @Test
+    public void nothingShouldBeAddedIfLinkingIsDisabled()
+    {
+        DoxygenReport report = createReport( app );
+        report.setLinkModules( false );
+        assertFalse( report.getAdditionalConfiguration().containsKey( DoxygenParameters.TAGFILES ) );
+    }
+}
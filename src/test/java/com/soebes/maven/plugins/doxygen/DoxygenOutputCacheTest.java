@@ -0,0 +1,193 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class DoxygenOutputCacheTest
+    extends TestBase
+{
+
+    private static final List<File> NO_TAGFILES = Collections.emptyList();
+
+    private File base;
+
+    private File cacheDirectory;
+
+    private File html;
+
+    private File config;
+
+    private File source;
+
+    @BeforeMethod
+    public void beforeMethod()
+        throws IOException
+    {
+        base = new File( getTargetDir(), "cache-test" );
+        FileUtils.deleteDirectory( base );
+        cacheDirectory = new File( base, "cache" );
+        html = new File( base, "site/doxygen" );
+        new File( html, "search" ).mkdirs();
+        FileUtils.fileWrite( new File( html, "index.html" ), "UTF-8", "<html/>" );
+        FileUtils.fileWrite( new File( html, "search/search.js" ), "UTF-8", "var x;" );
+        config = new File( base, "doxygen.config" );
+        FileUtils.fileWrite( config, "UTF-8", "OUTPUT_DIRECTORY = \"" + base + "/site\"\nINPUT = " + base + "/src\n" );
+        source = new File( base, "src/A.java" );
+        source.getParentFile().mkdirs();
+        FileUtils.fileWrite( source, "UTF-8", "class A {}" );
+    }
+
+    @Test
+    public void storedOutputShouldBeRestored()
+        throws IOException
+    {
+        DoxygenOutputCache cache = new DoxygenOutputCache( cacheDirectory, Long.MAX_VALUE );
+        List<File> outputs = Collections.singletonList( html );
+        File site = new File( base, "site" );
+        String key = cache.createKey( config, "1.8.0", "", Arrays.asList( source ), NO_TAGFILES, base, site );
+
+        assertFalse( cache.restore( key, site, outputs ) );
+        cache.store( key, site, outputs );
+        FileUtils.deleteDirectory( html );
+
+        assertTrue( cache.restore( key, site, outputs ) );
+        assertEquals( FileUtils.fileRead( new File( html, "search/search.js" ), "UTF-8" ), "var x;" );
+    }
+
+    @Test
+    public void keyShouldDependOnSourceContents()
+        throws IOException
+    {
+        DoxygenOutputCache cache = new DoxygenOutputCache( cacheDirectory, Long.MAX_VALUE );
+        File site = new File( base, "site" );
+        List<File> inputs = Arrays.asList( source );
+        String first = cache.createKey( config, "1.8.0", "", inputs, NO_TAGFILES, base, site );
+        FileUtils.fileWrite( source, "UTF-8", "class B {}" );
+        assertNotEquals( cache.createKey( config, "1.8.0", "", inputs, NO_TAGFILES, base, site ), first );
+    }
+
+    @Test
+    public void keyShouldDependOnOutputOptions()
+        throws IOException
+    {
+        DoxygenOutputCache cache = new DoxygenOutputCache( cacheDirectory, Long.MAX_VALUE );
+        File site = new File( base, "site" );
+        List<File> inputs = Arrays.asList( source );
+        String first = cache.createKey( config, "1.8.0", "shards=1", inputs, NO_TAGFILES, base, site );
+        assertNotEquals( cache.createKey( config, "1.8.0", "shards=4", inputs, NO_TAGFILES, base, site ), first );
+    }
+
+    @Test
+    public void leastRecentlyUsedEntriesShouldBeEvicted()
+        throws IOException
+    {
+        DoxygenOutputCache cache = new DoxygenOutputCache( cacheDirectory, 1 );
+        File site = new File( base, "site" );
+        cache.store( "first", site, Collections.singletonList( html ) );
+        assertFalse( new File( cacheDirectory, "first.zip" ).exists() );
+    }
+
+    @Test
+    public void generatedFilesShouldBeRestored()
+        throws IOException
+    {
+        DoxygenOutputCache cache = new DoxygenOutputCache( cacheDirectory, Long.MAX_VALUE );
+        File site = new File( base, "site" );
+        File tagfile = new File( site, "module.tag" );
+        FileUtils.fileWrite( tagfile, "UTF-8", "<tagfile/>" );
+        List<File> outputs = Arrays.asList( html, tagfile, new File( site, "doxygen-warnings.properties" ) );
+        cache.store( "entry", site, outputs );
+        FileUtils.forceDelete( tagfile );
+        FileUtils.fileWrite( new File( site, "doxygen-warnings.properties" ), "UTF-8", "stale" );
+
+        assertTrue( cache.restore( "entry", site, outputs ) );
+        assertEquals( FileUtils.fileRead( tagfile, "UTF-8" ), "<tagfile/>" );
+        assertFalse( new File( site, "doxygen-warnings.properties" ).exists() );
+        assertEquals( site.list().length, 2 );
+    }
+
+    @Test
+    public void outputShouldBeKeptIfTheArchiveIsBroken()
+        throws IOException
+    {
+        DoxygenOutputCache cache = new DoxygenOutputCache( cacheDirectory, Long.MAX_VALUE );
+        File site = new File( base, "site" );
+        byte[] data = new byte[100000];
+        new Random( 1 ).nextBytes( data );
+        FileUtils.fileWrite( new File( html, "data.bin" ), "ISO-8859-1", new String( data, "ISO-8859-1" ) );
+        cache.store( "broken", site, Collections.singletonList( html ) );
+        File archive = new File( cacheDirectory, "broken.zip" );
+        RandomAccessFile file = new RandomAccessFile( archive, "rw" );
+        try
+        {
+            file.setLength( archive.length() / 2 );
+        }
+        finally
+        {
+            file.close();
+        }
+
+        try
+        {
+            cache.restore( "broken", site, Collections.singletonList( html ) );
+            fail( "The broken archive has been restored." );
+        }
+        catch ( IOException e )
+        {
+            // expected
+        }
+        assertEquals( FileUtils.fileRead( new File( html, "search/search.js" ), "UTF-8" ), "var x;" );
+        assertEquals( new File( html, "data.bin" ).length(), data.length );
+        assertEquals( site.list().length, 1 );
+    }
+
+    @Test
+    public void keyShouldDependOnTagfileContents()
+        throws IOException
+    {
+        DoxygenOutputCache cache = new DoxygenOutputCache( cacheDirectory, Long.MAX_VALUE );
+        File site = new File( base, "site" );
+        File tagfile = new File( base, "upstream.tag" );
+        FileUtils.fileWrite( tagfile, "UTF-8", "<tagfile/>" );
+        List<File> tagfiles = Collections.singletonList( tagfile );
+        String first = cache.createKey( config, "1.8.0", "", Arrays.asList( source ), tagfiles, base, site );
+        FileUtils.fileWrite( tagfile, "UTF-8", "<tagfile><compound/></tagfile>" );
+        assertNotEquals( cache.createKey( config, "1.8.0", "", Arrays.asList( source ), tagfiles, base, site ), first );
+    }
+}
@@ -0,0 +1,154 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class DoxygenOutputStagerTest
+    extends TestBase
+{
+
+    private File base;
+
+    @BeforeMethod
+    public void beforeMethod()
+        throws IOException
+    {
+        base = new File( getTargetDir(), "output-stager-test" );
+        FileUtils.deleteDirectory( base );
+        base.mkdirs();
+    }
+
+    private void write( File directory, String name, String content )
+        throws IOException
+    {
+        File file = new File( directory, name );
+        file.getParentFile().mkdirs();
+        FileUtils.fileWrite( file, "UTF-8", content );
+    }
+
+    @Test
+    public void unchangedFilesShouldBeLinked()
+        throws IOException
+    {
+        File html = new File( base, "html" );
+        write( html, "index.html", "same" );
+        write( html, "sub/a.html", "old" );
+        write( html, "removed.html", "removed" );
+        write( base, "other/keep.html", "other report" );
+
+        DoxygenOutputStager stager = new DoxygenOutputStager( base, Arrays.asList( "html" ) );
+        File staging = stager.createStagingDirectory();
+        write( new File( staging, "html" ), "index.html", "same" );
+        write( new File( staging, "html" ), "sub/a.html", "new" );
+        Object oldIndex = Files.readAttributes( new File( html, "index.html" ).toPath(), "unix:ino" ).get( "unix:ino" );
+
+        stager.commit();
+
+        assertEquals( stager.getLinked(), 1 );
+        assertEquals( FileUtils.fileRead( new File( html, "index.html" ) ), "same" );
+        assertEquals( FileUtils.fileRead( new File( html, "sub/a.html" ) ), "new" );
+        assertEquals( Files.readAttributes( new File( html, "index.html" ).toPath(), "unix:ino" ).get( "unix:ino" ),
+                      oldIndex );
+        assertFalse( new File( html, "removed.html" ).exists() );
+        assertTrue( new File( base, "other/keep.html" ).exists() );
+        assertFalse( staging.exists() );
+    }
+
+    @Test
+    public void largeFilesShouldBeComparedCompletely()
+        throws IOException
+    {
+        StringBuilder content = new StringBuilder();
+        for ( int i = 0; i < 3000; i++ )
+        {
+            content.append( "line " ).append( i ).append( '\n' );
+        }
+        File html = new File( base, "html" );
+        write( html, "same.html", content + "a" );
+        write( html, "changed.html", content + "a" );
+
+        DoxygenOutputStager stager = new DoxygenOutputStager( base, Arrays.asList( "html" ) );
+        File staging = stager.createStagingDirectory();
+        write( new File( staging, "html" ), "same.html", content + "a" );
+        write( new File( staging, "html" ), "changed.html", content + "b" );
+
+        stager.commit();
+
+        assertEquals( stager.getLinked(), 1 );
+        assertEquals( FileUtils.fileRead( new File( html, "changed.html" ) ), content + "b" );
+    }
+
+    @Test
+    public void discardShouldKeepThePreviousOutput()
+        throws IOException
+    {
+        File html = new File( base, "html" );
+        write( html, "index.html", "previous" );
+
+        DoxygenOutputStager stager = new DoxygenOutputStager( base, Arrays.asList( "html" ) );
+        File staging = stager.createStagingDirectory();
+        write( new File( staging, "html" ), "index.html", "partial" );
+        stager.discard();
+
+        assertEquals( FileUtils.fileRead( new File( html, "index.html" ) ), "previous" );
+        assertFalse( staging.exists() );
+    }
+
+    @Test
+    public void unchangedFilesShouldKeepTheirCompressedSiblings()
+        throws IOException
+    {
+        File html = new File( base, "html" );
+        write( html, "same.html", "same" );
+        write( html, "changed.html", "old" );
+        DoxygenPrecompressor precompressor = new DoxygenPrecompressor( "html", 1 );
+        assertEquals( precompressor.compress( html ), 2 );
+
+        DoxygenOutputStager stager = new DoxygenOutputStager( base, Arrays.asList( "html" ) );
+        File staging = stager.createStagingDirectory();
+        write( new File( staging, "html" ), "same.html", "same" );
+        write( new File( staging, "html" ), "changed.html", "new" );
+        stager.linkUnchangedFiles();
+
+        assertTrue( new File( staging, "html/same.html.gz" ).isFile() );
+        assertFalse( new File( staging, "html/changed.html.gz" ).exists() );
+        assertEquals( precompressor.compress( new File( staging, "html" ) ), 1 );
+
+        stager.commit();
+
+        assertEquals( stager.getLinked(), 1 );
+        assertTrue( new File( html, "same.html.gz" ).isFile() );
+        assertTrue( new File( html, "changed.html.gz" ).isFile() );
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.IOUtil;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class DoxygenPrecompressorTest
+    extends TestBase
+{
+
+    private File base;
+
+    @BeforeMethod
+    public void beforeMethod()
+        throws IOException
+    {
+        base = new File( getTargetDir(), "precompressor-test" );
+        FileUtils.deleteDirectory( base );
+        new File( base, "search" ).mkdirs();
+        for ( int i = 0; i < 100; i++ )
+        {
+            FileUtils.fileWrite( new File( base, "file" + i + ".html" ), "UTF-8", "<html>" + i + "</html>" );
+        }
+        FileUtils.fileWrite( new File( base, "search/search.js" ), "UTF-8", "var x = 1;" );
+        FileUtils.fileWrite( new File( base, "graph.png" ), "UTF-8", "png" );
+    }
+
+    private String readCompressed( File file )
+        throws IOException
+    {
+        InputStream in = new GZIPInputStream( new FileInputStream( file ) );
+        try
+        {
+            return IOUtil.toString( in, "UTF-8" );
+        }
+        finally
+        {
+            IOUtil.close( in );
+        }
+    }
+
+    @Test
+    public void matchingFilesShouldBeCompressed()
+        throws IOException
+    {
+        DoxygenPrecompressor precompressor = new DoxygenPrecompressor( "html, .js,css", 4 );
+        assertEquals( precompressor.compress( base ), 101 );
+
+        assertEquals( readCompressed( new File( base, "file42.html.gz" ) ), "<html>42</html>" );
+        assertEquals( readCompressed( new File( base, "search/search.js.gz" ) ), "var x = 1;" );
+        assertFalse( new File( base, "graph.png.gz" ).exists() );
+        assertFalse( new File( base, "file42.html.gz.tmp" ).exists() );
+    }
+
+    @Test
+    public void upToDateFilesShouldBeSkipped()
+        throws IOException
+    {
+        DoxygenPrecompressor precompressor = new DoxygenPrecompressor( "html,js", 2 );
+        assertEquals( precompressor.compress( base ), 101 );
+        assertEquals( precompressor.compress( base ), 0 );
+
+        File changed = new File( base, "file1.html" );
+        FileUtils.fileWrite( changed, "UTF-8", "<html>changed</html>" );
+        assertTrue( changed.setLastModified( System.currentTimeMillis() + 10000 ) );
+        assertEquals( precompressor.compress( base ), 1 );
+        assertEquals( readCompressed( new File( base, "file1.html.gz" ) ), "<html>changed</html>" );
+    }
+}
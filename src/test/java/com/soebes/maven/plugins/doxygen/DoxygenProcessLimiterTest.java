@@ -0,0 +1,63 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+
+import java.util.concurrent.Semaphore;
+
+import org.testng.annotations.Test;
+
+public class DoxygenProcessLimiterTest
+{
+
+    @Test
+    public void semaphoreShouldBeResizedForAnotherLimit()
+        throws InterruptedException
+    {
+        Semaphore first = DoxygenProcessLimiter.getSemaphore( 3 );
+        assertSame( DoxygenProcessLimiter.getSemaphore( 3 ), first );
+        assertEquals( first.availablePermits(), 3 );
+
+        first.acquire();
+        Semaphore second = DoxygenProcessLimiter.getSemaphore( 5 );
+        assertSame( second, first );
+        assertEquals( second.availablePermits(), 4 );
+
+        // The running process keeps its permit, so only one further process may start.
+        second.acquire();
+        DoxygenProcessLimiter.getSemaphore( 2 );
+        assertEquals( second.availablePermits(), 0 );
+        first.release();
+        second.release();
+        assertEquals( second.availablePermits(), 2 );
+    }
+
+    @Test
+    public void processorsShouldBeUsedWithoutLimit()
+    {
+        assertEquals( DoxygenProcessLimiter.getSemaphore( 0 ).availablePermits(),
+                      Runtime.getRuntime().availableProcessors() );
+        assertEquals( DoxygenProcessLimiter.getLimit( 0 ), Runtime.getRuntime().availableProcessors() );
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.codehaus.plexus.util.cli.StreamConsumer;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class DoxygenProgressConsumerTest
+{
+
+    private List<String> lines;
+
+    private List<String> reports;
+
+    private DoxygenProgressConsumer consumer;
+
+    @BeforeMethod
+    public void beforeMethod()
+    {
+        lines = new ArrayList<String>();
+        reports = new ArrayList<String>();
+        consumer = new DoxygenProgressConsumer( new StreamConsumer()
+        {
+            public void consumeLine( String line )
+            {
+                lines.add( line );
+            }
+        }, new DoxygenTimings( "test" ), new SystemStreamLog(), 4, 0 )
+        {
+            @Override
+            protected void report( String message )
+            {
+                reports.add( message );
+            }
+        };
+    }
+
+    @Test
+    public void progressShouldBeReportedPerPhase()
+    {
+        consumer.consumeLine( "Searching for files in directory /src" );
+        consumer.consumeLine( "Parsing files" );
+        consumer.consumeLine( "Preprocessing /src/a.h..." );
+        consumer.consumeLine( "Parsing file /src/a.h..." );
+        consumer.consumeLine( "Parsing file /src/b.h..." );
+        consumer.consumeLine( "Building group list..." );
+        consumer.consumeLine( "Generating docs for compound Foo..." );
+        consumer.consumeLine( "Running dot for graph 1/3" );
+        consumer.finish();
+
+        assertEquals( lines.size(), 8 );
+        assertEquals( reports.size(), 7 );
+        assertTrue( reports.get( 0 ).startsWith( "Parsed files 1/4 (" ), reports.get( 0 ) );
+        assertTrue( reports.get( 1 ).startsWith( "Parsed files 2/4 (" ), reports.get( 1 ) );
+        assertTrue( reports.get( 1 ).contains( ", ETA " ), reports.get( 1 ) );
+        assertTrue( reports.get( 2 ).startsWith( "Parsed files 2/4 (" ), reports.get( 2 ) );
+        assertTrue( reports.get( 2 ).endsWith( " finished" ), reports.get( 2 ) );
+        assertTrue( reports.get( 3 ).startsWith( "Generated compounds 1 (" ), reports.get( 3 ) );
+        assertTrue( reports.get( 4 ).endsWith( " finished" ), reports.get( 4 ) );
+        assertTrue( reports.get( 5 ).startsWith( "Dot graphs 1/3 (" ), reports.get( 5 ) );
+        assertTrue( reports.get( 6 ).startsWith( "Dot graphs 1/3 (" ), reports.get( 6 ) );
+    }
+
+    @Test
+    public void secondsShouldBeFormatted()
+    {
+        assertEquals( DoxygenProgressConsumer.formatSeconds( 12.4 ), "12 s" );
+        assertEquals( DoxygenProgressConsumer.formatSeconds( 125 ), "2 min 5 s" );
+    }
+}
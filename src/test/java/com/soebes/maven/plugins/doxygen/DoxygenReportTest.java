@@ -22,6 +22,7 @@
 package com.soebes.maven.plugins.doxygen;
 
 import org.apache.maven.reporting.MavenReportException;
+import org.codehaus.plexus.util.FileUtils;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
@@ -30,6 +31,7 @@ import com.soebes.maven.plugins.doxygen.DoxygenReport;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashMap;
 
 import static junit.framework.TestCase.assertTrue;
@@ -2472,4 +2474,121 @@ public class DoxygenReportTest
         assertEquals( "YES", configList.get( "SEARCHENGINE" ) );
     }
 
+    @Test
+    public void dotNumThreadsTest()
+        throws MavenReportException, IOException
+    {
+        dr.setDotNumThreads( 3 );
+        dr.buildConfigurationFile( resultConfigFile );
+        assertTrue( resultConfigFile.exists() );
+        HashMap<String, String> configList = readConfigFile( resultConfigFile );
+        assertTrue( configList.containsKey( "DOT_NUM_THREADS" ) );
+        assertEquals( "3", configList.get( "DOT_NUM_THREADS" ) );
+    }
+
+    @Test
+    public void dotNumThreadsDefaultTest()
+        throws MavenReportException, IOException
+    {
+        // As many doxygen processes as processors, so each of them runs one dot at a time.
+        dr.buildConfigurationFile( resultConfigFile );
+        HashMap<String, String> configList = readConfigFile( resultConfigFile );
+        assertEquals( "1", configList.get( "DOT_NUM_THREADS" ) );
+    }
+
+    @Test
+    public void dotNumThreadsSharedByProcessesTest()
+        throws MavenReportException, IOException
+    {
+        dr.setMaxConcurrentProcesses( 1 );
+        dr.buildConfigurationFile( resultConfigFile );
+        HashMap<String, String> configList = readConfigFile( resultConfigFile );
+        assertEquals( String.valueOf( Runtime.getRuntime().availableProcessors() ),
+                      configList.get( "DOT_NUM_THREADS" ) );
+    }
+
+    @Test
+    public void compactConfigurationTest()
+        throws MavenReportException, IOException
+    {
+        dr.setCompactConfiguration( true );
+        dr.setProjectName( "ThisIsNonNullValue" );
+        dr.setProjectNumber( "" );
+        dr.buildConfigurationFile( resultConfigFile );
+        assertTrue( resultConfigFile.exists() );
+        String content = FileUtils.fileRead( resultConfigFile );
+        assertTrue( content.indexOf( '#' ) < 0 );
+        HashMap<String, String> configList = readConfigFile( resultConfigFile );
+        assertEquals( "ThisIsNonNullValue", configList.get( "PROJECT_NAME" ) );
+        assertTrue( configList.containsKey( "SEARCHENGINE" ) );
+        assertTrue( !configList.containsKey( "PROJECT_NUMBER" ) );
+    }
+
+
+    @Test
+    public void resolveInputTest()
+        throws MavenReportException, IOException
+    {
+        File sources = new File( getTargetDir(), "resolve-input-sources" );
+        FileUtils.deleteDirectory( sources );
+        new File( sources, "sub" ).mkdirs();
+        FileUtils.fileWrite( new File( sources, "a.h" ), "UTF-8", "int a;" );
+        FileUtils.fileWrite( new File( sources, "sub/b.h" ), "UTF-8", "int b;" );
+        FileUtils.fileWrite( new File( sources, "sub/c.txt" ), "UTF-8", "c" );
+
+        dr.setResolveInput( true );
+        dr.setInput( sources.getAbsolutePath() );
+        dr.setFilePatterns( "*.h" );
+        dr.setRecursive( true );
+        dr.buildConfigurationFile( resultConfigFile );
+        HashMap<String, String> configList = readConfigFile( resultConfigFile );
+        assertEquals( configList.get( "INPUT" ), "\"" + new File( sources, "a.h" ).getAbsolutePath() + "\" \""
+            + new File( sources, "sub/b.h" ).getAbsolutePath() + "\"" );
+    }
+
+
+    @Test
+    public void javaFiltersTest()
+        throws MavenReportException, IOException
+    {
+        File sources = new File( getTargetDir(), "java-filter-sources" );
+        FileUtils.deleteDirectory( sources );
+        sources.mkdirs();
+        FileUtils.fileWrite( new File( sources, "a.upper" ), "UTF-8", "int a;" );
+        File mirror = new File( getTargetDir(), "java-filter-mirror" );
+
+        dr.setJavaFilters( Arrays.asList( DoxygenFilterStageTest.UpperCaseFilter.class.getName() ) );
+        dr.setFilterMirrorDirectory( mirror );
+        dr.setCacheDirectory( null );
+        dr.setBasedir( sources );
+        dr.setInput( sources.getAbsolutePath() );
+        dr.setFilePatterns( "*.upper" );
+        dr.buildConfigurationFile( resultConfigFile );
+        HashMap<String, String> configList = readConfigFile( resultConfigFile );
+        assertEquals( configList.get( "INPUT" ), "\"" + new File( mirror, "a.upper" ).getAbsolutePath() + "\"" );
+        assertEquals( configList.get( "STRIP_FROM_PATH" ), "\"" + mirror.getAbsolutePath() + "\" \""
+            + sources.getAbsolutePath() + "\"" );
+        assertEquals( FileUtils.fileRead( new File( mirror, "a.upper" ), "UTF-8" ), "INT A;" );
+    }
+
+    @Test
+    public void autoCacheSizeShouldBeChosenPerExecutionTest()
+        throws MavenReportException, IOException
+    {
+        File cache = new File( getTargetDir(), "auto-cache-size" );
+        FileUtils.deleteDirectory( cache );
+        dr.setCacheDirectory( cache );
+        dr.setAutoCacheSize( true );
+        dr.buildConfigurationFile( resultConfigFile );
+        assertEquals( readConfigFile( resultConfigFile ).get( "LOOKUP_CACHE_SIZE" ), "0" );
+
+        // The run told which cache size it needs.
+        String module = new DoxygenFingerprint().add( dr.getBasedir().getAbsolutePath() ).getValue();
+        new DoxygenCacheSizeAdvisor( new File( cache, "cache-size/" + module + ".history" ), 0 ).record( 0, 1, 1, 1 );
+        dr.finishExecution();
+
+        dr.buildConfigurationFile( resultConfigFile );
+        assertEquals( readConfigFile( resultConfigFile ).get( "LOOKUP_CACHE_SIZE" ), "1" );
+    }
+
 }
@@ -0,0 +1,129 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class DoxygenSearchIndexBuilderTest
+    extends TestBase
+{
+
+    private File xml;
+
+    private File html;
+
+    @BeforeMethod
+    public void beforeMethod()
+        throws IOException
+    {
+        File base = new File( getTargetDir(), "search-index-test" );
+        FileUtils.deleteDirectory( base );
+        xml = new File( base, "xml" );
+        html = new File( base, "html" );
+        xml.mkdirs();
+        new File( html, "d1" ).mkdirs();
+
+        FileUtils.fileWrite( new File( xml, "index.xml" ), "UTF-8", "<?xml version='1.0' encoding='UTF-8'?>\n"
+            + "<doxygenindex>\n"
+            + "  <compound refid=\"classFooBar\" kind=\"class\"><name>FooBar</name>\n"
+            + "    <member refid=\"classFooBar_1a01\" kind=\"function\"><name>parseInput</name></member>\n"
+            + "  </compound>\n"
+            + "  <compound refid=\"missing\" kind=\"file\"><name>missing.h</name></compound>\n"
+            + "</doxygenindex>\n" );
+        FileUtils.fileWrite( new File( xml, "classFooBar.xml" ), "UTF-8", "<?xml version='1.0' encoding='UTF-8'?>\n"
+            + "<doxygen><compounddef id=\"classFooBar\" kind=\"class\">\n"
+            + "  <compoundname>FooBar</compoundname>\n"
+            + "  <sectiondef kind=\"public-func\">\n"
+            + "    <memberdef kind=\"function\" id=\"classFooBar_1a01\">\n"
+            + "      <type>int</type><name>parseInput</name>\n"
+            + "      <param><type>char *</type><declname>name</declname></param>\n"
+            + "      <briefdescription><para>Reads the <bold>input</bold> \"quoted\".</para></briefdescription>\n"
+            + "    </memberdef>\n"
+            + "  </sectiondef>\n"
+            + "  <briefdescription><para>The class.</para></briefdescription>\n"
+            + "</compounddef></doxygen>\n" );
+        FileUtils.fileWrite( new File( html, "d1/classFooBar.html" ), "UTF-8", "<html/>" );
+    }
+
+    @Test
+    public void indexShouldContainCompoundsAndMembers()
+        throws IOException
+    {
+        assertEquals( new DoxygenSearchIndexBuilder( xml, html, ".html" ).build(), 2 );
+
+        File index = new File( html, DoxygenSearchIndexBuilder.DIRECTORY );
+        assertEquals( FileUtils.fileRead( new File( index, "docs-0.json" ), "UTF-8" ),
+                      "[[\"FooBar::parseInput\",\"function\",\"d1/classFooBar.html#a01\","
+                          + "\"Reads the input \\\"quoted\\\".\"],"
+                          + "[\"FooBar\",\"class\",\"d1/classFooBar.html\",\"The class.\"]]" );
+        String terms = FileUtils.fileRead( new File( index, "terms-pa.json" ), "UTF-8" );
+        assertEquals( terms, "{\"parse\":[0],\"parseinput\":[0]}" );
+        assertEquals( FileUtils.fileRead( new File( index, "terms-cl.json" ), "UTF-8" ), "{\"class\":[1]}" );
+        assertTrue( FileUtils.fileRead( new File( index, "meta.json" ), "UTF-8" ).startsWith( "{\"version\":1,"
+            + "\"documents\":2,\"blockSize\":" + DoxygenSearchIndexBuilder.BLOCK_SIZE + ",\"buckets\":[\"ba\"," ) );
+        assertTrue( new File( index, "search.js" ).isFile() );
+        assertTrue( new File( index, "search.html" ).isFile() );
+    }
+
+    @Test
+    public void documentsShouldBeWrittenInBlocks()
+        throws IOException
+    {
+        int members = DoxygenSearchIndexBuilder.BLOCK_SIZE + 10;
+        StringBuilder compound = new StringBuilder( "<?xml version='1.0' encoding='UTF-8'?>\n" );
+        compound.append( "<doxygen><compounddef id=\"classFooBar\" kind=\"class\">\n" );
+        compound.append( "  <compoundname>FooBar</compoundname>\n  <sectiondef kind=\"public-func\">\n" );
+        for ( int i = 0; i < members; i++ )
+        {
+            compound.append( "    <memberdef kind=\"function\" id=\"classFooBar_1a" ).append( i ).append( "\">" );
+            compound.append( "<name>member" ).append( i ).append( "</name><briefdescription/></memberdef>\n" );
+        }
+        compound.append( "  </sectiondef>\n  <briefdescription/>\n</compounddef></doxygen>\n" );
+        FileUtils.fileWrite( new File( xml, "classFooBar.xml" ), "UTF-8", compound.toString() );
+
+        assertEquals( new DoxygenSearchIndexBuilder( xml, html, ".html" ).build(), members + 1 );
+
+        File index = new File( html, DoxygenSearchIndexBuilder.DIRECTORY );
+        String first = FileUtils.fileRead( new File( index, "docs-0.json" ), "UTF-8" );
+        assertTrue( first.startsWith( "[[\"FooBar::member0\"" ) );
+        String second = FileUtils.fileRead( new File( index, "docs-1.json" ), "UTF-8" );
+        assertEquals( second.split( "\\],\\[" ).length, 11 );
+        assertTrue( FileUtils.fileRead( new File( index, "meta.json" ), "UTF-8" ).contains( "\"documents\":"
+            + ( members + 1 ) + "," ) );
+    }
+
+    @Test
+    public void identifiersShouldBeSplit()
+    {
+        assertEquals( DoxygenSearchIndexBuilder.tokenize( "HTTPServer::getURL x" ),
+                      Arrays.asList( "httpserver", "http", "server", "geturl", "get", "url" ) );
+    }
+}
@@ -0,0 +1,158 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.maven.reporting.MavenReportException;
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.StringUtils;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class DoxygenShardsTest
+    extends TestBase
+{
+
+    private File base;
+
+    @BeforeMethod
+    public void beforeMethod()
+        throws IOException
+    {
+        base = new File( getTargetDir(), "shards-test" );
+        FileUtils.deleteDirectory( base );
+        base.mkdirs();
+    }
+
+    private File createFile( String name, int size )
+        throws IOException
+    {
+        File file = new File( base, name );
+        FileUtils.fileWrite( file, "UTF-8", StringUtils.repeat( "x", size ) );
+        return file;
+    }
+
+    private static long size( List<File> shard )
+    {
+        long result = 0;
+        for ( File file : shard )
+        {
+            result += file.length();
+        }
+        return result;
+    }
+
+    @Test
+    public void shardsShouldBeBalancedBySize()
+        throws IOException
+    {
+        List<File> files = new ArrayList<File>();
+        for ( int i = 0; i < 40; i++ )
+        {
+            files.add( createFile( "f" + ( 10 + i ) + ".h", 100 ) );
+        }
+        List<List<File>> shards = AbstractDoxygenMojo.splitIntoShards( files, 4 );
+
+        assertEquals( shards.size(), 4 );
+        List<File> joined = new ArrayList<File>();
+        for ( List<File> shard : shards )
+        {
+            assertEquals( size( shard ), 1000 );
+            joined.addAll( shard );
+        }
+        // The order is kept, so files of the same directory stay together.
+        assertEquals( joined, files );
+    }
+
+    @Test
+    public void largeFilesShouldGetTheirOwnShard()
+        throws IOException
+    {
+        List<File> files =
+            Arrays.asList( createFile( "a.h", 3000 ), createFile( "b.h", 100 ), createFile( "c.h", 100 ),
+                           createFile( "d.h", 100 ) );
+        List<List<File>> shards = AbstractDoxygenMojo.splitIntoShards( files, 2 );
+
+        assertEquals( shards.size(), 2 );
+        assertEquals( shards.get( 0 ), files.subList( 0, 1 ) );
+        assertEquals( shards.get( 1 ), files.subList( 1, 4 ) );
+    }
+
+    @Test
+    public void fewFilesShouldGiveLessShards()
+        throws IOException
+    {
+        List<File> files = Arrays.asList( createFile( "a.h", 10 ), createFile( "b.h", 10 ) );
+        assertEquals( AbstractDoxygenMojo.splitIntoShards( files, 8 ).size(), 2 );
+        assertTrue( AbstractDoxygenMojo.splitIntoShards( new ArrayList<File>(), 8 ).isEmpty() );
+    }
+
+    @Test
+    public void shardsShouldOnlyGenerateHtml()
+        throws IOException
+    {
+        File a = createFile( "a.h", 10 );
+        File shardDirectory = new File( base, "shard-0" );
+        Map<DoxygenParameters, String> overrides =
+            AbstractDoxygenMojo.createShardOverrides( Arrays.asList( a ), shardDirectory );
+
+        assertEquals( overrides.get( DoxygenParameters.INPUT ), "\"" + a.getAbsolutePath() + "\"" );
+        assertEquals( overrides.get( DoxygenParameters.RECURSIVE ), "NO" );
+        assertEquals( overrides.get( DoxygenParameters.OUTPUT_DIRECTORY ), shardDirectory.getAbsolutePath() );
+        assertEquals( overrides.get( DoxygenParameters.HTML_OUTPUT ), "html" );
+        assertEquals( overrides.get( DoxygenParameters.GENERATE_LATEX ), "NO" );
+        assertEquals( overrides.get( DoxygenParameters.GENERATE_RTF ), "NO" );
+        assertEquals( overrides.get( DoxygenParameters.GENERATE_MAN ), "NO" );
+        assertEquals( overrides.get( DoxygenParameters.GENERATE_XML ), "NO" );
+    }
+
+    @Test
+    public void otherOutputFormatsShouldBeRejected()
+        throws MavenReportException
+    {
+        DoxygenReport report = new DoxygenReport();
+        report.setParallelShards( 2 );
+        report.checkShardedOutput();
+
+        report.setGenerateXml( true );
+        report.setSearchIndex( true );
+        try
+        {
+            report.checkShardedOutput();
+            fail( "MavenReportException expected" );
+        }
+        catch ( MavenReportException e )
+        {
+            assertTrue( e.getMessage().contains( "[generateXml, searchIndex]" ), e.getMessage() );
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class DoxygenSourceWatcherTest
+    extends TestBase
+{
+
+    private File sources;
+
+    private DoxygenSourceWatcher watcher;
+
+    @BeforeMethod
+    public void beforeMethod()
+        throws IOException
+    {
+        sources = new File( getTargetDir(), "watcher-sources" );
+        FileUtils.deleteDirectory( sources );
+        new File( sources, "sub" ).mkdirs();
+        FileUtils.fileWrite( new File( sources, "sub/a.h" ), "UTF-8", "int a;" );
+        DoxygenInputScanner scanner = new DoxygenInputScanner( sources, ".", "*.h", true, null, null, false );
+        watcher = new DoxygenSourceWatcher( scanner, true );
+    }
+
+    @AfterMethod
+    public void afterMethod()
+        throws IOException
+    {
+        watcher.close();
+    }
+
+    @Test( timeOut = 60000 )
+    public void burstOfChangesShouldBeCollected()
+        throws Exception
+    {
+        FileUtils.fileWrite( new File( sources, "sub/a.h" ), "UTF-8", "int a2;" );
+        FileUtils.fileWrite( new File( sources, "b.h" ), "UTF-8", "int b;" );
+        FileUtils.fileWrite( new File( sources, "notes.txt" ), "UTF-8", "ignored" );
+
+        Set<File> changes = watcher.awaitChanges( 300 );
+        assertEquals( changes, new TreeSet<File>( Arrays.asList( new File( sources, "b.h" ).getAbsoluteFile(),
+                                                                 new File( sources, "sub/a.h" ).getAbsoluteFile() ) ) );
+    }
+
+    @Test( timeOut = 60000 )
+    public void newDirectoriesShouldBeWatched()
+        throws Exception
+    {
+        File created = new File( sources, "created" );
+        created.mkdirs();
+        FileUtils.fileWrite( new File( created, "c.h" ), "UTF-8", "int c;" );
+        Set<File> changes = watcher.awaitChanges( 300 );
+        assertTrue( changes.contains( new File( created, "c.h" ).getAbsoluteFile() ), changes.toString() );
+
+        FileUtils.fileWrite( new File( created, "d.h" ), "UTF-8", "int d;" );
+        changes = watcher.awaitChanges( 300 );
+        assertTrue( changes.contains( new File( created, "d.h" ).getAbsoluteFile() ), changes.toString() );
+    }
+}
@@ -0,0 +1,118 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.ObjectName;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.cli.StreamConsumer;
+import org.testng.annotations.Test;
+
+public class DoxygenTimingsTest
+    extends TestBase
+{
+
+    @Test
+    public void progressLinesShouldBeClassified()
+    {
+        assertEquals( DoxygenPhase.classify( "Searching for include files..." ), DoxygenPhase.READING );
+        assertEquals( DoxygenPhase.classify( "Parsing file /src/a.h..." ), DoxygenPhase.PARSING );
+        assertEquals( DoxygenPhase.classify( "Building group list..." ), DoxygenPhase.ANALYSING );
+        assertEquals( DoxygenPhase.classify( "Generating docs for compound Foo..." ), DoxygenPhase.GENERATING );
+        assertEquals( DoxygenPhase.classify( "Generating dot graphs using 4 parallel threads..." ),
+                      DoxygenPhase.DOT );
+        assertEquals( DoxygenPhase.classify( "finalizing index lists..." ), DoxygenPhase.FINISHING );
+        assertNull( DoxygenPhase.classify( "Computing class hierarchy..." ) );
+    }
+
+    @Test
+    public void phasesShouldOnlyMoveForward()
+    {
+        final List<String> lines = new ArrayList<String>();
+        DoxygenTimings timings = new DoxygenTimings( "test" );
+        DoxygenPhaseConsumer consumer = new DoxygenPhaseConsumer( new StreamConsumer()
+        {
+            public void consumeLine( String line )
+            {
+                lines.add( line );
+            }
+        }, timings );
+
+        consumer.consumeLine( "Parsing files" );
+        consumer.consumeLine( "Building group list..." );
+        consumer.consumeLine( "Searching for documented typedefs..." );
+        assertEquals( consumer.getPhase(), DoxygenPhase.ANALYSING );
+        consumer.consumeLine( "Running dot for graph 1/2" );
+        consumer.finish();
+
+        assertEquals( lines.size(), 4 );
+        assertEquals( new ArrayList<String>( timings.getMillis().keySet() ),
+                      Arrays.asList( "doxygen.reading", "doxygen.parsing", "doxygen.analysing", "doxygen.dot" ) );
+    }
+
+    @Test
+    public void timingsShouldBeWrittenAsJson()
+        throws Exception
+    {
+        DoxygenTimings timings = new DoxygenTimings( "com.soebes:\"test\"" );
+        timings.add( "configuration", 2500000L );
+        timings.add( "doxygen.parsing", 7000000L );
+        timings.add( "configuration", 500000L );
+
+        File file = new File( getTargetDir(), "timings-test/doxygen-timings.json" );
+        file.delete();
+        timings.write( file );
+        assertEquals( FileUtils.fileRead( file, "UTF-8" ), "{\n  \"module\": \"com.soebes:\\\"test\\\"\",\n"
+            + "  \"phases\": {\n    \"configuration\": 3,\n    \"doxygen.parsing\": 7\n  }\n}\n" );
+    }
+
+    @Test
+    public void timingsShouldBePublishedViaJmx()
+        throws Exception
+    {
+        DoxygenTimingsRegistry registry = DoxygenTimingsRegistry.getInstance();
+        registry.reset();
+        DoxygenTimings timings = new DoxygenTimings( "module-a" );
+        timings.add( "configuration", 4000000L );
+        registry.update( timings );
+        registry.update( timings );
+
+        ObjectName name = new ObjectName( DoxygenTimingsRegistry.OBJECT_NAME );
+        assertEquals( ManagementFactory.getPlatformMBeanServer().getAttribute( name, "Executions" ),
+                      Long.valueOf( 2 ) );
+        assertEquals( registry.getTotals().get( "configuration" ), Long.valueOf( 8 ) );
+        Map<String, Long> module = registry.getTimings( "module-a" );
+        assertEquals( module.get( "configuration" ), Long.valueOf( 4 ) );
+        assertTrue( registry.getTimings( "unknown" ).isEmpty() );
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.Os;
+import org.testng.SkipException;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class DoxygenVersionProbeTest
+    extends TestBase
+{
+
+    private File base;
+
+    private File executable;
+
+    private File calls;
+
+    private File versionsFile;
+
+    @BeforeMethod
+    public void beforeMethod()
+        throws IOException
+    {
+        if ( Os.isFamily( Os.FAMILY_WINDOWS ) )
+        {
+            throw new SkipException( "The fake doxygen executable is a shell script." );
+        }
+        base = new File( getTargetDir(), "probe-test" );
+        FileUtils.deleteDirectory( base );
+        base.mkdirs();
+        calls = new File( base, "calls" );
+        executable = new File( base, "doxygen" );
+        FileUtils.fileWrite( executable, "UTF-8", "#!/bin/sh\necho x >> '" + calls.getAbsolutePath()
+            + "'\necho 1.8.11\n" );
+        executable.setExecutable( true );
+        versionsFile = new File( base, "cache/doxygen-versions.properties" );
+        DoxygenVersionProbe.clear();
+    }
+
+    private int getCalls()
+        throws IOException
+    {
+        return calls.exists() ? FileUtils.fileRead( calls ).split( "\n" ).length : 0;
+    }
+
+    @Test
+    public void executableShouldBeCalledOnlyOnce()
+        throws IOException
+    {
+        DoxygenVersionProbe probe = new DoxygenVersionProbe( versionsFile, new SystemStreamLog() );
+        assertEquals( probe.getVersion( executable.getAbsolutePath(), base ), "1.8.11" );
+        assertEquals( probe.getVersion( executable.getAbsolutePath(), base ), "1.8.11" );
+        assertEquals( getCalls(), 1 );
+        assertTrue( versionsFile.isFile() );
+
+        DoxygenVersionProbe.clear();
+        probe = new DoxygenVersionProbe( versionsFile, new SystemStreamLog() );
+        assertEquals( probe.getVersion( executable.getAbsolutePath(), base ), "1.8.11" );
+        assertEquals( getCalls(), 1 );
+    }
+
+    @Test
+    public void missingExecutableShouldResultInUnknownVersion()
+    {
+        DoxygenVersionProbe probe = new DoxygenVersionProbe( versionsFile, new SystemStreamLog() );
+        assertNull( probe.getVersion( new File( base, "missing" ).getAbsolutePath(), base ) );
+    }
+
+    @Test
+    public void unknownVersionShouldNotBeKept()
+        throws IOException
+    {
+        // Fails until a library it needs is installed, the executable itself does not change.
+        File library = new File( base, "library" );
+        File failing = new File( base, "failing-doxygen" );
+        FileUtils.fileWrite( failing, "UTF-8", "#!/bin/sh\n[ -f '" + library.getAbsolutePath()
+            + "' ] || exit 127\necho 1.8.11\n" );
+        failing.setExecutable( true );
+
+        DoxygenVersionProbe probe = new DoxygenVersionProbe( versionsFile, new SystemStreamLog() );
+        assertNull( probe.getVersion( failing.getAbsolutePath(), base ) );
+
+        FileUtils.fileWrite( library, "UTF-8", "" );
+        assertEquals( probe.getVersion( failing.getAbsolutePath(), base ), "1.8.11" );
+    }
+}
@@ -0,0 +1,62 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import org.testng.annotations.Test;
+
+public class DoxygenVersionTest
+{
+
+    @Test
+    public void versionShouldBeParsed()
+    {
+        assertEquals( DoxygenVersion.parse( "1.8.11" ), new DoxygenVersion( 1, 8, 11 ) );
+        assertEquals( DoxygenVersion.parse( " 1.9.1 (ef9b20ac7f8a8621fcfc299f8bd0b80422390f4b)\n" ),
+                      new DoxygenVersion( 1, 9, 1 ) );
+        assertEquals( DoxygenVersion.parse( "1.7" ), new DoxygenVersion( 1, 7, 0 ) );
+        assertNull( DoxygenVersion.parse( "unknown" ) );
+        assertNull( DoxygenVersion.parse( "" ) );
+    }
+
+    @Test
+    public void versionsShouldBeCompared()
+    {
+        assertTrue( DoxygenVersion.parse( "1.8.3" ).compareTo( DoxygenVersion.parse( "1.8.11" ) ) < 0 );
+        assertTrue( DoxygenVersion.parse( "1.10.0" ).compareTo( DoxygenVersion.parse( "1.9.8" ) ) > 0 );
+    }
+
+    @Test
+    public void obsoleteItemsShouldNotBeSupportedByNewerVersions()
+    {
+        assertTrue( DoxygenParameters.SYMBOL_CACHE_SIZE.isSupportedBy( DoxygenVersion.parse( "1.8.2" ) ) );
+        assertFalse( DoxygenParameters.SYMBOL_CACHE_SIZE.isSupportedBy( DoxygenVersion.parse( "1.8.3" ) ) );
+        assertFalse( DoxygenParameters.SHOW_DIRECTORIES.isSupportedBy( DoxygenVersion.parse( "1.8.11" ) ) );
+        assertFalse( DoxygenParameters.DOT_NUM_THREADS.isSupportedBy( DoxygenVersion.parse( "1.6.3" ) ) );
+        assertTrue( DoxygenParameters.PROJECT_NAME.isSupportedBy( DoxygenVersion.parse( "1.8.11" ) ) );
+        assertTrue( DoxygenParameters.SHOW_DIRECTORIES.isSupportedBy( null ) );
+    }
+}
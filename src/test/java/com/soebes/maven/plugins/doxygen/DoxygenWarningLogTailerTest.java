@@ -0,0 +1,107 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import static org.testng.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class DoxygenWarningLogTailerTest
+    extends TestBase
+{
+
+    private File base;
+
+    @BeforeMethod
+    public void beforeMethod()
+        throws IOException
+    {
+        base = new File( getTargetDir(), "warnings-test" );
+        FileUtils.deleteDirectory( base );
+        base.mkdirs();
+    }
+
+    @Test
+    public void warningsShouldBeCountedWhileTheFileIsWritten()
+        throws Exception
+    {
+        File log = new File( base, "warnings.log" );
+        FileUtils.fileWrite( log, "UTF-8", "from an earlier run: 1: warning: x is not documented\n" );
+
+        DoxygenWarningStatistics statistics = new DoxygenWarningStatistics();
+        DoxygenWarningLogTailer tailer =
+            new DoxygenWarningLogTailer( log, new DoxygenWarningParser( null ), statistics );
+        tailer.start();
+
+        OutputStream out = new FileOutputStream( log );
+        try
+        {
+            for ( int i = 0; i < 1000; i++ )
+            {
+                out.write( ( "a.cpp:" + i + ": warning: Member m" + i + " is not documented.\n" ).getBytes( "UTF-8" ) );
+                out.write( "  continuation\n".getBytes( "UTF-8" ) );
+                if ( i % 100 == 0 )
+                {
+                    out.flush();
+                    Thread.sleep( 5 );
+                }
+            }
+            // The last line has no line separator.
+            out.write( "b.cpp:1: error: broken".getBytes( "UTF-8" ) );
+        }
+        finally
+        {
+            out.close();
+        }
+        tailer.stop();
+
+        assertEquals( statistics.getTotal(), 1001 );
+        Map<String, Map<String, Integer>> files = statistics.getCountsByFile();
+        assertEquals( files.get( "a.cpp" ).get( "undocumented" ).intValue(), 1000 );
+        assertEquals( files.get( "b.cpp" ).get( "error" ).intValue(), 1 );
+    }
+
+    @Test
+    public void statisticsShouldBeStoredAndLoaded()
+        throws IOException
+    {
+        DoxygenWarningStatistics statistics = new DoxygenWarningStatistics();
+        statistics.add( new DoxygenWarning( "dir/a|b.cpp", 1, "undocumented", "x" ) );
+        statistics.add( new DoxygenWarning( "dir/a|b.cpp", 2, "undocumented", "y" ) );
+        statistics.add( new DoxygenWarning( "c.cpp", 2, "error", "z" ) );
+        File file = new File( base, "warnings.properties" );
+        statistics.store( file );
+
+        DoxygenWarningStatistics loaded = DoxygenWarningStatistics.load( file );
+        assertEquals( loaded.getTotal(), 3 );
+        assertEquals( loaded.getCountsByFile(), statistics.getCountsByFile() );
+        assertEquals( loaded.getCountsByCategory().get( "undocumented" ).longValue(), 2 );
+    }
+}
@@ -0,0 +1,68 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import org.testng.annotations.Test;
+
+public class DoxygenWarningParserTest
+{
+
+    @Test
+    public void defaultFormatShouldBeParsed()
+    {
+        DoxygenWarningParser parser = new DoxygenWarningParser( "\"$file:$line: $text\"" );
+        DoxygenWarning warning =
+            parser.parse( "/src/C:/dir/a.cpp:42: warning: Member foo() (function) of class A is not documented." );
+        assertEquals( warning.getFile(), "/src/C:/dir/a.cpp" );
+        assertEquals( warning.getLine(), 42 );
+        assertEquals( warning.getCategory(), "undocumented" );
+    }
+
+    @Test
+    public void customFormatShouldBeParsed()
+    {
+        DoxygenWarningParser parser = new DoxygenWarningParser( "$text ($file, line $line)" );
+        DoxygenWarning warning = parser.parse( "warning: Found unknown command `\\foo' (b.h, line 7)" );
+        assertEquals( warning.getFile(), "b.h" );
+        assertEquals( warning.getLine(), 7 );
+        assertEquals( warning.getCategory(), "unknown command" );
+    }
+
+    @Test
+    public void continuationLinesShouldBeIgnored()
+    {
+        DoxygenWarningParser parser = new DoxygenWarningParser( null );
+        assertNull( parser.parse( "  parameter 'x'" ) );
+    }
+
+    @Test
+    public void categoriesShouldBeDerivedFromTheText()
+    {
+        assertEquals( DoxygenWarningParser.categorize( "error: Could not open file" ), "error" );
+        assertEquals( DoxygenWarningParser.categorize( "warning: unable to resolve reference to `x'" ),
+                      "unresolved reference" );
+        assertEquals( DoxygenWarningParser.categorize( "warning: something else" ), "other" );
+    }
+}
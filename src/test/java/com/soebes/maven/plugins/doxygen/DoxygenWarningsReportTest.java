@@ -0,0 +1,74 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.codehaus.doxia.sink.SinkAdapter;
+import org.testng.annotations.Test;
+
+public class DoxygenWarningsReportTest
+{
+
+    private static class RecordingSink
+        extends SinkAdapter
+    {
+        private final List<String> texts = new ArrayList<String>();
+
+        public void text( String text )
+        {
+            texts.add( text );
+        }
+    }
+
+    @Test
+    public void warningsShouldBeRenderedIntoTheSink()
+    {
+        DoxygenWarningStatistics statistics = new DoxygenWarningStatistics();
+        statistics.add( new DoxygenWarning( "a.cpp", 1, "undocumented", "Member foo is not documented." ) );
+        statistics.add( new DoxygenWarning( "a.cpp", 2, "undocumented", "Member bar is not documented." ) );
+        statistics.add( new DoxygenWarning( "b.h", 7, "unknown command", "Found unknown command." ) );
+
+        RecordingSink sink = new RecordingSink();
+        DoxygenWarningsReport.render( sink, statistics );
+
+        assertTrue( sink.texts.contains( "Total number of warnings: 3" ) );
+        int undocumented = sink.texts.indexOf( "undocumented" );
+        assertEquals( sink.texts.get( undocumented + 1 ), "2" );
+        int file = sink.texts.indexOf( "b.h" );
+        assertEquals( sink.texts.get( file + 1 ), "unknown command" );
+        assertEquals( sink.texts.get( file + 2 ), "1" );
+    }
+
+    @Test
+    public void missingWarningsShouldBeReported()
+    {
+        RecordingSink sink = new RecordingSink();
+        DoxygenWarningsReport.render( sink, null );
+
+        assertTrue( sink.texts.get( sink.texts.size() - 1 ).startsWith( "No warnings have been collected." ) );
+    }
+}
@@ -0,0 +1,220 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+import org.apache.maven.execution.MavenSession;
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.Os;
+import org.testng.SkipException;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class DoxygenWatchMojoTest
+    extends TestBase
+{
+
+    private File base;
+
+    private File sources;
+
+    private File calls;
+
+    private File lastConfig;
+
+    private DoxygenWatchMojo mojo;
+
+    @BeforeMethod
+    public void beforeMethod()
+        throws IOException
+    {
+        if ( Os.isFamily( Os.FAMILY_WINDOWS ) )
+        {
+            throw new SkipException( "The fake doxygen needs a POSIX shell." );
+        }
+        base = new File( getTargetDir(), "watch-mojo-test" );
+        FileUtils.deleteDirectory( base );
+        sources = new File( base, "src" );
+        sources.mkdirs();
+        FileUtils.fileWrite( new File( sources, "a.h" ), "UTF-8", "class A;" );
+
+        // A fake doxygen which reports its version and records the configuration of the runs.
+        calls = new File( base, "calls" );
+        lastConfig = new File( base, "last.config" );
+        File doxygen = new File( base, "doxygen" );
+        FileUtils.fileWrite( doxygen, "UTF-8", "#!/bin/sh\n"
+            + "if [ \"$1\" = --version ]; then echo 1.8.11; exit 0; fi\n"
+            + "echo \"$1\" >> '" + calls.getAbsolutePath() + "'\n"
+            + "cp \"$1\" '" + lastConfig.getAbsolutePath() + "'\n" );
+        doxygen.setExecutable( true );
+
+        mojo = new DoxygenWatchMojo();
+        mojo.setBasedir( sources );
+        mojo.setOutputDirectory( new File( base, "out" ) );
+        mojo.setInput( sources.getAbsolutePath() );
+        mojo.setExecutable( doxygen.getAbsolutePath() );
+        mojo.setDeduplicate( true );
+        mojo.setSession( new MavenSession( null, null, null, null, null, null, null, null, new Date() ) );
+    }
+
+    private int getCalls()
+        throws IOException
+    {
+        return calls.exists() ? FileUtils.fileRead( calls ).split( "\n" ).length : 0;
+    }
+
+    /**
+     * @return true if the last run generated the preview.
+     */
+    private boolean isPreview()
+        throws IOException
+    {
+        String[] configs = FileUtils.fileRead( calls ).split( "\n" );
+        return new File( configs[configs.length - 1] ).getParentFile().getName().equals( "doxygen-preview" );
+    }
+
+    private Set<File> changed( String... names )
+        throws IOException
+    {
+        Set<File> result = new LinkedHashSet<File>();
+        for ( String name : names )
+        {
+            File file = new File( sources, name );
+            FileUtils.fileWrite( file, "UTF-8", "class " + name.substring( 0, 1 ).toUpperCase( Locale.ENGLISH ) + ";" );
+            result.add( file );
+        }
+        return result;
+    }
+
+    /**
+     * The full runs of the fake doxygen do not write the tag file the preview links against.
+     */
+    private void writeFullTagfile()
+        throws IOException
+    {
+        mojo.getFullTagfile().getParentFile().mkdirs();
+        FileUtils.fileWrite( mojo.getFullTagfile(), "UTF-8", "<tagfile/>" );
+    }
+
+    @Test
+    public void everyFullRunShouldRunDoxygen()
+        throws Exception
+    {
+        mojo.executeReport( Locale.ENGLISH );
+        mojo.finishExecution();
+        assertEquals( getCalls(), 1 );
+
+        FileUtils.fileWrite( new File( sources, "a.h" ), "UTF-8", "class A { int x; };" );
+        mojo.executeReport( Locale.ENGLISH );
+        mojo.finishExecution();
+        assertEquals( getCalls(), 2 );
+    }
+
+    @Test
+    public void fewChangesShouldGenerateThePreview()
+        throws Exception
+    {
+        writeFullTagfile();
+        mojo.setWatchMaxChangedFiles( 2 );
+        mojo.regenerate( changed( "a.h", "b.h" ), false );
+        assertEquals( getCalls(), 1 );
+        assertTrue( isPreview() );
+        String config = FileUtils.fileRead( lastConfig );
+        assertTrue( config.contains( new File( sources, "b.h" ).getAbsolutePath() ) );
+        assertTrue( config.contains( mojo.getFullTagfile().getAbsolutePath() ) );
+    }
+
+    @Test
+    public void missingTagfileShouldGenerateTheCompleteDocumentation()
+        throws Exception
+    {
+        mojo.regenerate( changed( "a.h" ), false );
+        assertEquals( getCalls(), 1 );
+        assertFalse( isPreview() );
+    }
+
+    @Test
+    public void manyChangesShouldGenerateTheCompleteDocumentation()
+        throws Exception
+    {
+        writeFullTagfile();
+        mojo.setWatchMaxChangedFiles( 1 );
+        mojo.regenerate( changed( "a.h", "b.h" ), false );
+        assertEquals( getCalls(), 1 );
+        assertFalse( isPreview() );
+    }
+
+    @Test
+    public void deletedFilesShouldGenerateTheCompleteDocumentation()
+        throws Exception
+    {
+        writeFullTagfile();
+        mojo.setWatchMaxChangedFiles( 20 );
+        Set<File> changes = changed( "b.h" );
+        changes.add( new File( sources, "deleted.h" ) );
+        mojo.regenerate( changes, false );
+        assertEquals( getCalls(), 1 );
+        assertFalse( isPreview() );
+    }
+
+    @Test
+    public void incompleteChangesShouldGenerateTheCompleteDocumentation()
+        throws Exception
+    {
+        writeFullTagfile();
+        mojo.setWatchMaxChangedFiles( 20 );
+        mojo.regenerate( changed( "a.h" ), true );
+        assertEquals( getCalls(), 1 );
+        assertFalse( isPreview() );
+    }
+
+    @Test
+    public void previewShouldUseTheFilteredFiles()
+        throws Exception
+    {
+        writeFullTagfile();
+        mojo.setWatchMaxChangedFiles( 20 );
+        File mirror = new File( base, "mirror" );
+        mojo.setFilterMirrorDirectory( mirror );
+        mojo.setJavaFilters( Collections.singletonList( DoxygenFilterStageTest.UpperCaseFilter.class.getName() ) );
+        mojo.regenerate( changed( "c.upper" ), false );
+        assertEquals( getCalls(), 1 );
+        assertTrue( isPreview() );
+
+        String config = FileUtils.fileRead( lastConfig );
+        assertFalse( config.contains( new File( sources, "c.upper" ).getAbsolutePath() ) );
+        File filtered = new File( mirror, "c.upper" );
+        assertTrue( config.contains( filtered.getAbsolutePath() ) );
+        assertEquals( FileUtils.fileRead( filtered, "UTF-8" ), "CLASS C;" );
+    }
+}
@@ -0,0 +1,158 @@
+/**
+ * The Doxygen Maven Plugin (dmp)
+ *
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by SoftwareEntwicklung Beratung Schulung (SoEBeS)
+ * Copyright (c) 2010, 2011, 2012, 2013, 2014, 2015 by Karl Heinz Marbaise
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.soebes.maven.plugins.doxygen;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.reporting.MavenReportException;
+import org.codehaus.plexus.util.FileUtils;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class DoxygenXmlReaderTest
+    extends TestBase
+{
+
+    private static final List<String> PROCESSED = new ArrayList<String>();
+
+    private File xml;
+
+    @BeforeMethod
+    public void beforeMethod()
+        throws IOException
+    {
+        xml = new File( getTargetDir(), "xml-reader-test" );
+        FileUtils.deleteDirectory( xml );
+        xml.mkdirs();
+        PROCESSED.clear();
+
+        FileUtils.fileWrite( new File( xml, "index.xml" ), "UTF-8", "<?xml version='1.0' encoding='UTF-8'?>\n"
+            + "<doxygenindex>\n"
+            + "  <compound refid=\"classFoo\" kind=\"class\"><name>Foo</name>\n"
+            + "    <member refid=\"classFoo_1a01\" kind=\"function\"><name>bar</name></member>\n"
+            + "  </compound>\n"
+            + "  <compound refid=\"foo_8h\" kind=\"file\"><name>foo.h</name></compound>\n"
+            + "</doxygenindex>\n" );
+        FileUtils.fileWrite( new File( xml, "classFoo.xml" ), "UTF-8", "<?xml version='1.0' encoding='UTF-8'?>\n"
+            + "<doxygen><compounddef id=\"classFoo\" kind=\"class\">\n"
+            + "  <compoundname>Foo</compoundname>\n"
+            + "  <sectiondef kind=\"public-func\">\n"
+            + "    <memberdef kind=\"function\" id=\"classFoo_1a01\" prot=\"public\" static=\"yes\">\n"
+            + "      <type><ref refid=\"classBar\">Bar</ref> *</type>\n"
+            + "      <definition>Bar* Foo::bar</definition>\n"
+            + "      <argsstring>(int x) const</argsstring>\n"
+            + "      <name>bar</name>\n"
+            + "      <param><type>int</type><declname>x</declname></param>\n"
+            + "      <briefdescription><para>Get the <bold>bar</bold>.</para></briefdescription>\n"
+            + "      <location file=\"foo.h\" line=\"12\"/>\n"
+            + "    </memberdef>\n"
+            + "    <memberdef kind=\"variable\" id=\"classFoo_1a02\" prot=\"private\" static=\"no\">\n"
+            + "      <name>count</name>\n"
+            + "    </memberdef>\n"
+            + "  </sectiondef>\n"
+            + "</compounddef></doxygen>\n" );
+    }
+
+    @Test
+    public void compoundsAndMembersShouldBeRead()
+        throws IOException
+    {
+        DoxygenXmlIterator<DoxygenCompound> compounds = new DoxygenXmlReader( xml ).compounds();
+        assertTrue( compounds.hasNext() );
+        DoxygenCompound foo = compounds.next();
+        assertEquals( foo.getId(), "classFoo" );
+        assertEquals( foo.getKind(), "class" );
+        assertEquals( foo.getName(), "Foo" );
+
+        DoxygenXmlIterator<DoxygenMember> members = foo.members();
+        DoxygenMember bar = members.next();
+        assertEquals( bar.getCompound(), foo );
+        assertEquals( bar.getId(), "classFoo_1a01" );
+        assertEquals( bar.getKind(), "function" );
+        assertEquals( bar.getName(), "bar" );
+        assertEquals( bar.getProtection(), "public" );
+        assertTrue( bar.isStatic() );
+        assertEquals( bar.getType(), "Bar *" );
+        assertEquals( bar.getDefinition(), "Bar* Foo::bar" );
+        assertEquals( bar.getArgsString(), "(int x) const" );
+        assertEquals( bar.getBriefDescription(), "Get the bar." );
+        assertEquals( bar.getLocation(), "foo.h" );
+        assertEquals( bar.getLine(), 12 );
+
+        DoxygenMember count = members.next();
+        assertEquals( count.getName(), "count" );
+        assertFalse( count.isStatic() );
+        assertFalse( members.hasNext() );
+
+        assertEquals( compounds.next().getName(), "foo.h" );
+        assertFalse( compounds.hasNext() );
+    }
+
+    public static class RecordingProcessor
+        implements DoxygenXmlProcessor
+    {
+        public void process( DoxygenXmlReader reader, Log log )
+            throws IOException
+        {
+            DoxygenXmlIterator<DoxygenCompound> compounds = reader.compounds();
+            try
+            {
+                while ( compounds.hasNext() )
+                {
+                    PROCESSED.add( compounds.next().getName() );
+                }
+            }
+            finally
+            {
+                compounds.close();
+            }
+        }
+    }
+
+    @Test
+    public void configuredProcessorsShouldBeCalled()
+        throws MavenReportException
+    {
+        DoxygenReport report = new DoxygenReport();
+        report.setXmlProcessors( Arrays.asList( RecordingProcessor.class.getName() ) );
+        report.processXmlOutput( new DoxygenXmlReader( xml ) );
+        assertEquals( PROCESSED, Arrays.asList( "Foo", "foo.h" ) );
+    }
+
+    @Test( expectedExceptions = MavenReportException.class )
+    public void unknownProcessorShouldFail()
+        throws MavenReportException
+    {
+        DoxygenReport report = new DoxygenReport();
+        report.setXmlProcessors( Arrays.asList( "com.example.Unknown" ) );
+        report.processXmlOutput( new DoxygenXmlReader( xml ) );
+    }
+}